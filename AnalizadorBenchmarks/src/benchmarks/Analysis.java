@@ -0,0 +1,145 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a las clases del analizador desde los benchmarks.
+ * JMH no permite benchmarks en el paquete por defecto y desde un paquete con nombre no se pueden
+ * usar las clases del paquete por defecto, así que se resuelven una sola vez como method handles
+ * constantes (el JIT los trata igual que una llamada directa).
+ */
+final class Analysis {
+    private static final MethodHandle NEW_LEXER;         // new Lexer(String, Diagnostics)
+    private static final MethodHandle TOKENIZE;          // Lexer.tokenize()
+    private static final MethodHandle LEX_BUFFER;        // TokenBuffer.lex(String, Diagnostics)
+    private static final MethodHandle LEX_PARALLEL;      // ParallelLexer.lex(String, Diagnostics)
+    private static final MethodHandle LEX_MAPPED;        // TokenBuffer.map(Path, Diagnostics)
+    private static final MethodHandle BUFFER_SIZE;       // TokenBuffer.size()
+    private static final MethodHandle BUFFER_CURSOR;     // TokenBuffer.cursor()
+    private static final MethodHandle NEW_DIAGNOSTICS;   // new Diagnostics()
+    private static final MethodHandle NEW_LIST_PARSER;   // new Parser(List, Diagnostics)
+    private static final MethodHandle NEW_SOURCE_PARSER; // new Parser(TokenSource, Diagnostics)
+    private static final MethodHandle NEW_ITERATIVE_PARSER; // new IterativeParser(TokenSource, Diagnostics, Reporter)
+    private static final MethodHandle NEW_RECOGNIZER;    // new Recognizer()
+    private static final MethodHandle RECOGNIZE;         // Recognizer.recognize(TokenBuffer)
+    private static final Object NO_REPORTER;             // Reporter.NONE
+    private static final MethodHandle PARSE;             // Parser.parse()
+    private static final MethodHandle RUN_EXAMPLES;      // Main.runExamples(String)
+    private static final MethodHandle RUN_STREAMING;     // Main.runStreaming(String)
+
+    static {
+        try {
+            Class<?> main = Class.forName("Main");
+            Class<?> parser = Class.forName("Parser");
+            Class<?> buffer = Class.forName("TokenBuffer");
+            Class<?> source = Class.forName("TokenSource");
+            Class<?> diagnostics = Class.forName("Diagnostics");
+            Class<?> reporter = Class.forName("Reporter");
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(main, MethodHandles.lookup());
+
+            Class<?> lexer = Class.forName("Lexer");
+            NEW_LEXER = lookup.findConstructor(lexer, MethodType.methodType(void.class, String.class, diagnostics))
+                    .asType(MethodType.methodType(Object.class, String.class, Object.class));
+            TOKENIZE = lookup.findVirtual(lexer, "tokenize", MethodType.methodType(ArrayList.class))
+                    .asType(MethodType.methodType(ArrayList.class, Object.class));
+            LEX_BUFFER = lookup.findStatic(buffer, "lex", MethodType.methodType(buffer, String.class, diagnostics))
+                    .asType(MethodType.methodType(Object.class, String.class, Object.class));
+            LEX_PARALLEL = lookup.findStatic(Class.forName("ParallelLexer"), "lex", MethodType.methodType(buffer, String.class, diagnostics))
+                    .asType(MethodType.methodType(Object.class, String.class, Object.class));
+            LEX_MAPPED = lookup.findStatic(buffer, "map", MethodType.methodType(buffer, Path.class, diagnostics))
+                    .asType(MethodType.methodType(Object.class, Path.class, Object.class));
+            BUFFER_SIZE = lookup.findVirtual(buffer, "size", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            BUFFER_CURSOR = lookup.findVirtual(buffer, "cursor", MethodType.methodType(Class.forName("TokenBuffer$Cursor")))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            NEW_DIAGNOSTICS = lookup.findConstructor(diagnostics, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            NEW_LIST_PARSER = lookup.findConstructor(parser, MethodType.methodType(void.class, List.class, diagnostics))
+                    .asType(MethodType.methodType(Object.class, List.class, Object.class));
+            NEW_SOURCE_PARSER = lookup.findConstructor(parser, MethodType.methodType(void.class, source, diagnostics))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            NEW_ITERATIVE_PARSER = lookup.findConstructor(Class.forName("IterativeParser"),
+                            MethodType.methodType(void.class, source, diagnostics, reporter))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class, Object.class));
+            Class<?> recognizer = Class.forName("Recognizer");
+            NEW_RECOGNIZER = lookup.findConstructor(recognizer, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            RECOGNIZE = lookup.findVirtual(recognizer, "recognize", MethodType.methodType(boolean.class, buffer))
+                    .asType(MethodType.methodType(boolean.class, Object.class, Object.class));
+            NO_REPORTER = lookup.findStaticGetter(reporter, "NONE", reporter).invoke();
+            PARSE = lookup.findVirtual(parser, "parse", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            RUN_EXAMPLES = lookup.findStatic(main, "runExamples", MethodType.methodType(void.class, String.class));
+            RUN_STREAMING = lookup.findStatic(main, "runStreaming", MethodType.methodType(void.class, String.class));
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Analysis() {
+    }
+
+    static Object newErrors() throws Throwable {
+        return (Object) NEW_DIAGNOSTICS.invokeExact();
+    }
+
+    /**
+     * Análisis léxico a una lista de objetos Token, como lo hacía Main antes del TokenBuffer.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Object> lex(String input, Object errors) throws Throwable {
+        Object lexer = (Object) NEW_LEXER.invokeExact(input, errors);
+        return (List<Object>) (ArrayList<?>) TOKENIZE.invokeExact(lexer);
+    }
+
+    static Object lexBuffer(String input, Object errors) throws Throwable {
+        return (Object) LEX_BUFFER.invokeExact(input, errors);
+    }
+
+    static Object lexParallel(String input, Object errors) throws Throwable {
+        return (Object) LEX_PARALLEL.invokeExact(input, errors);
+    }
+
+    static Object lexMapped(Path file, Object errors) throws Throwable {
+        return (Object) LEX_MAPPED.invokeExact(file, errors);
+    }
+
+    static int bufferSize(Object buffer) throws Throwable {
+        return (int) BUFFER_SIZE.invokeExact(buffer);
+    }
+
+    static void parse(List<Object> tokens, Object errors) throws Throwable {
+        Object parser = (Object) NEW_LIST_PARSER.invokeExact((List) tokens, errors);
+        PARSE.invokeExact(parser);
+    }
+
+    static void parseBuffer(Object buffer, Object errors) throws Throwable {
+        Object cursor = (Object) BUFFER_CURSOR.invokeExact(buffer);
+        Object parser = (Object) NEW_SOURCE_PARSER.invokeExact(cursor, errors);
+        PARSE.invokeExact(parser);
+    }
+
+    static void parseIterative(Object buffer, Object errors) throws Throwable {
+        Object cursor = (Object) BUFFER_CURSOR.invokeExact(buffer);
+        Object parser = (Object) NEW_ITERATIVE_PARSER.invokeExact(cursor, errors, NO_REPORTER);
+        PARSE.invokeExact(parser);
+    }
+
+    static boolean recognize(Object buffer) throws Throwable {
+        Object recognizer = (Object) NEW_RECOGNIZER.invokeExact();
+        return (boolean) RECOGNIZE.invokeExact(recognizer, buffer);
+    }
+
+    static void runExamples(String fileName) throws Throwable {
+        RUN_EXAMPLES.invokeExact(fileName);
+    }
+
+    static void runStreaming(String fileName) throws Throwable {
+        RUN_STREAMING.invokeExact(fileName);
+    }
+}
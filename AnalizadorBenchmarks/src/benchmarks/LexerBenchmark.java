@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks del análisis léxico: la lista de tokens de {@code Lexer.tokenize}, el {@code TokenBuffer},
+ * el análisis en paralelo de {@code ParallelLexer} y el archivo mapeado en memoria de {@code TokenBuffer.map}
+ * (con la API de vectores, que se agrega a la JVM de ese benchmark).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Benchmark
+    public Object lex(ProgramState state, Throughput throughput) throws Throwable {
+        Object tokens = Analysis.lex(state.program, Analysis.newErrors());
+        throughput.add(state);
+        return tokens;
+    }
+
+    @Benchmark
+    public Object lexBuffer(ProgramState state, Throughput throughput) throws Throwable {
+        Object buffer = Analysis.lexBuffer(state.program, Analysis.newErrors());
+        throughput.add(state);
+        return buffer;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public Object lexMapped(ProgramState state, Throughput throughput) throws Throwable {
+        Object buffer = Analysis.lexMapped(state.file, Analysis.newErrors());
+        throughput.add(state);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object lexParallel(ProgramState state, Throughput throughput) throws Throwable {
+        Object buffer = Analysis.lexParallel(state.program, Analysis.newErrors());
+        throughput.add(state);
+        return buffer;
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de {@code Parser.parse} sobre tokens ya analizados, y de {@code Recognizer.recognize}, que solo
+ * revisa si son válidos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Benchmark
+    public Object parseList(ProgramState state, Throughput throughput) throws Throwable {
+        Object errors = Analysis.newErrors();
+        Analysis.parse(state.tokens, errors);
+        throughput.add(state);
+        return errors;
+    }
+
+    @Benchmark
+    public Object parseBuffer(ProgramState state, Throughput throughput) throws Throwable {
+        Object errors = Analysis.newErrors();
+        Analysis.parseBuffer(state.buffer, errors);
+        throughput.add(state);
+        return errors;
+    }
+
+    @Benchmark
+    public Object parseIterative(ProgramState state, Throughput throughput) throws Throwable {
+        Object errors = Analysis.newErrors();
+        Analysis.parseIterative(state.buffer, errors);
+        throughput.add(state);
+        return errors;
+    }
+
+    @Benchmark
+    public boolean recognize(ProgramState state, Throughput throughput) throws Throwable {
+        boolean valid = Analysis.recognize(state.buffer);
+        throughput.add(state);
+        return valid;
+    }
+}
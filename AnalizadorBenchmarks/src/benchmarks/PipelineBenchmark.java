@@ -0,0 +1,34 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de extremo a extremo: lectura del archivo, análisis léxico, sintáctico y reporte.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Benchmark
+    public void runExamples(ProgramState state, Throughput throughput) throws Throwable {
+        Analysis.runExamples(state.file.toString());
+        throughput.add(state);
+    }
+
+    @Benchmark
+    public void runStreaming(ProgramState state, Throughput throughput) throws Throwable {
+        Analysis.runStreaming(state.file.toString());
+        throughput.add(state);
+    }
+}
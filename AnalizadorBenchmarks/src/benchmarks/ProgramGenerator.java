@@ -0,0 +1,154 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generador determinista de programas sintéticos para los benchmarks.
+ * Con la misma semilla y los mismos parámetros siempre se genera el mismo programa, y el programa
+ * usa todas las construcciones que acepta el parser: asignaciones, if-then-else-endif,
+ * while-do-endwhile, los operadores de comparación y aritméticos y paréntesis.
+ */
+public class ProgramGenerator {
+    private static final String[] COMPARISONS = {"==", "<", "<=", ">", ">="};
+    private static final String[] OPERATORS = {"+", "-", "*", "/"};
+    private static final String[] CORRUPTIONS = {"==", "#", ")", "then", "endwhile"};
+
+    private final Random random;
+    private final int maxDepth;         // Anidamiento máximo de if/while
+    private final int expressionLength; // Número de operandos por expresión
+    private final double errorRate;     // Probabilidad de que una sentencia tenga un error
+    private final int variableCount;    // Número de variables distintas
+    private final StringBuilder output = new StringBuilder();
+    private int generated = 0;
+
+    /**
+     * Constructor de la clase ProgramGenerator
+     * @param seed             Semilla del generador
+     * @param maxDepth         Anidamiento máximo de bloques if/while
+     * @param expressionLength Número de operandos por expresión
+     * @param errorRate        Probabilidad (0 a 1) de que una sentencia tenga un error de sintaxis
+     */
+    public ProgramGenerator(long seed, int maxDepth, int expressionLength, double errorRate) {
+        this.random = new Random(seed);
+        this.maxDepth = maxDepth;
+        this.expressionLength = Math.max(1, expressionLength);
+        this.errorRate = errorRate;
+        this.variableCount = 64;
+    }
+
+    /**
+     * Genera un programa con al menos {@code statements} sentencias (contando las anidadas).
+     * @param statements Número de sentencias a generar
+     * @return El texto del programa
+     */
+    public String generate(int statements) {
+        output.setLength(0);
+        generated = 0;
+        while (generated < statements) {
+            statement(0, statements);
+        }
+        return output.toString();
+    }
+
+    private void statement(int depth, int budget) {
+        generated++;
+        int choice = random.nextInt(10);
+        if (depth < maxDepth && generated < budget && choice < 2) {
+            ifStatement(depth, budget);
+        } else if (depth < maxDepth && generated < budget && choice < 4) {
+            whileStatement(depth, budget);
+        } else {
+            assignment(depth);
+        }
+    }
+
+    private void assignment(int depth) {
+        indent(depth);
+        output.append(variable()).append(" = ");
+        expression(expressionLength);
+        output.append(" ;");
+        corrupt();
+        output.append('\n');
+    }
+
+    private void ifStatement(int depth, int budget) {
+        indent(depth);
+        output.append("if ");
+        condition();
+        output.append(" then");
+        corrupt();
+        output.append('\n');
+        block(depth + 1, budget);
+        if (random.nextBoolean()) {
+            indent(depth);
+            output.append("else\n");
+            block(depth + 1, budget);
+        }
+        indent(depth);
+        output.append("endif\n");
+    }
+
+    private void whileStatement(int depth, int budget) {
+        indent(depth);
+        output.append("while ");
+        condition();
+        output.append(" do");
+        corrupt();
+        output.append('\n');
+        block(depth + 1, budget);
+        indent(depth);
+        output.append("endwhile\n");
+    }
+
+    private void block(int depth, int budget) {
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count && generated < budget; i++) {
+            statement(depth, budget);
+        }
+    }
+
+    private void condition() {
+        output.append("( ");
+        expression(Math.max(1, expressionLength / 2));
+        output.append(' ').append(COMPARISONS[random.nextInt(COMPARISONS.length)]).append(' ');
+        expression(Math.max(1, expressionLength / 2));
+        output.append(" )");
+    }
+
+    private void expression(int operands) {
+        int remaining = operands;
+        while (remaining > 0) {
+            if (remaining < operands) {
+                // Se omiten los espacios a veces para ejercitar el maximal munch del lexer
+                boolean compact = random.nextInt(4) == 0;
+                output.append(compact ? "" : " ").append(OPERATORS[random.nextInt(OPERATORS.length)]).append(compact ? "" : " ");
+            }
+            if (remaining >= 3 && random.nextInt(5) == 0) {
+                int grouped = 2 + random.nextInt(Math.min(remaining, 4) - 1);
+                output.append("( ");
+                expression(grouped);
+                output.append(" )");
+                remaining -= grouped;
+            } else {
+                output.append(random.nextBoolean() ? variable() : Integer.toString(random.nextInt(1000)));
+                remaining--;
+            }
+        }
+    }
+
+    private String variable() {
+        return "v" + random.nextInt(variableCount);
+    }
+
+    private void corrupt() {
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            output.append(' ').append(CORRUPTIONS[random.nextInt(CORRUPTIONS.length)]);
+        }
+    }
+
+    private void indent(int depth) {
+        for (int i = 0; i < depth; i++) {
+            output.append("  ");
+        }
+    }
+}
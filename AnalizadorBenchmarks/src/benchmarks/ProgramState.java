@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Programa sintético compartido por los benchmarks. Se genera una vez por combinación de parámetros
+ * y también se guarda en un archivo temporal para los benchmarks de extremo a extremo.
+ */
+@State(Scope.Benchmark)
+public class ProgramState {
+    @Param({"1000", "100000"})
+    public int statements;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int expressionLength;
+
+    @Param({"0.0", "0.05"})
+    public double errorRate;
+
+    String program;
+    Path file;
+    List<Object> tokens;   // Tokens ya analizados, para medir solo el parser
+    Object buffer;         // TokenBuffer ya analizado
+    int tokenCount;
+    int lineCount;
+
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        program = new ProgramGenerator(42, depth, expressionLength, errorRate).generate(statements);
+        file = Files.createTempFile("analizador-bench", ".txt");
+        Files.writeString(file, program);
+
+        tokens = Analysis.lex(program, Analysis.newErrors());
+        buffer = Analysis.lexBuffer(program, Analysis.newErrors());
+        tokenCount = tokens.size();
+        lineCount = (int) program.chars().filter(c -> c == '\n').count();
+
+        // El analizador imprime cada sentencia válida; se descarta la salida para medir solo el análisis
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        Files.deleteIfExists(file);
+    }
+}
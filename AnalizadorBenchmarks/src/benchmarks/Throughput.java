@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Contadores auxiliares: JMH los reporta como tokens/s y líneas/s junto al resultado de cada benchmark.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    public long tokens;
+    public long lines;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        tokens = 0;
+        lines = 0;
+    }
+
+    void add(ProgramState state) {
+        tokens += state.tokenCount;
+        lines += state.lineCount;
+    }
+}
@@ -0,0 +1,460 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Caché en disco de los resultados del análisis. La llave es un hash SHA-256 del contenido del archivo,
+ * de las opciones que cambian el resultado (máximo de errores y de anidamiento) y de la versión de la
+ * gramática, que se calcula de los patrones de {@link Token.Type} y de los lexemas de {@link Token.Lexeme};
+ * así, si cambia la gramática, las entradas anteriores simplemente dejan de encontrarse.
+ * <p>
+ * Cada entrada es un archivo con los tokens, las sentencias válidas y los errores en el orden en que se
+ * reportaron, en registros binarios compactos. Al encontrar una entrada se lee con un mapeo a memoria y se
+ * vuelve a reportar tal cual, sin hacer el análisis léxico ni el sintáctico, así que los reportes son
+ * idénticos byte por byte.
+ * <p>
+ * Cada entrada se escribe en un archivo temporal y después se renombra de forma atómica, así que varios
+ * procesos o hilos pueden escribir la misma entrada a la vez y un lector nunca ve un archivo a medias.
+ * Cuando el tamaño total pasa del máximo se borran las entradas usadas hace más tiempo (LRU); la fecha
+ * de modificación de cada archivo se actualiza al usarlo para que el orden se conserve entre ejecuciones.
+ * <p>
+ * La caché nunca hace fallar un análisis: si no se puede escribir o borrar una entrada (disco lleno,
+ * permisos) se avisa en la salida de errores y el análisis sigue sin guardarla. Los archivos temporales
+ * que dejó un proceso interrumpido se borran al abrir la caché.
+ */
+class AnalysisCache {
+    // Cambiar cuando el parser reporte algo distinto para la misma gramática
+    private static final int ANALYZER_VERSION = 3;
+    private static final int MAGIC = 0x414e4c43; // "ANLC"
+    private static final int FORMAT = 1;
+    private static final int HEADER = 4 + 4 + 32 + 4 + 8; // Magic, formato, llave, longitud y CRC de los registros
+    private static final String SUFFIX = ".bin";
+    private static final String TEMPORARY = ".tmp";
+    private static final long STALE_MILLIS = 60 * 60 * 1000; // Un temporal más viejo ya no lo está escribiendo nadie
+
+    // Registros
+    private static final int TOKEN = 1;
+    private static final int STATEMENT = 2;
+    private static final int ERROR = 3;
+    private static final int ERROR_LIMIT = 4;
+    private static final int END = 5;
+    private static final int OPTIMIZATION = 6;
+
+    private static final String[] STATEMENTS = {"assignment", "if then", "while"};
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final Token.Lexeme[] LEXEMES = Token.Lexeme.values();
+    private static final Diagnostic.Code[] CODES = Diagnostic.Code.values();
+
+    /**
+     * Versión de la gramática: hash de los patrones y lexemas del analizador.
+     */
+    static final byte[] GRAMMAR_VERSION;
+
+    static {
+        MessageDigest digest = sha256();
+        StringBuilder grammar = new StringBuilder().append(ANALYZER_VERSION).append('\n');
+        for (Token.Type type : TYPES) {
+            grammar.append(type.name()).append(' ').append(type.pattern).append('\n');
+        }
+        for (Token.Lexeme lexeme : LEXEMES) {
+            grammar.append(lexeme.name()).append(' ').append(lexeme.lexeme).append('\n');
+        }
+        for (Diagnostic.Code code : CODES) {
+            grammar.append(code.name()).append('\n');
+        }
+        GRAMMAR_VERSION = digest.digest(grammar.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true); // Tamaño por archivo, del menos al más reciente
+    private long totalBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor de la clase AnalysisCache; crea el directorio si no existe, registra las entradas que ya tiene
+     * y borra los archivos temporales abandonados.
+     * @param directory Directorio de la caché
+     * @param maxBytes  Tamaño máximo de todas las entradas
+     */
+    public AnalysisCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        record Entry(String name, FileTime time, long size) {
+        }
+        List<Entry> found = new ArrayList<>();
+        long stale = System.currentTimeMillis() - STALE_MILLIS;
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) children::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    found.add(new Entry(name, Files.getLastModifiedTime(file), Files.size(file)));
+                } else if (name.endsWith(TEMPORARY)) {
+                    deleteIfStale(file, stale);
+                }
+            }
+        }
+        found.sort(Comparator.comparing(Entry::time));
+        for (Entry entry : found) {
+            entries.put(entry.name(), entry.size());
+            totalBytes += entry.size();
+        }
+        evict();
+    }
+
+    /**
+     * Calcula la llave de un análisis.
+     * @param input     Contenido del archivo
+     * @param maxErrors Máximo de errores que se reportan
+     * @param maxDepth  Máximo de bloques y paréntesis anidados
+     * @return Hash SHA-256 de 32 bytes
+     */
+    static byte[] key(String input, int maxErrors, int maxDepth) {
+        MessageDigest digest = sha256();
+        digest.update(GRAMMAR_VERSION);
+        digest.update(ByteBuffer.allocate(8).putInt(maxErrors).putInt(maxDepth).flip());
+        digest.update(input.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /**
+     * Reporta un análisis guardado: los tokens, el fin de los tokens, las sentencias válidas y los errores.
+     * Si la entrada no existe o está dañada no se reporta nada.
+     * @param key      Llave del análisis
+     * @param reporter Destino de los resultados
+     * @return El número de errores, o -1 si la entrada no está en la caché
+     */
+    public int replay(byte[] key, Reporter reporter) {
+        String name = fileName(key);
+        MappedByteBuffer buffer;
+        Path file = directory.resolve(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return miss(); // No existe o no se pudo leer
+        }
+        if (!isValid(buffer, key)) {
+            return miss();
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Solo afecta el orden de borrado
+        }
+        synchronized (this) {
+            hits++;
+            if (entries.get(name) == null) { // get también la marca como la más reciente
+                // La escribió otro proceso
+                entries.put(name, (long) buffer.capacity());
+                totalBytes += buffer.capacity();
+            }
+        }
+
+        buffer.position(HEADER);
+        int line = 0;
+        boolean tokensEnded = false;
+        while (true) {
+            int record = buffer.get();
+            if (record != TOKEN && !tokensEnded) {
+                reporter.endTokens();
+                tokensEnded = true;
+            }
+            switch (record) {
+                case TOKEN -> {
+                    Token token = new Token();
+                    token.setType(TYPES[buffer.get()]);
+                    int lexeme = buffer.get();
+                    token.setLexeme(lexeme == 0 ? null : LEXEMES[lexeme - 1]);
+                    line += (int) readVarint(buffer);
+                    token.setLineNumber(line);
+                    token.setColumn((int) readVarint(buffer));
+                    token.setValue(readString(buffer));
+                    reporter.token(token);
+                }
+                case STATEMENT -> reporter.statement(STATEMENTS[buffer.get()], (int) readVarint(buffer));
+                case ERROR -> {
+                    Diagnostic.Code code = CODES[buffer.get()];
+                    int errorLine = (int) readVarint(buffer);
+                    int column = (int) readVarint(buffer);
+                    int expectedKind = buffer.get();
+                    int expectedOrdinal = (int) readVarint(buffer);
+                    Enum<?> expected = switch (expectedKind) {
+                        case 1 -> LEXEMES[expectedOrdinal];
+                        case 2 -> TYPES[expectedOrdinal];
+                        default -> null;
+                    };
+                    int found = buffer.get();
+                    String foundText = buffer.get() == 0 ? null : readString(buffer);
+                    reporter.error(new Diagnostic(code, errorLine, column, expected, found == 0 ? null : TYPES[found - 1], foundText));
+                }
+                case ERROR_LIMIT -> reporter.errorLimit((int) readVarint(buffer));
+                case OPTIMIZATION -> reporter.optimization(readString(buffer));
+                default -> {
+                    return (int) readVarint(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea un reporter que pasa todo a {@code reporter} y además lo guarda; la entrada se escribe en la
+     * caché al reportar el fin del archivo. Se debe crear después de reportar el inicio del archivo.
+     * @param key      Llave del análisis
+     * @param reporter Destino de los resultados
+     * @return El reporter que guarda los resultados
+     */
+    public Reporter record(byte[] key, Reporter reporter) {
+        return new Recorder(key, reporter);
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    private synchronized int miss() {
+        misses++;
+        return -1;
+    }
+
+    /**
+     * Escribe una entrada: primero en un archivo temporal del mismo directorio y después lo renombra. Si no
+     * se puede escribir se avisa y la entrada simplemente no queda en la caché.
+     */
+    private void store(byte[] key, byte[] records) {
+        int length = records.length;
+        CRC32 crc = new CRC32();
+        crc.update(records, 0, length);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(FORMAT).put(key).putInt(length).putLong(crc.getValue()).flip();
+        String name = fileName(key);
+        Path target = directory.resolve(name);
+        try {
+            Path temporary = Files.createTempFile(directory, name, TEMPORARY);
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    ByteBuffer body = ByteBuffer.wrap(records, 0, length);
+                    while (header.hasRemaining() || body.hasRemaining()) {
+                        channel.write(new ByteBuffer[] {header, body});
+                    }
+                }
+                try {
+                    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot write cache entry " + target + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Long previous = entries.put(name, (long) HEADER + length);
+            totalBytes += HEADER + length - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    /**
+     * Borra las entradas usadas hace más tiempo hasta quedar dentro del tamaño máximo. Una entrada que no se
+     * puede borrar se deja de contar igual, para no intentarlo con cada entrada nueva.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            delete(directory.resolve(eldest.getKey()));
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Borra un archivo temporal modificado antes de {@code stale}; si otro proceso ya lo renombró no hace nada.
+     */
+    private static void deleteIfStale(Path file, long stale) {
+        try {
+            if (Files.getLastModifiedTime(file).toMillis() >= stale) return;
+        } catch (IOException e) {
+            return;
+        }
+        delete(file);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Cannot delete cache file " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isValid(ByteBuffer buffer, byte[] key) {
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(8 + i) != key[i]) return false;
+        }
+        int length = buffer.getInt(40);
+        if (length != buffer.capacity() - HEADER) return false;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER, length));
+        return crc.getValue() == buffer.getLong(44);
+    }
+
+    private static String fileName(byte[] key) {
+        return HexFormat.of().formatHex(key) + SUFFIX;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = (int) readVarint(buffer);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reporter que guarda los resultados en registros además de pasarlos al reporter original.
+     */
+    private final class Recorder implements Reporter {
+        private final byte[] key;
+        private final Reporter reporter;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final ReportBuffer out = new ReportBuffer(bytes, 8192);
+        private int line = 0;
+
+        Recorder(byte[] key, Reporter reporter) {
+            this.key = key;
+            this.reporter = reporter;
+        }
+
+        @Override
+        public void startFile(String fileName, String input) {
+            reporter.startFile(fileName, input);
+        }
+
+        @Override
+        public void token(Token token) {
+            out.put(TOKEN);
+            out.put(token.getType().ordinal());
+            out.put(token.getLexeme() == null ? 0 : token.getLexeme().ordinal() + 1);
+            out.putVarint(token.getLineNumber() - line);
+            out.putVarint(token.getColumn());
+            string(token.getValue());
+            line = token.getLineNumber();
+            reporter.token(token);
+        }
+
+        @Override
+        public void endTokens() {
+            reporter.endTokens();
+        }
+
+        @Override
+        public void statement(String description, int line) {
+            out.put(STATEMENT);
+            out.put(switch (description) {
+                case "assignment" -> 0;
+                case "if then" -> 1;
+                default -> 2;
+            });
+            out.putVarint(line);
+            reporter.statement(description, line);
+        }
+
+        @Override
+        public void optimization(String message) {
+            out.put(OPTIMIZATION);
+            string(message);
+            reporter.optimization(message);
+        }
+
+        @Override
+        public void error(Diagnostic error) {
+            out.put(ERROR);
+            out.put(error.getCode().ordinal());
+            out.putVarint(error.getLine());
+            out.putVarint(error.getColumn());
+            Enum<?> expected = error.getExpected();
+            out.put(expected instanceof Token.Lexeme ? 1 : expected instanceof Token.Type ? 2 : 0);
+            out.putVarint(expected == null ? 0 : expected.ordinal());
+            out.put(error.getFound() == null ? 0 : error.getFound().ordinal() + 1);
+            if (error.getFoundText() == null) {
+                out.put(0);
+            } else {
+                out.put(1);
+                string(error.getFoundText());
+            }
+            reporter.error(error);
+        }
+
+        @Override
+        public void errorLimit(int count) {
+            out.put(ERROR_LIMIT);
+            out.putVarint(count);
+            reporter.errorLimit(count);
+        }
+
+        @Override
+        public void endFile(String fileName, int errors) {
+            out.put(END);
+            out.putVarint(errors);
+            out.flush();
+            store(key, bytes.toByteArray());
+            reporter.endFile(fileName, errors);
+        }
+
+        @Override
+        public void flush() {
+            reporter.flush();
+        }
+
+        private void string(String text) {
+            out.putVarint(ReportBuffer.utf8Length(text));
+            out.put(text);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cliente del servidor de análisis ({@link AnalysisServer}): envía los archivos y copia la respuesta a la
+ * salida estándar y a la de errores. Sin archivos analiza los ejemplos, con la misma salida que
+ * {@link Main#runExamples(String)}. No usa el analizador, así que arranca en pocos milisegundos.
+ * <p>
+ * Opciones: {@code --socket RUTA} o {@code --port N} (dirección del servidor), {@code --timeout MS} (tiempo
+ * máximo de la solicitud), {@code --format F}, {@code --max-errors N}, {@code --max-depth N} y {@code --stop}
+ * (detiene el servidor). Termina con 0 si no hubo errores de sintaxis, 1 si los hubo y 2 si la solicitud
+ * no terminó (tiempo agotado, cancelada, rechazada o fallida).
+ */
+public class AnalysisClient {
+    static final String DEFAULT_SOCKET = Path.of(System.getProperty("java.io.tmpdir"), "analizador.sock").toString();
+
+    public static void main(String[] args) throws IOException {
+        String socket = DEFAULT_SOCKET;
+        int port = 0;
+        long timeout = 0;
+        String format = "TEXT";
+        int maxErrors = Integer.MAX_VALUE;
+        int maxDepth = Integer.MAX_VALUE;
+        boolean stop = false;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--socket" -> socket = args[++i];
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--timeout" -> timeout = Long.parseLong(args[++i]);
+                case "--format" -> format = args[++i].toUpperCase(Locale.ROOT);
+                case "--max-errors" -> maxErrors = Integer.parseInt(args[++i]);
+                case "--max-depth" -> maxDepth = Integer.parseInt(args[++i]);
+                case "--stop" -> stop = true;
+                default -> files.add(args[i]);
+            }
+        }
+        if (files.isEmpty()) {
+            files = List.of("input1.txt", "input2.txt", "input3.txt");
+        }
+
+        // Misma dirección que AnalysisServer.address, sin cargar el analizador
+        SocketAddress address = port > 0 ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : UnixDomainSocketAddress.of(socket);
+        try (SocketChannel channel = SocketChannel.open(port > 0 ? StandardProtocolFamily.INET : StandardProtocolFamily.UNIX)) {
+            try {
+                channel.connect(address);
+            } catch (IOException e) {
+                System.err.println("Cannot connect to analysis server at " + (port > 0 ? "port " + port : socket) + ": " + e.getMessage());
+                System.exit(2);
+            }
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            if (stop) {
+                out.writeByte(AnalysisServer.SHUTDOWN);
+                out.flush();
+                System.exit(receive(channel));
+            }
+            out.writeByte(AnalysisServer.ANALYZE);
+            out.writeUTF(Path.of("").toAbsolutePath().toString());
+            out.writeUTF(format);
+            out.writeInt(maxErrors);
+            out.writeInt(maxDepth);
+            out.writeLong(timeout);
+            out.writeInt(files.size());
+            for (String file : files) {
+                out.writeUTF(file);
+            }
+            out.flush();
+
+            // Al interrumpir el cliente (Ctrl-C) el servidor deja de analizar: cualquier byte cancela la solicitud
+            Thread cancel = new Thread(() -> {
+                try {
+                    channel.write(ByteBuffer.wrap(new byte[] {1}));
+                } catch (IOException e) {
+                    // La conexión ya se cerró
+                }
+            });
+            Runtime.getRuntime().addShutdownHook(cancel);
+            int status = receive(channel);
+            Runtime.getRuntime().removeShutdownHook(cancel);
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Copia la respuesta a la salida estándar y a la de errores.
+     * @return El código de salida del cliente.
+     */
+    private static int receive(SocketChannel channel) throws IOException {
+        DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.readInt()) != 0) {
+            OutputStream target = length > 0 ? System.out : System.err;
+            for (int remaining = Math.abs(length); remaining > 0; ) {
+                int n = in.read(buffer, 0, Math.min(remaining, buffer.length));
+                if (n < 0) throw new IOException("Connection closed by the server");
+                target.write(buffer, 0, n);
+                remaining -= n;
+            }
+        }
+        int status = in.readInt();
+        int errors = in.readInt();
+        System.out.flush();
+        System.err.flush();
+        return status != AnalysisServer.OK ? 2 : errors > 0 ? 1 : 0;
+    }
+}
@@ -0,0 +1,151 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de JDK Flight Recorder del análisis. Se graban al iniciar la JVM con
+ * {@code -XX:StartFlightRecording} (o con {@code jcmd PID JFR.start}) y se ven con JDK Mission Control
+ * o {@code jfr print --events analizador.*}. Cargar las clases de eventos inicia Flight Recorder (cientos de
+ * milisegundos), así que solo se usan si ya está iniciado; si no, el análisis no toca estas clases.
+ */
+final class AnalysisEvents {
+    private AnalysisEvents() {
+    }
+
+    /**
+     * Checa si Flight Recorder está iniciado (puede haber una grabación que incluya los eventos).
+     */
+    static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Eventos del análisis de un archivo; se crea al empezar el archivo.
+     */
+    static final class Recording {
+        private final File file = new File();
+        private final Lex lex = new Lex();
+        private final Parse parse = new Parse();
+        private final String fileName;
+
+        Recording(String fileName, boolean streaming) {
+            this.fileName = fileName;
+            file.streaming = streaming;
+            file.begin();
+            (streaming ? parse : lex).begin();
+        }
+
+        void lexed(long bytes, int tokens) {
+            lex.end();
+            if (lex.shouldCommit()) {
+                lex.file = fileName;
+                lex.bytes = bytes;
+                lex.tokens = tokens;
+                lex.commit();
+            }
+            parse.begin();
+        }
+
+        void cached(long bytes, int errors) {
+            file.cached = true;
+            finish(bytes, 0, errors);
+        }
+
+        void parsed(Parser parser, long bytes, int tokens, int errors) {
+            parse.end();
+            if (parse.shouldCommit()) {
+                parse.file = fileName;
+                parse.errors = errors;
+                parse.recoveries = parser.recoveries();
+                parse.skippedTokens = parser.skippedTokens();
+                parse.maxNesting = parser.maxNesting();
+                parse.commit();
+            }
+            finish(bytes, tokens, errors);
+        }
+
+        private void finish(long bytes, int tokens, int errors) {
+            file.end();
+            if (file.shouldCommit()) {
+                file.file = fileName;
+                file.bytes = bytes;
+                file.tokens = tokens;
+                file.errors = errors;
+                file.commit();
+            }
+        }
+    }
+
+    @Name("analizador.Lex")
+    @Label("Lexical Analysis")
+    @Description("Análisis léxico completo de un archivo")
+    @Category("Analizador")
+    @StackTrace(false)
+    static final class Lex extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Tokens")
+        int tokens;
+    }
+
+    @Name("analizador.Parse")
+    @Label("Syntax Analysis")
+    @Description("Análisis sintáctico de un archivo; en modo streaming incluye el análisis léxico")
+    @Category("Analizador")
+    @StackTrace(false)
+    static final class Parse extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Errors")
+        int errors;
+
+        @Label("Recoveries")
+        @Description("Veces que el parser se sincronizó después de un error")
+        int recoveries;
+
+        @Label("Skipped Tokens")
+        @Description("Tokens descartados al sincronizar")
+        int skippedTokens;
+
+        @Label("Max Nesting")
+        int maxNesting;
+    }
+
+    @Name("analizador.File")
+    @Label("File Analysis")
+    @Description("Análisis completo de un archivo, desde que se reporta la entrada hasta el último error")
+    @Category("Analizador")
+    @StackTrace(false)
+    static final class File extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Streaming")
+        boolean streaming;
+
+        @Label("Cached")
+        @Description("El resultado se tomó de la caché de análisis")
+        boolean cached;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Tokens")
+        int tokens;
+
+        @Label("Errors")
+        int errors;
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores acumulados de todos los análisis: archivos, bytes, tokens, errores, recuperaciones del parser,
+ * máximo anidamiento y nodos de expresión compartidos ({@link Ast}), con el tiempo de cada fase. Están
+ * desactivados hasta llamar a {@link #enable()}; mientras tanto cada archivo solo checa una referencia nula.
+ * Los hilos suman sus resultados al terminar cada archivo, no por token, así que activarlos tampoco afecta al
+ * lexer ni al parser.
+ * <p>
+ * La misma medición por archivo ({@link Probe}) genera los eventos de {@link AnalysisEvents}.
+ */
+final class AnalysisMetrics {
+    private static volatile AnalysisMetrics current = null;
+
+    private final long started = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder recoveries = new LongAdder();
+    private final LongAdder skippedTokens = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAccumulator maxNesting = new LongAccumulator(Math::max, 0);
+    private final LongAdder expressions = new LongAdder();
+    private final LongAdder sharedExpressions = new LongAdder();
+    private final LongAdder lexNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+
+    private AnalysisMetrics() {
+    }
+
+    /**
+     * Activa los contadores (si ya estaban activos se conservan).
+     * @return Los contadores activos.
+     */
+    static synchronized AnalysisMetrics enable() {
+        if (current == null) {
+            current = new AnalysisMetrics();
+        }
+        return current;
+    }
+
+    /**
+     * Desactiva los contadores.
+     */
+    static synchronized void disable() {
+        current = null;
+    }
+
+    /**
+     * Obtiene los contadores activos.
+     * @return Los contadores, o null si están desactivados.
+     */
+    static AnalysisMetrics current() {
+        return current;
+    }
+
+    /**
+     * Copia el valor actual de los contadores.
+     */
+    Snapshot snapshot() {
+        return new Snapshot(files.sum(), bytes.sum(), tokens.sum(), errors.sum(), recoveries.sum(), skippedTokens.sum(),
+                cached.sum(), (int) maxNesting.get(), expressions.sum(), sharedExpressions.sum(), lexNanos.sum(), parseNanos.sum(), System.nanoTime() - started);
+    }
+
+    /**
+     * Valores de los contadores en un momento dado. Los tiempos de fase son la suma de todos los hilos; las
+     * velocidades se calculan sobre el tiempo de análisis (léxico y sintáctico), no sobre el tiempo transcurrido.
+     * El lenguaje solo acepta ASCII, así que los bytes son los caracteres de la entrada.
+     */
+    record Snapshot(long files, long bytes, long tokens, long errors, long recoveries, long skippedTokens, long cachedFiles,
+                    int maxNesting, long expressions, long sharedExpressions, long lexNanos, long parseNanos, long elapsedNanos) {
+        double tokensPerSecond() {
+            return perSecond(tokens);
+        }
+
+        double bytesPerSecond() {
+            return perSecond(bytes);
+        }
+
+        private double perSecond(long count) {
+            long nanos = lexNanos + parseNanos;
+            return nanos == 0 ? 0 : count * 1e9 / nanos;
+        }
+
+        void print(PrintStream out) {
+            out.println("\n ------------------------------------------ Metrics --------------------------------------------\n");
+            out.println("Files: " + files + " (" + cachedFiles + " from cache)");
+            out.println("Bytes: " + bytes);
+            out.println("Tokens: " + tokens);
+            out.println("Errors: " + errors);
+            out.println("Recoveries: " + recoveries + " (" + skippedTokens + " tokens skipped)");
+            out.println("Max nesting: " + maxNesting);
+            out.println("Expression nodes: " + expressions + " (" + sharedExpressions + " shared)");
+            out.println("Lexing time: " + lexNanos / 1_000_000 + " ms");
+            out.println("Parsing time: " + parseNanos / 1_000_000 + " ms");
+            out.println("Tokens/s: " + Math.round(tokensPerSecond()));
+            out.println("Bytes/s: " + Math.round(bytesPerSecond()));
+        }
+    }
+
+    /**
+     * Medición del análisis de un archivo. Se crea al empezar y se le avisa al terminar cada fase; al final
+     * suma los resultados a los contadores activos y, si Flight Recorder está grabando, graba los eventos.
+     */
+    static final class Probe {
+        private final AnalysisMetrics metrics = current;
+        private final AnalysisEvents.Recording events;
+        private long phaseStart;
+        private long lexNanos = 0;
+
+        /**
+         * Empieza a medir un archivo y su análisis léxico (en modo streaming, el análisis sintáctico).
+         */
+        Probe(String fileName, boolean streaming) {
+            events = AnalysisEvents.isRecording() ? new AnalysisEvents.Recording(fileName, streaming) : null;
+            phaseStart = metrics == null ? 0 : System.nanoTime();
+        }
+
+        /**
+         * Termina el análisis léxico y empieza el sintáctico.
+         */
+        void lexed(long bytes, int tokens) {
+            if (events != null) {
+                events.lexed(bytes, tokens);
+            }
+            if (metrics != null) {
+                long now = System.nanoTime();
+                lexNanos = now - phaseStart;
+                phaseStart = now;
+            }
+        }
+
+        /**
+         * Termina el archivo con un resultado de la caché.
+         */
+        void cached(long bytes, int errors) {
+            if (events != null) {
+                events.cached(bytes, errors);
+            }
+            if (metrics != null) {
+                metrics.files.increment();
+                metrics.cached.increment();
+                metrics.bytes.add(bytes);
+                metrics.errors.add(errors);
+            }
+        }
+
+        /**
+         * Termina el análisis sintáctico (y en modo streaming, el léxico).
+         * @param bytes  Bytes de la entrada; en modo streaming, los que leyó el lexer
+         * @param tokens Tokens de la entrada; en modo streaming, los que encontró el lexer
+         */
+        void parsed(Parser parser, long bytes, int tokens, int errors) {
+            if (events != null) {
+                events.parsed(parser, bytes, tokens, errors);
+            }
+            if (metrics != null) {
+                metrics.files.increment();
+                metrics.lexNanos.add(lexNanos);
+                metrics.parseNanos.add(System.nanoTime() - phaseStart);
+                metrics.bytes.add(bytes);
+                metrics.tokens.add(tokens);
+                metrics.errors.add(errors);
+                metrics.recoveries.add(parser.recoveries());
+                metrics.skippedTokens.add(parser.skippedTokens());
+                metrics.maxNesting.accumulate(parser.maxNesting());
+                metrics.expressions.add(parser.ast().expressionCount());
+                metrics.sharedExpressions.add(parser.ast().sharedCount());
+            }
+        }
+    }
+}
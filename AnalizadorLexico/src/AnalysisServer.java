@@ -0,0 +1,455 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor que mantiene el analizador cargado y optimizado por el JIT y atiende solicitudes de análisis
+ * por un socket local (Unix o TCP en la interfaz de loopback), para no pagar el arranque de la JVM en cada
+ * análisis. El cliente es {@link AnalysisClient}.
+ * <p>
+ * Cada conexión se atiende en un hilo virtual. Se admiten como máximo {@code workers + queue} solicitudes
+ * a la vez: {@code workers} se analizan y el resto esperan turno; las que llegan cuando ya no hay lugar se
+ * rechazan de inmediato, así que una ráfaga no puede llenar la memoria. Cada solicitud trae un tiempo máximo
+ * (que incluye la espera) y el cliente la puede cancelar enviando un byte o cerrando la conexión.
+ * <p>
+ * Protocolo. Solicitud: un byte con la operación ({@link #ANALYZE} o {@link #SHUTDOWN}); para analizar
+ * siguen el directorio de trabajo del cliente, el formato ({@link Reporter.Format}), el máximo de errores,
+ * el máximo de anidamiento, el tiempo máximo en milisegundos (0 sin límite), el número de archivos y sus
+ * nombres (textos con {@link java.io.DataOutput#writeUTF(String)}). Respuesta: bloques con su longitud
+ * ({@code int}) y sus bytes; una longitud positiva es salida estándar y una negativa, salida de errores.
+ * Termina con una longitud 0, el estado ({@link #OK}, {@link #DEADLINE}, ...) y el total de errores.
+ * <p>
+ * Los archivos se leen con los permisos del usuario del servidor y su contenido se regresa al cliente. El
+ * socket Unix solo lo puede abrir el mismo usuario; a un puerto TCP se puede conectar cualquier usuario de
+ * la máquina, así que en ese caso solo se leen archivos dentro de un directorio raíz.
+ */
+class AnalysisServer {
+    // Operaciones
+    static final int ANALYZE = 1;
+    static final int SHUTDOWN = 2;
+
+    // Estado de una respuesta
+    static final int OK = 0;
+    static final int DEADLINE = 1;   // Se acabó el tiempo máximo
+    static final int CANCELLED = 2;  // El cliente la canceló
+    static final int REJECTED = 3;   // No había lugar en la cola
+    static final int FAILED = 4;     // Error inesperado
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final int capacity;       // Máximo de solicitudes admitidas a la vez
+    private final Semaphore admitted; // Solicitudes en proceso o esperando
+    private final Semaphore running;  // Solicitudes en proceso
+    private final AnalysisCache cache;
+    private final Path root;          // Directorio fuera del cual no se leen archivos (null sin restricción)
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor de la clase AnalysisServer; abre el socket.
+     * @param address Dirección local ({@link UnixDomainSocketAddress} o de loopback)
+     * @param workers Máximo de solicitudes que se analizan a la vez
+     * @param queue   Máximo de solicitudes esperando turno
+     * @param cache   Caché de resultados (null para no usarla)
+     * @param root    Directorio del que se pueden leer archivos (null sin restricción); es obligatorio con TCP
+     */
+    public AnalysisServer(SocketAddress address, int workers, int queue, AnalysisCache cache, Path root) throws IOException {
+        if (root == null && !(address instanceof UnixDomainSocketAddress)) {
+            throw new IllegalArgumentException("A TCP server needs a root directory");
+        }
+        this.address = address;
+        this.capacity = workers + queue;
+        this.admitted = new Semaphore(capacity);
+        this.running = new Semaphore(workers);
+        this.cache = cache;
+        this.root = root == null ? null : root.toRealPath();
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath()); // Socket de una ejecución anterior
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(address);
+            try {
+                Files.setPosixFilePermissions(unix.getPath(), PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Sistema de archivos sin permisos POSIX
+            }
+        } else {
+            server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+            server.bind(address);
+        }
+    }
+
+    /**
+     * Obtiene la dirección del socket.
+     * @param socket Ruta del socket Unix
+     * @param port   Puerto TCP en loopback; si es mayor que 0 se usa en lugar del socket Unix
+     * @return La dirección
+     */
+    static SocketAddress address(String socket, int port) {
+        return port > 0 ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : UnixDomainSocketAddress.of(socket);
+    }
+
+    /**
+     * Analiza varias veces un programa generado para que el JIT compile el lexer, el parser y los reporters
+     * antes de la primera solicitud.
+     * @param rounds Número de análisis
+     */
+    public void warmUp(int rounds) {
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            program.append("a").append(i).append(" = ( b + ").append(i).append(" ) * c - d / 2 ;\n");
+            program.append("if ( a").append(i).append(" >= 10 ) then\nwhile ( x < y ) do\nx = x + 1 ;\nendwhile\nelse\nb = 3 ;\nendif\n");
+            if (i % 50 == 0) {
+                program.append("if a = 1 then # ;\n"); // Algunos errores para la recuperación
+            }
+        }
+        String input = program.toString();
+        for (int round = 0; round < rounds; round++) {
+            for (Reporter.Format format : Reporter.Format.values()) {
+                Reporter reporter = format.open(OutputStream.nullOutputStream(), 8192);
+                Main.analyze("warm-up", input, reporter, Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+                reporter.flush();
+            }
+        }
+    }
+
+    /**
+     * Atiende solicitudes hasta recibir {@link #SHUTDOWN}; las que están en proceso o esperando terminan
+     * antes de regresar.
+     */
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (ClosedChannelException e) {
+                    break; // Se cerró con SHUTDOWN
+                }
+                Thread.ofVirtual().name("analysis-request").start(() -> handle(channel));
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void close() throws IOException {
+        server.close();
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            FrameChannel out = new FrameChannel(channel);
+            try {
+                handle(channel, out);
+            } finally {
+                out.abort(); // Con un Error (por ejemplo, sin memoria) el cliente recibe FAILED en lugar de esperar
+            }
+        } catch (IOException | RuntimeException e) {
+            // El cliente se desconectó o envió una solicitud inválida; no hay a quién responder
+        }
+    }
+
+    private void handle(SocketChannel channel, FrameChannel out) throws IOException {
+        DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+        if (in.readByte() == SHUTDOWN) {
+            // Ya no se admiten solicitudes; se espera a que terminen las admitidas antes de cerrar
+            stopped = true;
+            admitted.acquireUninterruptibly(capacity);
+            try {
+                out.finish(OK, 0);
+            } finally {
+                close();
+                admitted.release(capacity);
+            }
+            return;
+        }
+        String directory = in.readUTF();
+        String formatName = in.readUTF();
+        int maxErrors = in.readInt();
+        int maxDepth = in.readInt();
+        long timeout = in.readLong();
+        String[] files = new String[in.readInt()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = in.readUTF();
+        }
+        if (stopped || !admitted.tryAcquire()) {
+            out.error(stopped ? "Server shutting down, request rejected" : "Server busy, request rejected");
+            out.finish(REJECTED, 0);
+            return;
+        }
+        try {
+            Request request = new Request(timeout);
+            Thread.ofVirtual().name("analysis-cancel").start(() -> request.watch(in));
+            Reporter.Format format = Reporter.Format.valueOf(formatName);
+            analyze(request, Path.of(directory), files, format, maxErrors, maxDepth, out);
+        } finally {
+            admitted.release();
+        }
+    }
+
+    private void analyze(Request request, Path directory, String[] files, Reporter.Format format, int maxErrors, int maxDepth,
+                         FrameChannel out) throws IOException {
+        try {
+            if (!request.awaitTurn(running)) {
+                out.error(request.cancelled ? "Request cancelled" : "Deadline exceeded while waiting in queue");
+                out.finish(request.cancelled ? CANCELLED : DEADLINE, 0);
+                return;
+            }
+        } catch (InterruptedException e) {
+            out.finish(CANCELLED, 0);
+            return;
+        }
+        int errors = 0;
+        int status = OK;
+        Reporter reporter = format.open(Channels.newOutputStream(out), ReportBuffer.DEFAULT_CAPACITY);
+        try {
+            Reporter guarded = request.guard(reporter);
+            for (String file : files) {
+                request.check();
+                String input;
+                try {
+                    input = Main.readInput(resolve(directory, file).toString());
+                } catch (IOException e) {
+                    reporter.flush();
+                    out.error("Error reading file: " + e.getMessage());
+                    continue;
+                }
+                request.check(); // La lectura pudo tardar más que el tiempo máximo
+                errors += Main.analyze(file, input, guarded, maxErrors, maxDepth, cache);
+            }
+        } catch (CancellationException e) {
+            status = request.cancelled ? CANCELLED : DEADLINE;
+        } catch (RuntimeException e) {
+            status = FAILED;
+            reporter.flush();
+            out.error("Analysis failed: " + e);
+        } finally {
+            running.release();
+        }
+        reporter.flush();
+        if (status == DEADLINE) out.error("Deadline exceeded");
+        if (status == CANCELLED) out.error("Request cancelled");
+        out.finish(status, errors);
+    }
+
+    /**
+     * Obtiene la ruta de un archivo de la solicitud, siguiendo los enlaces simbólicos.
+     * @throws IOException Si no existe o está fuera del directorio raíz
+     */
+    private Path resolve(Path directory, String file) throws IOException {
+        Path path = directory.resolve(file).toRealPath();
+        if (root != null && !path.startsWith(root)) {
+            throw new IOException(file + " (outside the server root directory)");
+        }
+        return path;
+    }
+
+    /**
+     * Estado de una solicitud: su tiempo máximo y si el cliente la canceló.
+     */
+    private static final class Request {
+        private final long deadline;
+        private final Thread worker = Thread.currentThread();
+        private volatile boolean cancelled = false;
+        private boolean waiting = false;  // El hilo está esperando turno (solo entonces se interrumpe)
+
+        Request(long timeoutMillis) {
+            this.deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+        }
+
+        /**
+         * Espera a que el cliente envíe un byte o cierre la conexión; en ambos casos se cancela la solicitud.
+         */
+        void watch(DataInputStream in) {
+            try {
+                in.read();
+            } catch (IOException e) {
+                // Se cerró la conexión
+            }
+            cancel();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (waiting) {
+                worker.interrupt();
+            }
+        }
+
+        /**
+         * Espera un lugar para analizar, como máximo hasta el tiempo límite.
+         * @return false si se acabó el tiempo o se canceló la solicitud
+         */
+        boolean awaitTurn(Semaphore running) throws InterruptedException {
+            synchronized (this) {
+                if (cancelled) return false;
+                waiting = true;
+            }
+            try {
+                long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+                return running.tryAcquire(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            } finally {
+                synchronized (this) {
+                    waiting = false;
+                    Thread.interrupted(); // Una interrupción tardía no debe cerrar el canal al escribir
+                }
+            }
+        }
+
+        void check() {
+            if (cancelled || System.nanoTime() - deadline > 0) {
+                throw new CancellationException();
+            }
+        }
+
+        /**
+         * Reporter que revisa el tiempo límite y la cancelación en cada evento antes de pasarlo. Los eventos
+         * que separan las fases de {@link Main#analyze} (inicio del archivo, fin de los tokens, errores y fin
+         * del archivo) también se revisan, así que una fase que no reporta nada (una respuesta de la caché
+         * vacía o un análisis sin sentencias válidas) se interrumpe al terminar.
+         */
+        Reporter guard(Reporter reporter) {
+            return new Reporter() {
+                @Override
+                public void startFile(String fileName, String input) {
+                    check();
+                    reporter.startFile(fileName, input);
+                }
+
+                @Override
+                public void token(Token token) {
+                    check();
+                    reporter.token(token);
+                }
+
+                @Override
+                public void endTokens() {
+                    check();
+                    reporter.endTokens();
+                }
+
+                @Override
+                public void statement(String description, int line) {
+                    check();
+                    reporter.statement(description, line);
+                }
+
+                @Override
+                public void optimization(String message) {
+                    check();
+                    reporter.optimization(message);
+                }
+
+                @Override
+                public void error(Diagnostic error) {
+                    check();
+                    reporter.error(error);
+                }
+
+                @Override
+                public void errorLimit(int count) {
+                    check();
+                    reporter.errorLimit(count);
+                }
+
+                @Override
+                public void endFile(String fileName, int errors) {
+                    check();
+                    reporter.endFile(fileName, errors);
+                }
+
+                @Override
+                public void flush() {
+                    reporter.flush();
+                }
+            };
+        }
+    }
+
+    /**
+     * Canal que escribe cada bloque de bytes precedido de su longitud.
+     */
+    private static final class FrameChannel implements WritableByteChannel {
+        private final SocketChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(12);
+        private boolean finished = false;
+
+        FrameChannel(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (length > 0) {
+                header.clear().putInt(length).flip();
+                writeFully(source);
+            }
+            return length;
+        }
+
+        /**
+         * Envía un mensaje para la salida de errores del cliente.
+         */
+        void error(String message) throws IOException {
+            byte[] bytes = (message + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+            header.clear().putInt(-bytes.length).flip();
+            writeFully(ByteBuffer.wrap(bytes));
+        }
+
+        void finish(int status, int errors) throws IOException {
+            finished = true;
+            header.clear().putInt(0).putInt(status).putInt(errors).flip();
+            writeFully(ByteBuffer.allocate(0));
+        }
+
+        /**
+         * Termina la respuesta con {@link #FAILED} si todavía no se terminó.
+         */
+        void abort() {
+            if (finished || !channel.isOpen()) return;
+            try {
+                finish(FAILED, 0);
+            } catch (IOException e) {
+                // El cliente ya se desconectó
+            }
+        }
+
+        private void writeFully(ByteBuffer body) throws IOException {
+            ByteBuffer[] buffers = {header, body};
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // El canal lo cierra quien atiende la conexión
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Analizador que se puede usar desde muchos hilos a la vez (por ejemplo, desde un servicio que atiende
+ * solicitudes). Cada análisis usa su propio estado de trabajo: la lista de errores, el lexer, el
+ * {@link TokenBuffer} y el parser con sus pilas y su árbol. Ese estado no se descarta al terminar, sino que
+ * se reutiliza en el siguiente análisis del mismo hilo, así que analizar entradas pequeñas no crea casi
+ * ningún objeto (solo el resultado y los nombres de variables y números).
+ * <p>
+ * Los hilos de plataforma guardan su estado en un {@link ThreadLocal}. Los hilos virtuales se crean uno por
+ * tarea, así que ahí el estado se toma de una reserva compartida y se regresa al terminar. El estado que
+ * creció por una entrada muy grande no se conserva, para no retener esa memoria.
+ * <p>
+ * El resultado ({@link Result}) es inmutable y no comparte nada con el estado de trabajo.
+ */
+public final class Analyzer {
+    private static final int MAX_RETAINED_CHARS = 1 << 18; // Entradas más grandes no dejan su estado para reutilizarlo
+    private static final int SHARED_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final int maxErrors;
+    private final int maxDepth;
+    private final boolean warnings;
+    private final ThreadLocal<Scratch> local = new ThreadLocal<>();
+    private final ArrayBlockingQueue<Scratch> shared = new ArrayBlockingQueue<>(SHARED_POOL_SIZE); // Para hilos virtuales
+
+    /**
+     * Resultado de un análisis.
+     * @param tokens             Número de tokens de la entrada
+     * @param diagnostics        Errores y advertencias en orden de línea
+     * @param droppedDiagnostics Errores que no se guardaron por pasar del máximo
+     * @param recoveries         Veces que el parser se sincronizó después de un error
+     * @param maxNesting         Máximo de bloques y paréntesis anidados que se encontró
+     */
+    public record Result(int tokens, List<Diagnostic> diagnostics, int droppedDiagnostics, int recoveries, int maxNesting) {
+        public Result {
+            diagnostics = List.copyOf(diagnostics);
+        }
+
+        /**
+         * Checa si la entrada tiene errores léxicos o de sintaxis (las advertencias no cuentan).
+         */
+        public boolean hasErrors() {
+            if (droppedDiagnostics > 0) return true;
+            for (Diagnostic diagnostic : diagnostics) {
+                if (!diagnostic.isWarning()) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Constructor sin máximo de errores ni de anidamiento y sin advertencias.
+     */
+    public Analyzer() {
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Constructor de la clase Analyzer
+     * @param maxErrors Máximo de errores que se reportan por entrada
+     * @param maxDepth  Máximo de bloques y paréntesis anidados
+     * @param warnings  Si en las entradas sin errores se buscan variables sin asignar y asignaciones que
+     *                  nunca se leen ({@link Dataflow})
+     */
+    public Analyzer(int maxErrors, int maxDepth, boolean warnings) {
+        this.maxErrors = maxErrors;
+        this.maxDepth = maxDepth;
+        this.warnings = warnings;
+    }
+
+    /**
+     * Analiza una entrada.
+     * @param input Contenido a analizar
+     * @return El resultado del análisis
+     */
+    public Result analyze(String input) {
+        boolean virtual = Thread.currentThread().isVirtual();
+        Scratch scratch = virtual ? shared.poll() : local.get();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        if (!virtual) {
+            local.remove(); // Si el análisis falla, el siguiente empieza con un estado nuevo
+        }
+        Result result = scratch.analyze(input);
+        if (input.length() <= MAX_RETAINED_CHARS) {
+            if (virtual) {
+                shared.offer(scratch); // Si la reserva está llena se descarta
+            } else {
+                local.set(scratch);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estado de trabajo de un análisis; lo usa un solo hilo a la vez.
+     */
+    private final class Scratch {
+        private final Diagnostics errors = new Diagnostics(maxErrors);
+        private final Lexer lexer = new Lexer("", errors);
+        private final TokenBuffer tokens = new TokenBuffer("", 256);
+        private final TokenBuffer.Cursor cursor = tokens.cursor();
+        private final IterativeParser parser = new IterativeParser(cursor, errors, Reporter.NONE, maxDepth);
+
+        Result analyze(String input) {
+            errors.clear();
+            lexer.reset(input);
+            tokens.reset(input);
+            tokens.addAll(lexer);
+            cursor.rewind();
+            parser.reset();
+            if (warnings) {
+                Ast ast = parser.parseTree();
+                if (errors.isEmpty()) {
+                    Dataflow.analyze(ast, errors);
+                }
+            } else {
+                parser.parse(); // Sin advertencias no hace falta conservar el árbol
+            }
+            return new Result(tokens.size(), diagnostics(), errors.dropped(), parser.recoveries(), parser.maxNesting());
+        }
+
+        private List<Diagnostic> diagnostics() {
+            if (errors.isEmpty()) return List.of();
+            Diagnostic[] copy = new Diagnostic[errors.size()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = errors.get(i);
+            }
+            return List.of(copy);
+        }
+    }
+}
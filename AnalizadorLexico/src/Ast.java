@@ -0,0 +1,529 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Árbol sintáctico guardado en arreglos primitivos (arena): cada nodo es un índice entero y sus
+ * hijos y tokens se guardan como índices en los arreglos, así que un programa grande no crea un
+ * objeto por nodo y todo el árbol se descarta junto. Los nombres de variables y los números se
+ * registran una sola vez en tablas de símbolos.
+ * <p>
+ * Para recorrer el árbol se puede usar {@link #kind(int)} y los accesos por índice, o {@link #node(int)},
+ * que devuelve una vista tipada ({@link Assignment}, {@link If}, {@link While}, ...) sobre el mismo índice.
+ * <p>
+ * Los nodos de expresión (BINARY, LITERAL y GROUPING) se comparten en todo el árbol (hash-consing): si ya
+ * existe un nodo con el mismo tipo, operador o literal, hijos y línea, los builders devuelven ese nodo en lugar
+ * de crear otro, así que {@code a = (x + 1) * (x + 1);} y cualquier otra sentencia con {@code x + 1} usan un
+ * solo nodo y el árbol es un grafo sin ciclos. Para que un mismo nodo sirva en sentencias de distintas líneas,
+ * estos nodos guardan su línea relativa a la de la sentencia que los contiene (la que se fijó con
+ * {@link #setStatementLine(int)}); la línea de un uso se obtiene con {@link #line(int, int)}.
+ * {@link #token(int)} de un nodo compartido es el de su primera aparición. Quien recorra el árbol con un
+ * arreglo por nodo puede guardar el resultado de cada subexpresión y no calcularlo otra vez (ver {@link Optimizer}).
+ */
+class Ast {
+    /**
+     * Tipos de nodo. Uso de los campos de cada nodo:
+     * <ul>
+     *     <li>ASSIGNMENT: first = variable, second = expresión</li>
+     *     <li>IF: first = condición, second = bloque then, third = bloque else (o NONE)</li>
+     *     <li>WHILE: first = condición, second = bloque</li>
+     *     <li>BLOCK: first = primera sentencia, second = última sentencia, third = número de sentencias</li>
+     *     <li>CONDITION y BINARY: first = operando izquierdo, second = operando derecho, third = lexema del operador</li>
+     *     <li>LITERAL: first = variable o número, third = tipo del token</li>
+     *     <li>GROUPING: first = expresión</li>
+     * </ul>
+     * Las sentencias de un bloque se encadenan con {@link #next(int)}.
+     */
+    enum Kind {
+        ASSIGNMENT, IF, WHILE, BLOCK, CONDITION, BINARY, LITERAL, GROUPING
+    }
+
+    public static final int NONE = -1; // Nodo vacío (por ejemplo, una expresión sin operandos)
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final Token.Lexeme[] LEXEMES = Token.Lexeme.values();
+    private static final int MAX_UNUSED_SYMBOLS = 1 << 14; // Símbolos que se conservan con el árbol vacío
+
+    private SymbolTable variables = new SymbolTable();
+    private SymbolTable numbers = new SymbolTable();
+    private byte[] kinds = new byte[64];
+    private int[] lines = new int[64];   // Línea del token principal (relativa a la sentencia en las expresiones)
+    private int[] tokens = new int[64];  // Posición del token principal en la fuente de tokens
+    private int[] first = new int[64];
+    private int[] second = new int[64];
+    private int[] third = new int[64];
+    private int[] next = new int[64];    // Siguiente sentencia del mismo bloque
+    private int size = 0;
+    private int[] interned = emptyTable(64); // Tabla de hash-consing con los nodos de expresión
+    private int internedCount = 0;      // Casillas ocupadas de la tabla (incluye nodos ya descartados)
+    private int statementLine = 0;      // Línea de la sentencia cuyas expresiones se están construyendo
+    private int expressionCount = 0;    // Nodos de expresión pedidos a los builders
+    private int sharedCount = 0;        // De esos, los que se resolvieron con un nodo existente
+    private int firstStatement = NONE;   // Sentencias de nivel superior
+    private int lastStatement = NONE;
+    private int statementCount = 0;
+
+    // Construcción (la usa el parser)
+
+    int assignment(int token, int line, int variable, int expression) {
+        return add(Kind.ASSIGNMENT, token, line, variable, expression, NONE);
+    }
+
+    int ifStatement(int token, int line, int condition, int thenBlock, int elseBlock) {
+        return add(Kind.IF, token, line, condition, thenBlock, elseBlock);
+    }
+
+    int whileStatement(int token, int line, int condition, int body) {
+        return add(Kind.WHILE, token, line, condition, body, NONE);
+    }
+
+    int block(int token, int line) {
+        return add(Kind.BLOCK, token, line, NONE, NONE, 0);
+    }
+
+    /**
+     * Agrega una sentencia al final de un bloque.
+     */
+    void append(int block, int statement) {
+        if (first[block] == NONE) {
+            first[block] = statement;
+        } else {
+            next[second[block]] = statement;
+        }
+        second[block] = statement;
+        third[block]++;
+    }
+
+    /**
+     * Fija la línea de la sentencia (ASSIGNMENT, IF o WHILE) cuyas expresiones se van a construir; los
+     * nodos de expresión guardan su línea relativa a esta.
+     */
+    void setStatementLine(int line) {
+        statementLine = line;
+    }
+
+    int condition(int token, int line, int left, Token.Lexeme operator, int right) {
+        return add(Kind.CONDITION, token, line, left, right, operator.ordinal());
+    }
+
+    int binary(int token, int line, int left, Token.Lexeme operator, int right) {
+        return intern(Kind.BINARY, token, line, left, right, operator.ordinal());
+    }
+
+    /**
+     * Crea un literal; {@code symbol} es el identificador del texto en {@link #variables()} o en {@link #numbers()}.
+     */
+    int literal(int token, int line, Token.Type type, int symbol) {
+        return intern(Kind.LITERAL, token, line, symbol, NONE, type.ordinal());
+    }
+
+    int grouping(int token, int line, int expression) {
+        return intern(Kind.GROUPING, token, line, expression, NONE, NONE);
+    }
+
+    // Para completar un nodo creado antes que sus hijos
+    void setFirst(int node, int value) {
+        first[node] = value;
+    }
+
+    void setSecond(int node, int value) {
+        second[node] = value;
+    }
+
+    void setThird(int node, int value) {
+        third[node] = value;
+    }
+
+    /**
+     * Agrega una sentencia de nivel superior.
+     */
+    void addStatement(int statement) {
+        if (firstStatement == NONE) {
+            firstStatement = statement;
+        } else {
+            next[lastStatement] = statement;
+        }
+        lastStatement = statement;
+        statementCount++;
+    }
+
+    // Reescritura (la usa Optimizer)
+
+    /**
+     * Convierte un nodo de expresión en un literal (por ejemplo, una operación entre constantes en su resultado).
+     */
+    void setLiteral(int node, Token.Type type, int symbol) {
+        kinds[node] = (byte) Kind.LITERAL.ordinal();
+        first[node] = symbol;
+        second[node] = NONE;
+        third[node] = type.ordinal();
+    }
+
+    void setNext(int node, int value) {
+        next[node] = value;
+    }
+
+    /**
+     * Reemplaza la lista de sentencias de nivel superior (ya encadenadas con {@link #next(int)}).
+     */
+    void setStatements(int first, int last, int count) {
+        firstStatement = first;
+        lastStatement = last;
+        statementCount = count;
+    }
+
+    /**
+     * Descarta los nodos creados desde {@code size} (por ejemplo, los de una sentencia con errores).
+     */
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Descarta las tablas de símbolos si el árbol está vacío y ya pasaron de {@link #MAX_UNUSED_SYMBOLS}
+     * nombres y números, para que el análisis que descarta cada sentencia (modo streaming) no las haga crecer
+     * con toda la entrada. Se crean tablas nuevas en lugar de vaciarlas porque las fuentes de tokens guardan
+     * la traducción de sus identificadores por tabla ({@link TokenBuffer.Cursor#intern(SymbolTable)}).
+     */
+    void trimSymbols() {
+        if (size == 0 && variables.size() + numbers.size() > MAX_UNUSED_SYMBOLS) {
+            variables = new SymbolTable();
+            numbers = new SymbolTable();
+        }
+    }
+
+    /**
+     * Descarta todo el árbol y sus símbolos conservando la capacidad de los arreglos, para construir otro.
+     */
+    void clear() {
+        size = 0;
+        Arrays.fill(interned, NONE);
+        internedCount = 0;
+        statementLine = 0;
+        expressionCount = 0;
+        sharedCount = 0;
+        firstStatement = NONE;
+        lastStatement = NONE;
+        statementCount = 0;
+        variables.clear();
+        numbers.clear();
+    }
+
+    private int add(Kind kind, int token, int line, int a, int b, int c) {
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = (byte) kind.ordinal();
+        tokens[size] = token;
+        lines[size] = line;
+        first[size] = a;
+        second[size] = b;
+        third[size] = c;
+        next[size] = NONE;
+        return size++;
+    }
+
+    /**
+     * Busca un nodo de expresión igual en el árbol y, si no hay, lo crea. Las entradas de la tabla no se
+     * borran: una entrada de un nodo descartado con {@link #truncate(int)} se trata como libre, y una de un
+     * nodo que {@link #setLiteral} cambió (o cuyo índice ya ocupa otro nodo) no coincide con su contenido,
+     * así que la tabla nunca devuelve un nodo diferente al que se pide.
+     */
+    private int intern(Kind kind, int token, int line, int a, int b, int c) {
+        expressionCount++;
+        int offset = line - statementLine;
+        int mask = interned.length - 1;
+        int slot = hash(kind.ordinal(), a, b, c, offset) & mask;
+        for (int probes = 0; probes <= mask; probes++, slot = (slot + 1) & mask) {
+            int node = interned[slot];
+            if (node == NONE || node >= size) {
+                int created = add(kind, token, offset, a, b, c);
+                if (node == NONE) {
+                    internedCount++;
+                }
+                interned[slot] = created;
+                if (internedCount * 2 > interned.length) {
+                    rehash();
+                }
+                return created;
+            }
+            if (kinds[node] == kind.ordinal() && first[node] == a && second[node] == b && third[node] == c
+                    && lines[node] == offset) {
+                sharedCount++;
+                return node;
+            }
+        }
+        return add(kind, token, offset, a, b, c);
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, NONE);
+        return table;
+    }
+
+    private static int hash(int kind, int a, int b, int c, int line) {
+        int h = kind;
+        h = h * 31 + a;
+        h = h * 31 + b;
+        h = h * 31 + c;
+        h = h * 31 + line;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Reconstruye la tabla de hash-consing sin las entradas de nodos descartados; solo crece si los nodos que
+     * quedan siguen ocupando más de la cuarta parte, así que no crece con las sentencias que se descartan.
+     */
+    private void rehash() {
+        int[] old = interned;
+        int live = 0;
+        for (int node : old) {
+            if (isInterned(node)) live++;
+        }
+        interned = emptyTable(live * 4 > old.length ? old.length * 2 : old.length);
+        int mask = interned.length - 1;
+        for (int node : old) {
+            if (!isInterned(node)) continue;
+            int slot = hash(kinds[node], first[node], second[node], third[node], lines[node]) & mask;
+            while (interned[slot] != NONE) {
+                slot = (slot + 1) & mask;
+            }
+            interned[slot] = node;
+        }
+        internedCount = live;
+    }
+
+    /**
+     * Checa si una entrada de la tabla de hash-consing es un nodo de expresión del árbol actual (su índice
+     * pudo quedar libre con {@link #truncate(int)} o ser de otro nodo después).
+     */
+    private boolean isInterned(int node) {
+        return node != NONE && node < size && kinds[node] >= Kind.BINARY.ordinal();
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        tokens = Arrays.copyOf(tokens, capacity);
+        first = Arrays.copyOf(first, capacity);
+        second = Arrays.copyOf(second, capacity);
+        third = Arrays.copyOf(third, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    // Acceso por índice
+
+    public int size() {
+        return size;
+    }
+
+    public int firstStatement() {
+        return firstStatement;
+    }
+
+    public int statementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Obtiene el número de nodos de expresión que pidió el parser, contando los que se compartieron y los
+     * de sentencias descartadas.
+     */
+    public int expressionCount() {
+        return expressionCount;
+    }
+
+    /**
+     * Obtiene cuántos de los nodos de expresión pedidos se resolvieron con un nodo que ya existía.
+     */
+    public int sharedCount() {
+        return sharedCount;
+    }
+
+    public SymbolTable variables() {
+        return variables;
+    }
+
+    public SymbolTable numbers() {
+        return numbers;
+    }
+
+    /**
+     * Obtiene la tabla donde se registra el texto de un literal de cierto tipo.
+     */
+    public SymbolTable symbols(Token.Type type) {
+        return type == Token.Type.VARIABLE ? variables : numbers;
+    }
+
+    public Kind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    /**
+     * Obtiene la línea de un nodo; en los nodos de expresión (BINARY, LITERAL y GROUPING) es la distancia a
+     * la línea de la sentencia que los contiene (ver {@link #line(int, int)}).
+     */
+    public int line(int node) {
+        return lines[node];
+    }
+
+    /**
+     * Obtiene la línea de un uso de un nodo de expresión.
+     * @param node          Nodo de expresión
+     * @param statementLine Línea de la sentencia (ASSIGNMENT, IF o WHILE) donde se usa
+     * @return La línea del token principal del nodo en ese uso
+     */
+    public int line(int node, int statementLine) {
+        return statementLine + lines[node];
+    }
+
+    /**
+     * Obtiene la posición en la fuente de tokens del token principal del nodo (la variable de una
+     * asignación, el 'if' o 'while', el operador, el literal o el paréntesis que abre).
+     */
+    public int token(int node) {
+        return tokens[node];
+    }
+
+    public int first(int node) {
+        return first[node];
+    }
+
+    public int second(int node) {
+        return second[node];
+    }
+
+    public int third(int node) {
+        return third[node];
+    }
+
+    public int next(int node) {
+        return next[node];
+    }
+
+    public Token.Lexeme operator(int node) {
+        return LEXEMES[third[node]];
+    }
+
+    public Token.Type literalType(int node) {
+        return TYPES[third[node]];
+    }
+
+    /**
+     * Obtiene el texto de un literal o el nombre de la variable de una asignación.
+     */
+    public String text(int node) {
+        Kind kind = kind(node);
+        if (kind == Kind.ASSIGNMENT || (kind == Kind.LITERAL && literalType(node) == Token.Type.VARIABLE)) {
+            return variables.name(first[node]);
+        }
+        return numbers.name(first[node]);
+    }
+
+    // Vistas tipadas
+
+    /**
+     * Vista tipada de un nodo; solo guarda el árbol y el índice.
+     */
+    sealed interface Node permits Assignment, If, While, Block, Condition, Binary, Literal, Grouping {
+        Ast ast();
+
+        int handle();
+
+        default int line() {
+            return ast().line(handle()); // En las expresiones, relativa a la sentencia
+        }
+
+        /**
+         * Obtiene la línea del nodo en la entrada, como {@link Ast#line(int, int)}: un nodo de expresión se
+         * comparte entre sentencias, así que su línea depende de la sentencia donde se usa.
+         * @param statementLine Línea de la sentencia donde se usa el nodo; en los demás nodos no se usa
+         */
+        default int line(int statementLine) {
+            if (this instanceof Binary || this instanceof Literal || this instanceof Grouping) {
+                return ast().line(handle(), statementLine);
+            }
+            return line();
+        }
+    }
+
+    record Assignment(Ast ast, int handle) implements Node {
+        public String variable() { return ast.text(handle); }
+        public Node value() { return ast.node(ast.second(handle)); }
+    }
+
+    record If(Ast ast, int handle) implements Node {
+        public Condition condition() { return (Condition) ast.node(ast.first(handle)); }
+        public Block thenBlock() { return (Block) ast.node(ast.second(handle)); }
+        public Block elseBlock() { return (Block) ast.node(ast.third(handle)); } // null si no tiene else
+    }
+
+    record While(Ast ast, int handle) implements Node {
+        public Condition condition() { return (Condition) ast.node(ast.first(handle)); }
+        public Block body() { return (Block) ast.node(ast.second(handle)); }
+    }
+
+    record Block(Ast ast, int handle) implements Node {
+        public int size() { return ast.third(handle); }
+        public List<Node> statements() { return ast.statements(ast.first(handle)); }
+    }
+
+    record Condition(Ast ast, int handle) implements Node {
+        public Node left() { return ast.node(ast.first(handle)); }
+        public Token.Lexeme operator() { return ast.operator(handle); }
+        public Node right() { return ast.node(ast.second(handle)); }
+    }
+
+    record Binary(Ast ast, int handle) implements Node {
+        public Node left() { return ast.node(ast.first(handle)); }
+        public Token.Lexeme operator() { return ast.operator(handle); }
+        public Node right() { return ast.node(ast.second(handle)); }
+    }
+
+    record Literal(Ast ast, int handle) implements Node {
+        public Token.Type type() { return ast.literalType(handle); }
+        public String text() { return ast.text(handle); }
+    }
+
+    record Grouping(Ast ast, int handle) implements Node {
+        public Node expression() { return ast.node(ast.first(handle)); }
+    }
+
+    /**
+     * Obtiene la vista tipada de un nodo.
+     * @param node Índice del nodo
+     * @return La vista, o null si el índice es {@link #NONE}
+     */
+    public Node node(int node) {
+        if (node == NONE) return null;
+        return switch (kind(node)) {
+            case ASSIGNMENT -> new Assignment(this, node);
+            case IF -> new If(this, node);
+            case WHILE -> new While(this, node);
+            case BLOCK -> new Block(this, node);
+            case CONDITION -> new Condition(this, node);
+            case BINARY -> new Binary(this, node);
+            case LITERAL -> new Literal(this, node);
+            case GROUPING -> new Grouping(this, node);
+        };
+    }
+
+    /**
+     * Obtiene las sentencias de nivel superior.
+     * @return Lista de vistas de las sentencias
+     */
+    public List<Node> statements() {
+        return statements(firstStatement);
+    }
+
+    private List<Node> statements(int first) {
+        List<Node> statements = new ArrayList<>();
+        for (int statement = first; statement != NONE; statement = next[statement]) {
+            statements.add(node(statement));
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Analiza muchos archivos de forma concurrente en un {@link ExecutorService}.
+ * Cada archivo tiene su propia lista de errores y su propia salida; las salidas se escriben en el
+ * mismo orden en que se recibieron los archivos, seguidas de un resumen. Si el análisis de un archivo
+ * falla se avisa en la salida de errores y se sigue con los demás.
+ */
+class BatchAnalyzer {
+    static final int UNREADABLE = -1; // Errores de un archivo que no se pudo leer
+    static final int FAILED = -2;     // Errores de un archivo cuyo análisis lanzó una excepción
+
+    private final ExecutorService executor;
+    private final int window;       // Máximo de archivos analizados por adelantado
+    private final boolean streaming; // Usa Main.analyzeStreaming en lugar de Main.analyze
+    private final int maxErrors;     // Máximo de errores que se reportan por archivo
+    private final int maxDepth;      // Máximo de bloques y paréntesis anidados
+    private final Reporter.Format format; // Formato de la salida de cada archivo
+    private final AnalysisCache cache;     // Resultados ya calculados (null si no se usa)
+
+    /**
+     * Resultado del análisis de un archivo.
+     * @param fileName Nombre del archivo
+     * @param output   Salida generada por el análisis
+     * @param errors   Número de errores, o {@link #UNREADABLE} si no se pudo leer
+     */
+    record FileReport(String fileName, byte[] output, int errors) {
+    }
+
+    /**
+     * Resumen de un archivo ya escrito; la salida no se conserva para no retener todos los resultados en memoria.
+     * @param fileName Nombre del archivo
+     * @param errors   Número de errores, o {@link #UNREADABLE} o {@link #FAILED}
+     */
+    record FileSummary(String fileName, int errors) {
+    }
+
+    /**
+     * Constructor de la clase BatchAnalyzer
+     * @param executor  Executor donde se analizan los archivos (hilos virtuales o fork-join)
+     * @param window    Máximo de archivos en proceso o esperando a ser escritos
+     * @param streaming true para usar el análisis en modo streaming
+     */
+    public BatchAnalyzer(ExecutorService executor, int window, boolean streaming) {
+        this(executor, window, streaming, Integer.MAX_VALUE, Integer.MAX_VALUE, Reporter.Format.TEXT, null);
+    }
+
+    /**
+     * Constructor con un máximo de errores y de anidamiento por archivo
+     * @param executor  Executor donde se analizan los archivos (hilos virtuales o fork-join)
+     * @param window    Máximo de archivos en proceso o esperando a ser escritos
+     * @param streaming true para usar el análisis en modo streaming
+     * @param maxErrors Máximo de errores que se reportan por archivo
+     * @param maxDepth  Máximo de bloques y paréntesis anidados
+     * @param format    Formato de la salida; el resumen final solo se escribe en los formatos de texto
+     * @param cache     Caché de resultados, o null para analizar siempre (no se usa en modo streaming)
+     */
+    public BatchAnalyzer(ExecutorService executor, int window, boolean streaming, int maxErrors, int maxDepth,
+                         Reporter.Format format, AnalysisCache cache) {
+        this.executor = executor;
+        this.window = Math.max(1, window);
+        this.streaming = streaming;
+        this.maxErrors = maxErrors;
+        this.maxDepth = maxDepth;
+        this.format = format;
+        this.cache = cache;
+    }
+
+    /**
+     * Obtiene la lista de archivos a analizar; los directorios se expanden a sus archivos, en orden alfabético.
+     * @param arguments Archivos o directorios
+     * @return Lista de archivos
+     */
+    public static List<String> collectFiles(List<String> arguments) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String argument : arguments) {
+            Path path = Path.of(argument);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.walk(path)) {
+                    children.filter(Files::isRegularFile).map(Path::toString).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(argument);
+            }
+        }
+        return files;
+    }
+
+    private record Pending(String fileName, Future<FileReport> report) {
+    }
+
+    /**
+     * Analiza los archivos y escribe cada resultado en orden conforme va estando listo. Si se interrumpe, los
+     * archivos de la ventana que no se han escrito se cancelan.
+     * @param files Archivos a analizar
+     * @param out   Salida donde se escriben los resultados y el resumen
+     * @return Resumen de todos los archivos, en el orden recibido
+     */
+    public List<FileSummary> run(List<String> files, PrintStream out) throws InterruptedException {
+        long start = System.nanoTime();
+        List<FileSummary> summaries = new ArrayList<>(files.size());
+        ArrayDeque<Pending> pending = new ArrayDeque<>();
+        int next = 0;
+
+        try {
+            while (next < files.size() || !pending.isEmpty()) {
+                // Mantiene la ventana llena para que los hilos no se queden sin trabajo
+                while (next < files.size() && pending.size() < window) {
+                    String fileName = files.get(next++);
+                    pending.add(new Pending(fileName, executor.submit(() -> analyze(fileName))));
+                }
+                Pending oldest = pending.poll();
+                FileReport report;
+                try {
+                    report = oldest.report().get();
+                } catch (ExecutionException e) {
+                    System.err.println("Error analyzing file " + oldest.fileName() + ": " + e.getCause());
+                    summaries.add(new FileSummary(oldest.fileName(), FAILED));
+                    continue;
+                }
+                out.write(report.output(), 0, report.output().length);
+                summaries.add(new FileSummary(report.fileName(), report.errors()));
+            }
+        } finally {
+            for (Pending file : pending) {
+                file.report().cancel(true);
+            }
+        }
+
+        if (format.isReadable()) {
+            printSummary(summaries, out, System.nanoTime() - start);
+            if (cache != null) {
+                out.println("Cache hits: " + cache.hits() + ", misses: " + cache.misses());
+            }
+        }
+        return summaries;
+    }
+
+    private FileReport analyze(String fileName) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Reporter reporter = format.open(buffer, 8192);
+        int errors = streaming ? Main.analyzeStreaming(fileName, reporter, maxErrors, maxDepth)
+                : Main.analyze(fileName, reporter, maxErrors, maxDepth, cache);
+        reporter.flush();
+        return new FileReport(fileName, buffer.toByteArray(), errors);
+    }
+
+    private static void printSummary(List<FileSummary> summaries, PrintStream out, long elapsedNanos) {
+        int withErrors = 0;
+        int unreadable = 0;
+        int failed = 0;
+        long totalErrors = 0;
+        for (FileSummary summary : summaries) {
+            if (summary.errors() == UNREADABLE) {
+                unreadable++;
+            } else if (summary.errors() == FAILED) {
+                failed++;
+            } else if (summary.errors() > 0) {
+                withErrors++;
+                totalErrors += summary.errors();
+            }
+        }
+        out.println("\n ------------------------------------------ Summary --------------------------------------------\n");
+        out.println("Files analyzed: " + summaries.size());
+        out.println("Files with errors: " + withErrors);
+        out.println("Files not read: " + unreadable);
+        if (failed > 0) {
+            out.println("Files failed: " + failed);
+        }
+        out.println("Total errors: " + totalErrors);
+        out.println("Elapsed time: " + elapsedNanos / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,421 @@
+import java.util.Arrays;
+
+/**
+ * Ejecuta un programa sobre muchas filas de valores iniciales a la vez, por columnas: cada variable es un
+ * {@code long[]} con un valor por fila y cada operación del árbol ({@link Ast}) se evalúa sobre un bloque de
+ * {@link #BLOCK} filas con un ciclo simple sobre arreglos, que el compilador JIT puede vectorizar. El
+ * recorrido del árbol se paga una vez por bloque y no una vez por fila.
+ * <p>
+ * Las filas de un bloque que siguen activas en cada punto del programa se marcan con máscaras (un
+ * {@code long} por fila, -1 si está activa y 0 si no): un {@code if} divide la máscara en la de su bloque
+ * then y la de su bloque else, un {@code while} repite su cuerpo solo con las filas cuya condición sigue
+ * siendo verdadera, y una asignación solo cambia las filas activas. Cada fila termina igual que con
+ * {@link Interpreter}: con los mismos valores, el mismo número de pasos y, si se detiene por el máximo de
+ * pasos o por una división entre cero, en la misma línea; las demás filas del bloque siguen ejecutándose.
+ * <p>
+ * Los bloques y las expresiones se recorren con pilas explícitas, así que un programa muy anidado no
+ * provoca un {@link StackOverflowError}.
+ */
+final class BatchInterpreter {
+    static final int BLOCK = 1024; // Filas por bloque
+
+    private static final Interpreter.Status[] STATUSES = Interpreter.Status.values();
+    private static final long ACTIVE = -1L;
+
+    // Qué hacer con una entrada de la pila de sentencias
+    private static final int LIST = 0;       // Ejecutar una lista de sentencias desde node
+    private static final int LOOP = 1;       // Checar otra vez la condición de un while
+
+    /**
+     * Resultado de una ejecución por columnas.
+     * @param columns  Valor final de cada variable por fila, indexado por slot (ver {@link #variable(int)})
+     * @param statuses Ordinal de {@link Interpreter.Status} con que terminó cada fila
+     * @param steps    Pasos ejecutados en cada fila
+     * @param lines    Línea donde se detuvo cada fila (0 si terminó el programa)
+     */
+    record Result(long[][] columns, byte[] statuses, long[] steps, int[] lines) {
+        int rows() {
+            return statuses.length;
+        }
+
+        Interpreter.Status status(int row) {
+            return STATUSES[statuses[row]];
+        }
+    }
+
+    private final Ast ast;
+    private final long[] constants; // Valor de cada número del árbol, por identificador
+    private final String[] variables;
+
+    // Estado de la ejecución del bloque actual
+    private long maxSteps;
+    private Result result;
+    private int offset;          // Primera fila del bloque
+    private int lanes;           // Filas del bloque
+    private final long[][] frame;
+    private final long[] alive = new long[BLOCK]; // Filas que no se han detenido
+    private long[][] masks = new long[4][];       // Máscaras por nivel de anidamiento (ver execute)
+    private long[][] values = new long[8][];      // Pila de valores de las expresiones (columnas)
+    private long[][] temporaries = new long[8][]; // Columna donde escribe una operación según su altura en la pila
+    private final long[][] constantColumns;
+    private final long[] zero = new long[BLOCK];
+    private final long[] steps = new long[BLOCK]; // Pasos de cada fila del bloque
+    private long stepBound;                       // Máximo de pasos que puede llevar una fila del bloque
+    private int height = 0;
+    private int[] statements = new int[64];       // Pila de sentencias: nodo, acción, máscara y nivel
+    private int statementCount = 0;
+    private int[] expressions = new int[64];      // Pila de nodos de expresión y fase
+    private int expressionCount = 0;
+
+    /**
+     * Constructor de la clase BatchInterpreter
+     * @param ast Árbol construido con {@link Parser#parseTree()} (y quizá reducido con {@link Optimizer});
+     *            no se modifica
+     */
+    BatchInterpreter(Ast ast) {
+        this.ast = ast;
+        SymbolTable numbers = ast.numbers();
+        constants = new long[numbers.size()];
+        for (int id = 0; id < constants.length; id++) {
+            constants[id] = Program.parseNumber(numbers.name(id));
+        }
+        variables = new String[ast.variables().size()];
+        for (int slot = 0; slot < variables.length; slot++) {
+            variables[slot] = ast.variables().name(slot);
+        }
+        frame = new long[variables.length][BLOCK];
+        constantColumns = new long[constants.length][];
+    }
+
+    /**
+     * Obtiene el número de variables (slots) del programa.
+     */
+    int slotCount() {
+        return variables.length;
+    }
+
+    /**
+     * Obtiene el nombre de la variable de un slot.
+     */
+    String variable(int slot) {
+        return variables[slot];
+    }
+
+    /**
+     * Ejecuta el programa sobre todas las filas.
+     * @param columns  Valores iniciales por slot; una columna null (o un slot fuera del arreglo) empieza en 0.
+     *                 Cada columna debe tener al menos {@code rows} valores; no se modifican
+     * @param rows     Número de filas
+     * @param maxSteps Máximo de pasos por fila (asignaciones y condiciones evaluadas), como en
+     *                 {@link Interpreter#run(long)}
+     * @return El valor final de cada variable y cómo terminó cada fila
+     */
+    Result run(long[][] columns, int rows, long maxSteps) {
+        this.maxSteps = maxSteps;
+        long[][] output = new long[variables.length][rows];
+        result = new Result(output, new byte[rows], new long[rows], new int[rows]);
+        for (offset = 0; offset < rows; offset += BLOCK) {
+            lanes = Math.min(BLOCK, rows - offset);
+            for (int slot = 0; slot < variables.length; slot++) {
+                long[] column = slot < columns.length ? columns[slot] : null;
+                if (column == null) {
+                    Arrays.fill(frame[slot], 0, lanes, 0);
+                } else {
+                    System.arraycopy(column, offset, frame[slot], 0, lanes);
+                }
+            }
+            Arrays.fill(steps, 0);
+            stepBound = 0;
+            Arrays.fill(alive, 0, lanes, ACTIVE);
+            Arrays.fill(alive, lanes, BLOCK, 0);
+            System.arraycopy(alive, 0, mask(0), 0, BLOCK);
+            execute();
+            for (int slot = 0; slot < variables.length; slot++) {
+                System.arraycopy(frame[slot], 0, output[slot], offset, lanes);
+            }
+            System.arraycopy(steps, 0, result.steps(), offset, lanes);
+        }
+        Result finished = result;
+        result = null;
+        return finished;
+    }
+
+    /**
+     * Ejecuta el programa sobre el bloque actual. Una sentencia de nivel d se ejecuta con su máscara y
+     * guarda las de sus bloques en las posiciones 2(d + 1) y 2(d + 1) + 1, así que las sentencias anidadas
+     * (de nivel d + 1) no las pisan mientras se ejecutan.
+     */
+    private void execute() {
+        pushStatement(ast.firstStatement(), LIST, 0, 0);
+        while (statementCount > 0) {
+            statementCount -= 4;
+            int node = statements[statementCount];
+            int action = statements[statementCount + 1];
+            int maskIndex = statements[statementCount + 2];
+            int level = statements[statementCount + 3];
+            if (node == Ast.NONE || !live(masks[maskIndex])) continue;
+            if (action == LOOP) {
+                // La máscara del ciclo ya es la del cuerpo: solo siguen las filas cuya condición es verdadera
+                loop(node, maskIndex, level);
+                continue;
+            }
+            pushStatement(ast.next(node), LIST, maskIndex, level);
+            long[] active = masks[maskIndex];
+            switch (ast.kind(node)) {
+                case ASSIGNMENT -> {
+                    evaluate(ast.second(node), ast.line(node), active);
+                    step(active, ast.line(node));
+                    long[] value = values[height - 1];
+                    long[] variable = frame[ast.first(node)];
+                    for (int i = 0; i < lanes; i++) {
+                        long m = active[i] & alive[i];
+                        variable[i] = (value[i] & m) | (variable[i] & ~m);
+                    }
+                    height--;
+                }
+                case IF -> {
+                    int thenMask = 2 * (level + 1);
+                    int elseMask = thenMask + 1;
+                    condition(ast.first(node), ast.line(node), active, mask(thenMask), mask(elseMask));
+                    if (ast.third(node) != Ast.NONE) {
+                        pushStatement(ast.first(ast.third(node)), LIST, elseMask, level + 1);
+                    }
+                    pushStatement(ast.first(ast.second(node)), LIST, thenMask, level + 1);
+                }
+                case WHILE -> {
+                    int loopMask = 2 * (level + 1);
+                    System.arraycopy(active, 0, mask(loopMask), 0, BLOCK);
+                    loop(node, loopMask, level);
+                }
+                default -> throw new IllegalStateException("Not a statement: " + ast.kind(node));
+            }
+        }
+    }
+
+    /**
+     * Evalúa la condición de un while con las filas que siguen en el ciclo y, si alguna sigue, agrega su
+     * cuerpo a la pila seguido de otra revisión de la condición.
+     */
+    private void loop(int node, int maskIndex, int level) {
+        long[] active = masks[maskIndex];
+        condition(ast.first(node), ast.line(node), active, active, mask(2 * (level + 1) + 1));
+        if (live(active)) {
+            pushStatement(node, LOOP, maskIndex, level);
+            pushStatement(ast.first(ast.second(node)), LIST, maskIndex, level + 1);
+        }
+    }
+
+    /**
+     * Evalúa una condición en las filas activas: cuenta el paso y separa las filas en las que es verdadera
+     * y en las que es falsa. {@code whenTrue} puede ser el mismo arreglo que {@code active}.
+     * {@code line} es la línea del if o while.
+     */
+    private void condition(int condition, int line, long[] active, long[] whenTrue, long[] whenFalse) {
+        evaluate(ast.first(condition), line, active);
+        evaluate(ast.second(condition), line, active);
+        step(active, ast.line(condition));
+        long[] left = values[height - 2];
+        long[] right = values[height - 1];
+        long[] holds = temporaries[height - 2]; // Ya no se necesita el operando izquierdo, si era temporal
+        switch (ast.operator(condition)) {
+            case EQUAL_TO -> {
+                for (int i = 0; i < lanes; i++) holds[i] = ~notEqual(left[i], right[i]);
+            }
+            case NOT_EQUAL_TO, DIFFERENT_FROM -> {
+                for (int i = 0; i < lanes; i++) holds[i] = notEqual(left[i], right[i]);
+            }
+            case LESS_THAN -> {
+                for (int i = 0; i < lanes; i++) holds[i] = less(left[i], right[i]);
+            }
+            case LESS_EQUAL_THAN -> {
+                for (int i = 0; i < lanes; i++) holds[i] = ~less(right[i], left[i]);
+            }
+            case GREATER_THAN -> {
+                for (int i = 0; i < lanes; i++) holds[i] = less(right[i], left[i]);
+            }
+            default -> {
+                for (int i = 0; i < lanes; i++) holds[i] = ~less(left[i], right[i]);
+            }
+        }
+        for (int i = 0; i < lanes; i++) {
+            long m = active[i] & alive[i];
+            whenFalse[i] = m & ~holds[i];
+            whenTrue[i] = m & holds[i];
+        }
+        height -= 2;
+    }
+
+    // Comparaciones sin saltos: -1 si se cumple y 0 si no, para que el ciclo se pueda vectorizar
+
+    private static long less(long a, long b) {
+        long difference = a - b;
+        // El signo de la resta, corregido si se desbordó
+        return -((difference ^ ((a ^ b) & (difference ^ a))) >>> 63);
+    }
+
+    private static long notEqual(long a, long b) {
+        long bits = a ^ b;
+        return -((bits | -bits) >>> 63);
+    }
+
+    /**
+     * Evalúa una expresión en todas las filas del bloque y deja el resultado arriba de la pila de valores
+     * (quien llama lo saca). Una variable o un número se apilan sin copiarlos (la columna de la variable o
+     * una columna con el número) y cada operación escribe en la columna temporal de su altura en la pila.
+     * Las filas inactivas también se calculan, pero sus valores no se usan; solo una división entre cero en
+     * una fila activa la detiene. {@code line} es la línea de la sentencia, para ubicar la división.
+     */
+    private void evaluate(int root, int line, long[] active) {
+        pushExpression(root, 0);
+        while (expressionCount > 0) {
+            expressionCount -= 2;
+            int node = expressions[expressionCount];
+            int phase = expressions[expressionCount + 1];
+            if (node == Ast.NONE) {
+                pushValue(zero); // Una expresión vacía vale 0
+                continue;
+            }
+            switch (ast.kind(node)) {
+                case LITERAL -> {
+                    if (ast.literalType(node) == Token.Type.VARIABLE) {
+                        pushValue(frame[ast.first(node)]);
+                    } else {
+                        pushValue(constant(ast.first(node)));
+                    }
+                }
+                case GROUPING -> pushExpression(ast.first(node), 0);
+                case BINARY -> {
+                    if (phase == 0) {
+                        pushExpression(node, 1);
+                        pushExpression(ast.second(node), 0);
+                        pushExpression(ast.first(node), 0);
+                    } else {
+                        long[] left = values[height - 2];
+                        long[] right = values[height - 1];
+                        long[] out = temporaries[height - 2];
+                        switch (ast.operator(node)) {
+                            case PLUS -> {
+                                for (int i = 0; i < lanes; i++) out[i] = left[i] + right[i];
+                            }
+                            case MINUS -> {
+                                for (int i = 0; i < lanes; i++) out[i] = left[i] - right[i];
+                            }
+                            case MULTIPLICATION -> {
+                                for (int i = 0; i < lanes; i++) out[i] = left[i] * right[i];
+                            }
+                            default -> divide(left, right, out, active, ast.line(node, line));
+                        }
+                        values[height - 2] = out;
+                        height--;
+                    }
+                }
+                default -> throw new IllegalStateException("Not an expression: " + ast.kind(node));
+            }
+        }
+    }
+
+    private void divide(long[] left, long[] right, long[] out, long[] active, int line) {
+        for (int i = 0; i < lanes; i++) {
+            long divisor = right[i];
+            if (divisor == 0) {
+                if ((active[i] & alive[i]) != 0) {
+                    stop(i, Interpreter.Status.DIVISION_BY_ZERO, line);
+                }
+                divisor = 1; // Fila inactiva o detenida: el resultado no se usa
+            }
+            out[i] = left[i] / divisor;
+        }
+    }
+
+    /**
+     * Cuenta un paso en las filas activas; las que ya llegaron al máximo se detienen antes de ejecutarlo.
+     * Mientras ninguna fila del bloque pueda haber llegado al máximo, no se revisa fila por fila.
+     */
+    private void step(long[] active, int line) {
+        if (stepBound < maxSteps) {
+            for (int i = 0; i < lanes; i++) {
+                steps[i] -= active[i] & alive[i]; // Suma 1 en las filas activas
+            }
+            stepBound++;
+            return;
+        }
+        for (int i = 0; i < lanes; i++) {
+            if ((active[i] & alive[i]) != 0) {
+                if (steps[i] == maxSteps) {
+                    stop(i, Interpreter.Status.STEP_LIMIT, line);
+                } else {
+                    steps[i]++;
+                }
+            }
+        }
+    }
+
+    private void stop(int lane, Interpreter.Status status, int line) {
+        alive[lane] = 0;
+        result.statuses()[offset + lane] = (byte) status.ordinal();
+        result.lines()[offset + lane] = line;
+    }
+
+    /**
+     * Checa si alguna fila de la máscara sigue activa.
+     */
+    private boolean live(long[] mask) {
+        long any = 0;
+        for (int i = 0; i < lanes; i++) {
+            any |= mask[i] & alive[i];
+        }
+        return any != 0;
+    }
+
+    private long[] mask(int index) {
+        if (index >= masks.length) {
+            masks = Arrays.copyOf(masks, Math.max(masks.length * 2, index + 1));
+        }
+        if (masks[index] == null) {
+            masks[index] = new long[BLOCK];
+        }
+        return masks[index];
+    }
+
+    private void pushValue(long[] column) {
+        if (height == values.length) {
+            values = Arrays.copyOf(values, height * 2);
+            temporaries = Arrays.copyOf(temporaries, height * 2);
+        }
+        if (temporaries[height] == null) {
+            temporaries[height] = new long[BLOCK];
+        }
+        values[height++] = column;
+    }
+
+    /**
+     * Obtiene una columna con el valor de un número en todas las filas; se llena la primera vez que se usa.
+     */
+    private long[] constant(int id) {
+        if (constantColumns[id] == null) {
+            constantColumns[id] = new long[BLOCK];
+            Arrays.fill(constantColumns[id], constants[id]);
+        }
+        return constantColumns[id];
+    }
+
+    private void pushStatement(int node, int action, int maskIndex, int level) {
+        if (statementCount + 4 > statements.length) {
+            statements = Arrays.copyOf(statements, statements.length * 2);
+        }
+        statements[statementCount] = node;
+        statements[statementCount + 1] = action;
+        statements[statementCount + 2] = maskIndex;
+        statements[statementCount + 3] = level;
+        statementCount += 4;
+    }
+
+    private void pushExpression(int node, int phase) {
+        if (expressionCount + 2 > expressions.length) {
+            expressions = Arrays.copyOf(expressions, expressions.length * 2);
+        }
+        expressions[expressionCount] = node;
+        expressions[expressionCount + 1] = phase;
+        expressionCount += 2;
+    }
+}
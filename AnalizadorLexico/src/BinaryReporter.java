@@ -0,0 +1,106 @@
+/**
+ * Reporter con registros binarios compactos, para que otro programa lea los resultados sin analizar texto.
+ * Los resultados de cada archivo empiezan con los bytes {@code ANLZ} y la versión del formato (2), así que
+ * las salidas de varios archivos se pueden concatenar; después cada registro es un byte con su tipo seguido
+ * de sus campos. Los números se escriben como varint (7 bits por byte, el bit
+ * alto indica que siguen más bytes) y los textos como su longitud en bytes (varint) seguida del texto en UTF-8.
+ * <ul>
+ *     <li>START (1): nombre del archivo, longitud de la entrada + 1 (0 en modo streaming)</li>
+ *     <li>TOKEN (2): ordinal de {@link Token.Type}, ordinal de {@link Token.Lexeme} + 1 (0 si no tiene),
+ *         diferencia de línea con el token anterior, columna, texto</li>
+ *     <li>STATEMENT (3): tipo de sentencia (0 assignment, 1 if then, 2 while), línea</li>
+ *     <li>ERROR (4): ordinal de {@link Diagnostic.Code}, línea, columna, mensaje</li>
+ *     <li>ERROR_LIMIT (5): número de errores</li>
+ *     <li>END (6): número de errores</li>
+ *     <li>OPTIMIZATION (7): mensaje (desde la versión 2)</li>
+ * </ul>
+ */
+class BinaryReporter implements Reporter {
+    static final int VERSION = 2;
+    static final int START = 1;
+    static final int TOKEN = 2;
+    static final int STATEMENT = 3;
+    static final int ERROR = 4;
+    static final int ERROR_LIMIT = 5;
+    static final int END = 6;
+    static final int OPTIMIZATION = 7;
+
+    private final ReportBuffer out;
+    private int previousLine;
+
+    public BinaryReporter(ReportBuffer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void startFile(String fileName, String input) {
+        out.put('A');
+        out.put('N');
+        out.put('L');
+        out.put('Z');
+        out.put(VERSION);
+        out.put(START);
+        string(fileName);
+        out.putVarint(input == null ? 0 : input.length() + 1L);
+        previousLine = 0;
+    }
+
+    @Override
+    public void token(Token token) {
+        out.put(TOKEN);
+        out.put(token.getType().ordinal());
+        out.put(token.getLexeme() == null ? 0 : token.getLexeme().ordinal() + 1);
+        out.putVarint(token.getLineNumber() - previousLine);
+        out.putVarint(token.getColumn());
+        string(token.getValue());
+        previousLine = token.getLineNumber();
+    }
+
+    @Override
+    public void statement(String description, int line) {
+        out.put(STATEMENT);
+        out.put(switch (description) {
+            case "assignment" -> 0;
+            case "if then" -> 1;
+            default -> 2;
+        });
+        out.putVarint(line);
+    }
+
+    @Override
+    public void optimization(String message) {
+        out.put(OPTIMIZATION);
+        string(message);
+    }
+
+    @Override
+    public void error(Diagnostic error) {
+        out.put(ERROR);
+        out.put(error.getCode().ordinal());
+        out.putVarint(error.getLine());
+        out.putVarint(error.getColumn());
+        string(error.getMessage());
+    }
+
+    @Override
+    public void errorLimit(int count) {
+        out.put(ERROR_LIMIT);
+        out.putVarint(count);
+    }
+
+    @Override
+    public void endFile(String fileName, int errors) {
+        out.put(END);
+        out.putVarint(errors);
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    private void string(String text) {
+        out.putVarint(ReportBuffer.utf8Length(text));
+        out.put(text);
+    }
+}
@@ -0,0 +1,106 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Clasifica los bytes de una entrada ASCII por bloques de 64: por cada bloque da una máscara de bits con los
+ * saltos de línea, otra con los espacios (espacio, tabulador y retorno de carro) y otra con los caracteres que
+ * pueden ir dentro de un identificador o número (letras, dígitos y '_'). El bit i de la máscara k corresponde
+ * al byte {@code 64 * k + i}.
+ * <p>
+ * Esta versión siempre está disponible y revisa 8 bytes a la vez dentro de un long (SWAR): las comparaciones
+ * dejan el bit alto de cada byte y una multiplicación junta esos 8 bits. Si la JVM se inició con
+ * {@code --add-modules jdk.incubator.vector}, {@link #create()} devuelve {@link VectorByteClassifier}, que
+ * revisa un vector completo (32 o 64 bytes) por instrucción; fuera de esa clase no se toca la API de vectores,
+ * así que sin el módulo no falla la carga de ninguna clase.
+ */
+class ByteClassifier {
+    static final int BLOCK = 64; // Bytes por máscara
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW = 0x7F7F7F7F7F7F7F7FL;   // Los 7 bits bajos de cada byte
+    private static final long HIGH = 0x8080808080808080L;  // El bit alto de cada byte
+    private static final long GATHER = 0x0102040810204080L; // Junta el bit 0 de cada byte en el byte alto
+
+    /**
+     * Crea el clasificador más rápido disponible en esta JVM.
+     */
+    static ByteClassifier create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorByteClassifier();
+            } catch (LinkageError e) {
+                // Plataforma sin soporte para la API de vectores: se usa la versión de 8 bytes
+            }
+        }
+        return new ByteClassifier();
+    }
+
+    /**
+     * Clasifica {@code bytes[0, length)}. Los bits de las posiciones desde {@code length} quedan en 0.
+     * @param bytes    Bytes a clasificar; su tamaño debe ser múltiplo de {@link #BLOCK} y al menos {@code length}
+     * @param length   Número de bytes a clasificar
+     * @param newlines Máscaras de saltos de línea, al menos una por bloque
+     * @param blanks   Máscaras de espacios
+     * @param words    Máscaras de caracteres de identificadores y números
+     */
+    void classify(byte[] bytes, int length, long[] newlines, long[] blanks, long[] words) {
+        for (int block = 0; block * BLOCK < length; block++) {
+            long newline = 0;
+            long blank = 0;
+            long word = 0;
+            for (int lane = 0; lane < BLOCK; lane += 8) {
+                long x = (long) LONGS.get(bytes, block * BLOCK + lane);
+                newline |= gather(equal(x, '\n')) << lane;
+                blank |= gather(equal(x, ' ') | equal(x, '\t') | equal(x, '\r')) << lane;
+                long ascii = ~x & HIGH;
+                long letter = range(x | repeat(0x20), 'a', 'z'); // Con el bit 0x20 encendido las mayúsculas quedan en 'a'..'z'
+                word |= gather((letter | range(x, '0', '9')) & ascii | equal(x, '_')) << lane;
+            }
+            newlines[block] = newline;
+            blanks[block] = blank;
+            words[block] = word;
+        }
+        clearTail(length, newlines, blanks, words);
+    }
+
+    /**
+     * Deja en 0 los bits desde {@code length} de la última máscara (la que contiene el byte {@code length - 1}).
+     */
+    static void clearTail(int length, long[] newlines, long[] blanks, long[] words) {
+        if (length % BLOCK == 0) return;
+        int block = length / BLOCK;
+        long keep = (1L << (length % BLOCK)) - 1;
+        newlines[block] &= keep;
+        blanks[block] &= keep;
+        words[block] &= keep;
+    }
+
+    private static long repeat(int c) {
+        return (c & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * Bit alto de cada byte de {@code x} igual a {@code c}.
+     */
+    private static long equal(long x, char c) {
+        long t = x ^ repeat(c);
+        return ~(((t & LOW) + LOW) | t | LOW);
+    }
+
+    /**
+     * Bit alto de cada byte de {@code x} en {@code [low, high]}, sin contar el bit alto del byte (hay que
+     * descartar aparte los bytes fuera de ASCII).
+     */
+    private static long range(long x, char low, char high) {
+        long bits = x & LOW; // Sin el bit alto las sumas no pasan de un byte al siguiente
+        return (bits + repeat(0x80 - low)) & ~(bits + repeat(0x7F - high)) & HIGH;
+    }
+
+    /**
+     * Junta el bit alto de cada byte en 8 bits (el del byte i en el bit i).
+     */
+    private static long gather(long highBits) {
+        return ((highBits >>> 7) * GATHER) >>> 56;
+    }
+}
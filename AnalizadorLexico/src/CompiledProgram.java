@@ -0,0 +1,446 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Programa traducido a bytecode de la JVM. El código de un {@link Program} se convierte en el método
+ * estático {@code run(long[] frame, long maxSteps, int[] stop)} de una clase oculta (hidden class), así
+ * que los ciclos largos los optimiza el JIT igual que código Java. Cada variable es una variable local
+ * {@code long} del método: se copian del arreglo {@code frame} al entrar y se regresan al salir.
+ * <p>
+ * El resultado es el mismo que el de {@link Interpreter}: se cuentan los mismos pasos y la ejecución
+ * se detiene en la misma línea al llegar al máximo de pasos o al dividir entre cero.
+ */
+final class CompiledProgram {
+    /**
+     * Tipo del método generado: recibe los valores de las variables, el máximo de pasos y un arreglo
+     * donde se guardan el estado ({@link Interpreter.Status#ordinal()}) y la línea donde se detuvo;
+     * devuelve los pasos ejecutados.
+     */
+    public static final MethodType TYPE = MethodType.methodType(long.class, long[].class, long.class, int[].class);
+
+    private static final int MAX_CODE = Short.MAX_VALUE; // Así todos los saltos caben en 16 bits
+    private static final Interpreter.Status[] STATUSES = Interpreter.Status.values();
+
+    private final Program program;
+    private final MethodHandle handle;
+    private final long[] frame;
+
+    private CompiledProgram(Program program, MethodHandle handle) {
+        this.program = program;
+        this.handle = handle;
+        this.frame = new long[program.slotCount()];
+    }
+
+    /**
+     * Traduce un programa a bytecode y carga la clase.
+     * @param program Programa a traducir
+     * @return El programa compilado, o null si no cabe en un método de la JVM
+     */
+    public static CompiledProgram compile(Program program) {
+        byte[] bytes = new ClassGenerator(program).generate();
+        if (bytes == null) return null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return new CompiledProgram(program, lookup.findStatic(lookup.lookupClass(), "run", TYPE));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated class could not be loaded", e);
+        }
+    }
+
+    public Program program() {
+        return program;
+    }
+
+    /**
+     * Obtiene el método generado, de tipo {@link #TYPE}.
+     * @return Referencia al método
+     */
+    public MethodHandle handle() {
+        return handle;
+    }
+
+    /**
+     * Obtiene los valores de las variables, indexados por slot (ver {@link Program#variable(int)}).
+     * @return Arreglo con los valores de las variables
+     */
+    public long[] frame() {
+        return frame;
+    }
+
+    /**
+     * Ejecuta el programa desde el inicio sobre los valores actuales de las variables.
+     * @param maxSteps Máximo de pasos (asignaciones y condiciones evaluadas)
+     * @return El resultado de la ejecución
+     */
+    public Interpreter.Result run(long maxSteps) {
+        int[] stop = new int[2];
+        long steps;
+        try {
+            steps = (long) handle.invokeExact(frame, maxSteps, stop);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Generated code failed", e);
+        }
+        return new Interpreter.Result(STATUSES[stop[0]], steps, stop[1]);
+    }
+
+    /**
+     * Generación del archivo de clase. Se usa la versión 49 del formato, que no necesita tablas de
+     * marcos de pila (StackMapTable); el verificador las infiere.
+     */
+    private static final class ClassGenerator {
+        // Variables locales del método generado
+        private static final int FRAME = 0;
+        private static final int MAX_STEPS = 1;
+        private static final int STOP = 3;
+        private static final int STEPS = 4;
+        private static final int STATUS = 6;
+        private static final int LINE = 7;
+        private static final int FIRST_VARIABLE = 8;
+
+        // Bytecodes usados
+        private static final int ICONST_0 = 0x03, LCONST_0 = 0x09, LCONST_1 = 0x0a, BIPUSH = 0x10, SIPUSH = 0x11;
+        private static final int LDC_W = 0x13, LDC2_W = 0x14, ILOAD = 0x15, LLOAD = 0x16, ALOAD = 0x19;
+        private static final int LALOAD = 0x2f, ISTORE = 0x36, LSTORE = 0x37, IASTORE = 0x4f, LASTORE = 0x50;
+        private static final int POP2 = 0x58, DUP2 = 0x5c, LADD = 0x61, LSUB = 0x65, LMUL = 0x69, LDIV = 0x6d;
+        private static final int LCMP = 0x94, IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d;
+        private static final int IFLE = 0x9e, GOTO = 0xa7, LRETURN = 0xad, WIDE = 0xc4;
+
+        private final Program program;
+        private final Bytes pool = new Bytes();
+        private final HashMap<Object, Integer> poolIndex = new HashMap<>();
+        private int poolCount = 1;
+        private final Bytes code = new Bytes();
+        private int[] offsets;             // Posición en el bytecode de cada instrucción del programa
+        private int[] jumps = new int[16]; // Saltos por completar: posición del salto y destino en el programa
+        private int jumpCount = 0;
+        private int[] stubs = new int[16]; // Salidas por error: posición del salto, altura de pila, estado y línea
+        private int stubCount = 0;
+
+        ClassGenerator(Program program) {
+            this.program = program;
+        }
+
+        /**
+         * @return Los bytes de la clase, o null si el programa es demasiado grande
+         */
+        byte[] generate() {
+            int slots = program.slotCount();
+            if (FIRST_VARIABLE + 2L * slots > 0xffff) return null;
+            generateCode();
+            if (code.size > MAX_CODE || poolCount > 0xfff0) return null;
+
+            int thisClass = classEntry("CompiledProgram$Code");
+            int superClass = classEntry("java/lang/Object");
+            int name = utf8("run");
+            int descriptor = utf8(TYPE.toMethodDescriptorString());
+            int codeAttribute = utf8("Code");
+
+            Bytes out = new Bytes();
+            out.u4(0xcafebabe);
+            out.u2(0);
+            out.u2(49);
+            out.u2(poolCount);
+            out.append(pool);
+            out.u2(0x0030);       // ACC_FINAL | ACC_SUPER
+            out.u2(thisClass);
+            out.u2(superClass);
+            out.u2(0);            // Interfaces
+            out.u2(0);            // Campos
+            out.u2(1);            // Métodos
+            out.u2(0x0009);       // ACC_PUBLIC | ACC_STATIC
+            out.u2(name);
+            out.u2(descriptor);
+            out.u2(1);
+            out.u2(codeAttribute);
+            out.u4(12 + code.size);
+            out.u2(2 * program.maxStack() + 4);
+            out.u2(FIRST_VARIABLE + 2 * slots);
+            out.u4(code.size);
+            out.append(code);
+            out.u2(0);            // Tabla de excepciones
+            out.u2(0);            // Atributos del código
+            out.u2(0);            // Atributos de la clase
+            return Arrays.copyOf(out.data, out.size);
+        }
+
+        private void generateCode() {
+            int slots = program.slotCount();
+            // Entrada: las variables pasan del arreglo a variables locales
+            code.u1(LCONST_0);
+            code.u1(LSTORE);
+            code.u1(STEPS);
+            for (int slot = 0; slot < slots; slot++) {
+                code.u1(ALOAD);
+                code.u1(FRAME);
+                pushInt(slot);
+                code.u1(LALOAD);
+                local(LSTORE, FIRST_VARIABLE + 2 * slot);
+            }
+
+            int[] instructions = program.code();
+            int[] lines = program.lines();
+            long[] constants = program.constants();
+            offsets = new int[instructions.length];
+            int height = 0;
+            for (int pc = 0; pc < instructions.length && code.size <= MAX_CODE; ) {
+                offsets[pc] = code.size;
+                int opcode = instructions[pc];
+                switch (opcode) {
+                    case Program.CONST -> {
+                        long value = constants[instructions[pc + 1]];
+                        if (value == 0 || value == 1) {
+                            code.u1(LCONST_0 + (int) value);
+                        } else {
+                            code.u1(LDC2_W);
+                            code.u2(longEntry(value));
+                        }
+                        height++;
+                    }
+                    case Program.LOAD -> {
+                        local(LLOAD, FIRST_VARIABLE + 2 * instructions[pc + 1]);
+                        height++;
+                    }
+                    case Program.STORE -> {
+                        countStep(height, lines[pc]);
+                        local(LSTORE, FIRST_VARIABLE + 2 * instructions[pc + 1]);
+                        height--;
+                    }
+                    case Program.ADD, Program.SUBTRACT, Program.MULTIPLY -> {
+                        code.u1(opcode == Program.ADD ? LADD : opcode == Program.SUBTRACT ? LSUB : LMUL);
+                        height--;
+                    }
+                    case Program.DIVIDE -> {
+                        code.u1(DUP2);
+                        code.u1(LCONST_0);
+                        code.u1(LCMP);
+                        stub(IFEQ, height, Interpreter.Status.DIVISION_BY_ZERO, lines[pc]);
+                        code.u1(LDIV);
+                        height--;
+                    }
+                    case Program.JUMP -> jump(GOTO, instructions[pc + 1]);
+                    case Program.HALT -> {
+                        code.u1(ICONST_0 + Interpreter.Status.FINISHED.ordinal());
+                        code.u1(ICONST_0);
+                        exit();
+                    }
+                    default -> {
+                        countStep(height, lines[pc]);
+                        code.u1(LCMP);
+                        jump(switch (opcode) {
+                            case Program.UNLESS_EQUAL -> IFNE;
+                            case Program.UNLESS_NOT_EQUAL -> IFEQ;
+                            case Program.UNLESS_LESS -> IFGE;
+                            case Program.UNLESS_LESS_EQUAL -> IFGT;
+                            case Program.UNLESS_GREATER -> IFLE;
+                            default -> IFLT;
+                        }, instructions[pc + 1]);
+                        height -= 2;
+                    }
+                }
+                pc += opcode >= Program.ADD && opcode <= Program.DIVIDE || opcode == Program.HALT ? 1 : 2;
+            }
+            if (code.size > MAX_CODE) return;
+
+            // Salidas por error: se vacía la pila, se apilan el estado y la línea y se salta a la salida
+            for (int i = 0; i < stubCount; i += 4) {
+                patch(stubs[i], code.size);
+                for (int pop = 0; pop < stubs[i + 1]; pop++) {
+                    code.u1(POP2);
+                }
+                code.u1(ICONST_0 + stubs[i + 2]);
+                pushInt(stubs[i + 3]);
+                exit();
+            }
+            for (int i = 0; i < jumpCount; i += 2) {
+                patch(jumps[i], jumps[i + 1] == EXIT ? code.size : offsets[jumps[i + 1]]);
+            }
+
+            // Salida: se guardan el estado, la línea y las variables y se devuelven los pasos
+            code.u1(ISTORE);
+            code.u1(LINE);
+            code.u1(ISTORE);
+            code.u1(STATUS);
+            code.u1(ALOAD);
+            code.u1(STOP);
+            code.u1(ICONST_0);
+            code.u1(ILOAD);
+            code.u1(STATUS);
+            code.u1(IASTORE);
+            code.u1(ALOAD);
+            code.u1(STOP);
+            code.u1(ICONST_0 + 1);
+            code.u1(ILOAD);
+            code.u1(LINE);
+            code.u1(IASTORE);
+            for (int slot = 0; slot < slots; slot++) {
+                code.u1(ALOAD);
+                code.u1(FRAME);
+                pushInt(slot);
+                local(LLOAD, FIRST_VARIABLE + 2 * slot);
+                code.u1(LASTORE);
+            }
+            code.u1(LLOAD);
+            code.u1(STEPS);
+            code.u1(LRETURN);
+        }
+
+        private static final int EXIT = -1; // Destino de salto: la salida del método
+
+        private void exit() {
+            jump(GOTO, EXIT);
+        }
+
+        /**
+         * Igual que el intérprete: si ya se llegó al máximo se detiene, si no cuenta el paso.
+         */
+        private void countStep(int height, int line) {
+            code.u1(LLOAD);
+            code.u1(STEPS);
+            code.u1(LLOAD);
+            code.u1(MAX_STEPS);
+            code.u1(LCMP);
+            stub(IFEQ, height, Interpreter.Status.STEP_LIMIT, line);
+            code.u1(LLOAD);
+            code.u1(STEPS);
+            code.u1(LCONST_1);
+            code.u1(LADD);
+            code.u1(LSTORE);
+            code.u1(STEPS);
+        }
+
+        private void jump(int opcode, int target) {
+            if (jumpCount + 2 > jumps.length) {
+                jumps = Arrays.copyOf(jumps, jumps.length * 2);
+            }
+            jumps[jumpCount++] = code.size;
+            jumps[jumpCount++] = target;
+            code.u1(opcode);
+            code.u2(0);
+        }
+
+        private void stub(int opcode, int height, Interpreter.Status status, int line) {
+            if (stubCount + 4 > stubs.length) {
+                stubs = Arrays.copyOf(stubs, stubs.length * 2);
+            }
+            stubs[stubCount++] = code.size;
+            stubs[stubCount++] = height;
+            stubs[stubCount++] = status.ordinal();
+            stubs[stubCount++] = line;
+            code.u1(opcode);
+            code.u2(0);
+        }
+
+        private void patch(int branch, int target) {
+            code.set2(branch + 1, target - branch);
+        }
+
+        private void local(int opcode, int index) {
+            if (index > 0xff) {
+                code.u1(WIDE);
+                code.u1(opcode);
+                code.u2(index);
+            } else {
+                code.u1(opcode);
+                code.u1(index);
+            }
+        }
+
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                code.u1(ICONST_0 + value);
+            } else if (value == (byte) value) {
+                code.u1(BIPUSH);
+                code.u1(value);
+            } else if (value == (short) value) {
+                code.u1(SIPUSH);
+                code.u2(value);
+            } else {
+                code.u1(LDC_W);
+                code.u2(intEntry(value));
+            }
+        }
+
+        // Entradas del pool de constantes, sin repetir
+
+        private int utf8(String text) {
+            Integer index = poolIndex.get(text);
+            if (index != null) return index;
+            pool.u1(1);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8); // Solo nombres ASCII
+            pool.u2(bytes.length);
+            for (byte b : bytes) {
+                pool.u1(b);
+            }
+            poolIndex.put(text, poolCount);
+            return poolCount++;
+        }
+
+        private int classEntry(String name) {
+            int nameIndex = utf8(name);
+            pool.u1(7);
+            pool.u2(nameIndex);
+            return poolCount++;
+        }
+
+        private int intEntry(int value) {
+            Integer index = poolIndex.get(value);
+            if (index != null) return index;
+            pool.u1(3);
+            pool.u4(value);
+            poolIndex.put(value, poolCount);
+            return poolCount++;
+        }
+
+        private int longEntry(long value) {
+            Integer index = poolIndex.get(value);
+            if (index != null) return index;
+            pool.u1(5);
+            pool.u4((int) (value >>> 32));
+            pool.u4((int) value);
+            poolIndex.put(value, poolCount);
+            int entry = poolCount;
+            poolCount += 2; // Un long ocupa dos entradas
+            return entry;
+        }
+    }
+
+    /**
+     * Arreglo de bytes que crece, con escritura big-endian.
+     */
+    private static final class Bytes {
+        byte[] data = new byte[256];
+        int size = 0;
+
+        void u1(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = (byte) value;
+        }
+
+        void u2(int value) {
+            u1(value >>> 8);
+            u1(value);
+        }
+
+        void u4(int value) {
+            u2(value >>> 16);
+            u2(value);
+        }
+
+        void set2(int position, int value) {
+            data[position] = (byte) (value >>> 8);
+            data[position + 1] = (byte) value;
+        }
+
+        void append(Bytes other) {
+            for (int i = 0; i < other.size; i++) {
+                u1(other.data[i]);
+            }
+        }
+    }
+}
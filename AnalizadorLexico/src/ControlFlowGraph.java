@@ -0,0 +1,234 @@
+import java.util.Arrays;
+
+/**
+ * Grafo de flujo de control de un programa ({@link Ast}): bloques básicos unidos por las aristas que
+ * generan los {@code if}, {@code else} y {@code while}. Cada bloque guarda, en orden, los eventos de sus
+ * sentencias: el uso de una variable (en una expresión o condición) o su asignación. Las variables se
+ * identifican con el id denso de {@link Ast#variables()}.
+ * <p>
+ * Los eventos de cada bloque quedan contiguos en un solo arreglo, porque un bloque solo recibe eventos
+ * mientras es el bloque actual y no se retoma después. Cada bloque tiene a lo más dos sucesores (la
+ * condición de un {@code if} o {@code while}); los predecesores se guardan en formato compacto (CSR).
+ * El árbol se recorre con una pila explícita, así que el anidamiento no está limitado por la pila de Java.
+ */
+final class ControlFlowGraph {
+    // Tareas de la pila de construcción
+    private static final int SEQUENCE = 0;   // Una sentencia y las que le siguen en su bloque
+    private static final int THEN_DONE = 1;  // Terminó el bloque then de un if
+    private static final int ELSE_DONE = 2;  // Terminó el bloque else de un if
+    private static final int BODY_DONE = 3;  // Terminó el cuerpo de un while
+
+    private final int variableCount;
+    private int blockCount = 0;
+    private int[] eventStart = new int[16];  // Primer evento de cada bloque
+    private int[] eventEnd = new int[16];
+    private int[] successor0 = new int[16];  // -1 si no hay
+    private int[] successor1 = new int[16];
+    private int[] predecessorStart;          // Predecesores de b: predecessors[predecessorStart[b], predecessorStart[b + 1])
+    private int[] predecessors;
+
+    private int eventCount = 0;
+    private int[] events = new int[64];      // Uso: id de la variable; asignación: ~id
+    private int[] eventLines = new int[64];
+
+    private int current;
+    private int[] stack = new int[48];
+    private int stackSize = 0;
+
+    private ControlFlowGraph(int variableCount) {
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * Construye el grafo de las sentencias de nivel superior de un árbol.
+     * @param ast Árbol del programa (sin errores de sintaxis)
+     * @return El grafo; el bloque 0 es la entrada
+     */
+    static ControlFlowGraph build(Ast ast) {
+        ControlFlowGraph graph = new ControlFlowGraph(ast.variables().size());
+        graph.current = graph.newBlock();
+        graph.push(SEQUENCE, ast.firstStatement(), 0);
+        int[] expressions = new int[16];
+        while (graph.stackSize > 0) {
+            int c = graph.stack[--graph.stackSize];
+            int b = graph.stack[--graph.stackSize];
+            int a = graph.stack[--graph.stackSize];
+            switch (c) {
+                case SEQUENCE -> {
+                    int node = a;
+                    if (node == Ast.NONE) continue;
+                    graph.push(SEQUENCE, ast.next(node), 0);
+                    switch (ast.kind(node)) {
+                        case ASSIGNMENT -> {
+                            expressions = graph.uses(ast, ast.second(node), ast.line(node), expressions);
+                            graph.event(~ast.first(node), ast.line(node));
+                        }
+                        case IF -> {
+                            expressions = graph.uses(ast, ast.first(node), ast.line(node), expressions);
+                            int condition = graph.current;
+                            graph.current = graph.newBlock();
+                            graph.edge(condition, graph.current);
+                            graph.push(THEN_DONE, node, condition);
+                            graph.push(SEQUENCE, ast.first(ast.second(node)), 0);
+                        }
+                        case WHILE -> {
+                            int header = graph.newBlock();
+                            graph.edge(graph.current, header);
+                            graph.current = header;
+                            expressions = graph.uses(ast, ast.first(node), ast.line(node), expressions);
+                            graph.current = graph.newBlock();
+                            graph.edge(header, graph.current);
+                            graph.push(BODY_DONE, header, 0);
+                            graph.push(SEQUENCE, ast.first(ast.second(node)), 0);
+                        }
+                        default -> throw new IllegalStateException("Not a statement: " + ast.kind(node));
+                    }
+                }
+                case THEN_DONE -> {
+                    int thenEnd = graph.current;
+                    int elseBlock = ast.third(a);
+                    if (elseBlock != Ast.NONE) {
+                        graph.current = graph.newBlock();
+                        graph.edge(b, graph.current);
+                        graph.push(ELSE_DONE, thenEnd, 0);
+                        graph.push(SEQUENCE, ast.first(elseBlock), 0);
+                    } else {
+                        graph.current = graph.newBlock();
+                        graph.edge(thenEnd, graph.current);
+                        graph.edge(b, graph.current);
+                    }
+                }
+                case ELSE_DONE -> {
+                    int elseEnd = graph.current;
+                    graph.current = graph.newBlock();
+                    graph.edge(a, graph.current);
+                    graph.edge(elseEnd, graph.current);
+                }
+                case BODY_DONE -> {
+                    graph.edge(graph.current, a);
+                    graph.current = graph.newBlock();
+                    graph.edge(a, graph.current);
+                }
+                default -> throw new IllegalStateException("Unknown task");
+            }
+        }
+        graph.eventEnd[graph.current] = graph.eventCount;
+        graph.linkPredecessors();
+        return graph;
+    }
+
+    // Acceso
+
+    int blockCount() { return blockCount; }
+    int variableCount() { return variableCount; }
+    int eventStart(int block) { return eventStart[block]; }
+    int eventEnd(int block) { return eventEnd[block]; }
+    int successor0(int block) { return successor0[block]; }
+    int successor1(int block) { return successor1[block]; }
+    int predecessorStart(int block) { return predecessorStart[block]; }
+    int predecessorEnd(int block) { return predecessorStart[block + 1]; }
+    int predecessor(int index) { return predecessors[index]; }
+
+    /**
+     * Obtiene un evento: el id de la variable si es un uso, o {@code ~id} (negativo) si es una asignación.
+     */
+    int event(int index) { return events[index]; }
+    int eventLine(int index) { return eventLines[index]; }
+
+    // Construcción
+
+    private int newBlock() {
+        if (blockCount > 0) {
+            eventEnd[current] = eventCount; // El bloque actual ya no recibe eventos
+        }
+        if (blockCount == eventStart.length) {
+            int capacity = blockCount * 2;
+            eventStart = Arrays.copyOf(eventStart, capacity);
+            eventEnd = Arrays.copyOf(eventEnd, capacity);
+            successor0 = Arrays.copyOf(successor0, capacity);
+            successor1 = Arrays.copyOf(successor1, capacity);
+        }
+        eventStart[blockCount] = eventCount;
+        eventEnd[blockCount] = eventCount;
+        successor0[blockCount] = -1;
+        successor1[blockCount] = -1;
+        return blockCount++;
+    }
+
+    private void edge(int from, int to) {
+        if (successor0[from] < 0) {
+            successor0[from] = to;
+        } else {
+            successor1[from] = to;
+        }
+    }
+
+    private void event(int value, int line) {
+        if (eventCount == events.length) {
+            events = Arrays.copyOf(events, eventCount * 2);
+            eventLines = Arrays.copyOf(eventLines, eventCount * 2);
+        }
+        events[eventCount] = value;
+        eventLines[eventCount++] = line;
+    }
+
+    /**
+     * Agrega al bloque actual los usos de las variables de una expresión o condición, de izquierda a derecha.
+     * @param line    Línea de la sentencia de la expresión
+     * @param scratch Pila para recorrer la expresión (se regresa, quizá más grande, para reutilizarla)
+     */
+    private int[] uses(Ast ast, int expression, int line, int[] scratch) {
+        int size = 0;
+        if (expression != Ast.NONE) {
+            scratch[size++] = expression;
+        }
+        while (size > 0) {
+            int node = scratch[--size];
+            if (size + 2 > scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            switch (ast.kind(node)) {
+                case LITERAL -> {
+                    if (ast.literalType(node) == Token.Type.VARIABLE) {
+                        event(ast.first(node), ast.line(node, line));
+                    }
+                }
+                case BINARY, CONDITION -> {
+                    if (ast.second(node) != Ast.NONE) scratch[size++] = ast.second(node);
+                    if (ast.first(node) != Ast.NONE) scratch[size++] = ast.first(node);
+                }
+                case GROUPING -> {
+                    if (ast.first(node) != Ast.NONE) scratch[size++] = ast.first(node);
+                }
+                default -> throw new IllegalStateException("Not an expression: " + ast.kind(node));
+            }
+        }
+        return scratch;
+    }
+
+    private void push(int task, int a, int b) {
+        if (stackSize + 3 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[stackSize++] = a;
+        stack[stackSize++] = b;
+        stack[stackSize++] = task;
+    }
+
+    private void linkPredecessors() {
+        predecessorStart = new int[blockCount + 1];
+        for (int block = 0; block < blockCount; block++) {
+            if (successor0[block] >= 0) predecessorStart[successor0[block] + 1]++;
+            if (successor1[block] >= 0) predecessorStart[successor1[block] + 1]++;
+        }
+        for (int block = 0; block < blockCount; block++) {
+            predecessorStart[block + 1] += predecessorStart[block];
+        }
+        predecessors = new int[predecessorStart[blockCount]];
+        int[] fill = Arrays.copyOf(predecessorStart, blockCount);
+        for (int block = 0; block < blockCount; block++) {
+            if (successor0[block] >= 0) predecessors[fill[successor0[block]]++] = block;
+            if (successor1[block] >= 0) predecessors[fill[successor1[block]]++] = block;
+        }
+    }
+}
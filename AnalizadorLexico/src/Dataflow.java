@@ -0,0 +1,297 @@
+import java.util.Arrays;
+
+/**
+ * Análisis de flujo de datos sobre el {@link ControlFlowGraph} de un programa, con conjuntos de variables
+ * guardados como bits en arreglos {@code long[]} y una lista de trabajo de bloques:
+ * <ul>
+ *     <li>Definiciones que alcanzan (hacia adelante, unión): al inicio del programa cada variable tiene una
+ *         definición ficticia "sin asignar"; si esa definición alcanza un uso, la variable se puede usar
+ *         antes de asignarla ({@link Diagnostic.Code#UNASSIGNED_VARIABLE}).</li>
+ *     <li>Variables vivas (hacia atrás, unión): una asignación cuya variable no está viva justo después
+ *         nunca se lee ({@link Diagnostic.Code#DEAD_STORE}).</li>
+ * </ul>
+ * Solo entran en los conjuntos las variables que se usan en algún bloque antes de asignarse en ese mismo
+ * bloque; las demás no pueden estar sin asignar ni vivas en el límite de un bloque, así que se resuelven
+ * al recorrer su bloque. Las que sí entran se analizan en grupos de {@link #CHUNK}, así que la memoria es
+ * proporcional a los bloques y no a bloques × variables, y el tiempo al tamaño del programa más
+ * bloques × variables de ese tipo / 64 por pasada. Los bloques se visitan en el orden en que aparecen
+ * (al revés para las variables vivas), así que bastan pocas pasadas.
+ */
+final class Dataflow {
+    private static final int CHUNK = 4096;  // Variables por grupo (64 longs por conjunto)
+
+    private final ControlFlowGraph graph;
+    private final SymbolTable names;
+    private final int[] globalIndex;  // Índice en los conjuntos de cada variable, o -1 si solo se usa dentro de su bloque
+    private final int globals;        // Variables que entran en los conjuntos
+    private final int[] worklist;     // Cola circular de bloques por procesar
+    private final boolean[] queued;
+    private int head = 0;
+    private int pending = 0;
+    private int from;                 // Índice de la primera variable del grupo actual
+    private int size;                 // Variables del grupo actual
+    private int words;                // longs por conjunto del grupo actual
+
+    private Dataflow(ControlFlowGraph graph, SymbolTable names) {
+        this.graph = graph;
+        this.names = names;
+        this.globalIndex = new int[graph.variableCount()];
+        Arrays.fill(globalIndex, -1);
+        int globals = 0;
+        long[] assigned = new long[words(graph.variableCount())];
+        for (int block = 0; block < graph.blockCount(); block++) {
+            for (int i = graph.eventStart(block); i < graph.eventEnd(block); i++) {
+                int event = graph.event(i);
+                if (event < 0) {
+                    set(assigned, ~event);
+                } else if (!get(assigned, event) && globalIndex[event] < 0) {
+                    globalIndex[event] = globals++; // Uso antes de asignar en el bloque
+                }
+            }
+            for (int i = graph.eventStart(block); i < graph.eventEnd(block); i++) {
+                int event = graph.event(i);
+                if (event < 0) clear(assigned, ~event); // Limpia solo lo que se tocó
+            }
+        }
+        this.globals = globals;
+        this.worklist = new int[graph.blockCount()];
+        this.queued = new boolean[graph.blockCount()];
+    }
+
+    /**
+     * Analiza un programa y agrega sus advertencias a la lista de errores.
+     * @param ast    Árbol del programa (sin errores de sintaxis)
+     * @param errors Lista donde se agregan las advertencias
+     * @return Número de advertencias encontradas
+     */
+    static int analyze(Ast ast, Diagnostics errors) {
+        Dataflow dataflow = new Dataflow(ControlFlowGraph.build(ast), ast.variables());
+        int count = dataflow.reportLocalDeadStores(errors);
+        for (int first = 0; first < dataflow.globals; first += CHUNK) {
+            dataflow.from = first;
+            dataflow.size = Math.min(CHUNK, dataflow.globals - first);
+            dataflow.words = words(dataflow.size);
+            count += dataflow.reportUnassigned(dataflow.unassigned(), errors);
+            count += dataflow.reportDeadStores(dataflow.live(), errors);
+        }
+        return count;
+    }
+
+    /**
+     * Obtiene el bit de una variable en los conjuntos del grupo actual.
+     * @return El bit, o -1 si la variable no entra en los conjuntos o es de otro grupo
+     */
+    private int bit(int variable) {
+        int bit = globalIndex[variable] - from;
+        return bit >= 0 && bit < size ? bit : -1;
+    }
+
+    /**
+     * Calcula las variables del grupo que pueden estar sin asignar al inicio de cada bloque.
+     * @return Conjunto de cada bloque b en {@code [b * words, (b + 1) * words)}
+     */
+    private long[] unassigned() {
+        int blocks = graph.blockCount();
+        long[] in = new long[blocks * words];
+        long[] out = new long[blocks * words];
+        long[] scratch = new long[words];
+        for (int i = 0; i < size; i++) {
+            set(in, i); // Bloque de entrada: todas sin asignar
+        }
+        for (int block = 0; block < blocks; block++) {
+            enqueue(block);
+        }
+        while (pending > 0) {
+            int block = dequeue();
+
+            // in = unión de los predecesores (la entrada conserva "sin asignar")
+            int base = block * words;
+            if (block != 0) {
+                Arrays.fill(in, base, base + words, 0L);
+                for (int p = graph.predecessorStart(block); p < graph.predecessorEnd(block); p++) {
+                    union(in, base, out, graph.predecessor(p));
+                }
+            }
+
+            // out = in - asignadas en el bloque
+            System.arraycopy(in, base, scratch, 0, words);
+            for (int i = graph.eventStart(block); i < graph.eventEnd(block); i++) {
+                int event = graph.event(i);
+                int bit = event < 0 ? bit(~event) : -1;
+                if (bit >= 0) clear(scratch, bit);
+            }
+            if (Arrays.mismatch(scratch, 0, words, out, base, base + words) >= 0) {
+                System.arraycopy(scratch, 0, out, base, words);
+                enqueue(graph.successor0(block));
+                enqueue(graph.successor1(block));
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Calcula las variables del grupo vivas al final de cada bloque.
+     * @return Conjunto de cada bloque b en {@code [b * words, (b + 1) * words)}
+     */
+    private long[] live() {
+        int blocks = graph.blockCount();
+        long[] in = new long[blocks * words];
+        long[] out = new long[blocks * words];
+        long[] scratch = new long[words];
+        for (int block = blocks - 1; block >= 0; block--) {
+            enqueue(block);
+        }
+        while (pending > 0) {
+            int block = dequeue();
+
+            // out = unión de los sucesores
+            int base = block * words;
+            Arrays.fill(out, base, base + words, 0L);
+            union(out, base, in, graph.successor0(block));
+            union(out, base, in, graph.successor1(block));
+
+            // in = usos antes de asignar + (out - asignadas), recorriendo el bloque hacia atrás
+            System.arraycopy(out, base, scratch, 0, words);
+            for (int i = graph.eventEnd(block) - 1; i >= graph.eventStart(block); i--) {
+                int event = graph.event(i);
+                int bit = bit(event < 0 ? ~event : event);
+                if (bit < 0) continue;
+                if (event < 0) {
+                    clear(scratch, bit);
+                } else {
+                    set(scratch, bit);
+                }
+            }
+            if (Arrays.mismatch(scratch, 0, words, in, base, base + words) >= 0) {
+                System.arraycopy(scratch, 0, in, base, words);
+                for (int p = graph.predecessorStart(block); p < graph.predecessorEnd(block); p++) {
+                    enqueue(graph.predecessor(p));
+                }
+            }
+        }
+        return out;
+    }
+
+    private int reportUnassigned(long[] unassigned, Diagnostics errors) {
+        int count = 0;
+        long[] reported = new long[words]; // Cada variable se reporta una vez, en su primer uso
+        long[] scratch = new long[words];
+        for (int block = 0; block < graph.blockCount(); block++) {
+            System.arraycopy(unassigned, block * words, scratch, 0, words);
+            for (int i = graph.eventStart(block); i < graph.eventEnd(block); i++) {
+                int event = graph.event(i);
+                int bit = bit(event < 0 ? ~event : event);
+                if (bit < 0) continue;
+                if (event < 0) {
+                    clear(scratch, bit);
+                } else if (get(scratch, bit) && !get(reported, bit)) {
+                    set(reported, bit);
+                    errors.add(Diagnostic.Code.UNASSIGNED_VARIABLE, graph.eventLine(i), 0, null, null, names.name(event));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int reportDeadStores(long[] live, Diagnostics errors) {
+        int count = 0;
+        long[] scratch = new long[words];
+        for (int block = 0; block < graph.blockCount(); block++) {
+            System.arraycopy(live, block * words, scratch, 0, words);
+            for (int i = graph.eventEnd(block) - 1; i >= graph.eventStart(block); i--) {
+                int event = graph.event(i);
+                int bit = bit(event < 0 ? ~event : event);
+                if (bit < 0) continue;
+                if (event >= 0) {
+                    set(scratch, bit);
+                    continue;
+                }
+                if (!get(scratch, bit)) {
+                    errors.add(Diagnostic.Code.DEAD_STORE, graph.eventLine(i), 0, null, null, names.name(~event));
+                    count++;
+                }
+                clear(scratch, bit);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reporta las asignaciones muertas de las variables que no entran en los conjuntos: nunca están vivas
+     * al salir de su bloque, así que basta recorrer el bloque hacia atrás.
+     */
+    private int reportLocalDeadStores(Diagnostics errors) {
+        int count = 0;
+        long[] live = new long[words(graph.variableCount())];
+        int[] touched = new int[16];
+        for (int block = 0; block < graph.blockCount(); block++) {
+            int touchedCount = 0;
+            for (int i = graph.eventEnd(block) - 1; i >= graph.eventStart(block); i--) {
+                int event = graph.event(i);
+                int variable = event < 0 ? ~event : event;
+                if (globalIndex[variable] >= 0) continue;
+                if (event < 0) {
+                    if (!get(live, variable)) {
+                        errors.add(Diagnostic.Code.DEAD_STORE, graph.eventLine(i), 0, null, null, names.name(variable));
+                        count++;
+                    }
+                    clear(live, variable);
+                } else if (!get(live, variable)) {
+                    set(live, variable);
+                    if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                    touched[touchedCount++] = variable;
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                clear(live, touched[t]); // Limpia solo lo que se tocó
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Agrega un bloque a la lista de trabajo si no está ya en ella (cada bloque está a lo más una vez).
+     */
+    private void enqueue(int block) {
+        if (block < 0 || queued[block]) return;
+        worklist[(head + pending) % worklist.length] = block;
+        pending++;
+        queued[block] = true;
+    }
+
+    private int dequeue() {
+        int block = worklist[head];
+        head = (head + 1) % worklist.length;
+        pending--;
+        queued[block] = false;
+        return block;
+    }
+
+    /**
+     * Agrega a {@code target[base, base + words)} el conjunto de un bloque de {@code sets} (nada si no hay bloque).
+     */
+    private void union(long[] target, int base, long[] sets, int block) {
+        if (block < 0) return;
+        int start = block * words;
+        for (int w = 0; w < words; w++) {
+            target[base + w] |= sets[start + w];
+        }
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static boolean get(long[] set, int bit) {
+        return (set[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static void set(long[] set, int bit) {
+        set[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void clear(long[] set, int bit) {
+        set[bit >>> 6] &= ~(1L << bit);
+    }
+}
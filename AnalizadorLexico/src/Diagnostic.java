@@ -0,0 +1,114 @@
+/**
+ * Error encontrado durante el análisis léxico o sintáctico.
+ * Solo guarda los datos del error (código, posición, lo que se esperaba y lo que se encontró);
+ * el mensaje se arma hasta que se pide con {@link #getMessage()}.
+ */
+public final class Diagnostic {
+    /**
+     * Tipos de error que pueden reportarse.
+     */
+    public enum Code {
+        UNRECOGNIZED_TOKEN,  // Texto que no corresponde a ningún token
+        UNEXPECTED_TOKEN,    // Token que no puede iniciar una sentencia
+        UNEXPECTED_END,      // La entrada terminó a la mitad de una sentencia
+        EXPECTED,            // Se esperaba un lexema o tipo de token distinto
+        EXPECTED_COMPARISON, // Se esperaba un operador de comparación
+        NESTING_TOO_DEEP,    // Se pasó del máximo de bloques o paréntesis anidados
+        // Advertencias del análisis de flujo de datos (Dataflow)
+        UNASSIGNED_VARIABLE, // Variable que se puede usar antes de asignarla
+        DEAD_STORE,          // Asignación cuyo valor nunca se lee
+        // Errores en los valores iniciales de Main#executeColumns
+        INVALID_VALUE        // Campo del CSV que no es un número
+    }
+
+    private final Code code;
+    private final int line;          // Línea del error (0 si se llegó al final de la entrada)
+    private final int column;        // Columna del error, desde 1 (0 si no se conoce)
+    private final Enum<?> expected;  // Token.Lexeme o Token.Type esperado
+    private final Token.Type found;  // Tipo del token encontrado (null al final de la entrada)
+    private final String foundText;  // Texto encontrado, solo para los códigos que lo muestran
+
+    /**
+     * Constructor de la clase Diagnostic
+     * @param code      Tipo de error
+     * @param line      Línea del error
+     * @param column    Columna del error
+     * @param expected  Lexema o tipo esperado (puede ser null)
+     * @param found     Tipo del token encontrado (puede ser null)
+     * @param foundText Texto encontrado (puede ser null)
+     */
+    public Diagnostic(Code code, int line, int column, Enum<?> expected, Token.Type found, String foundText) {
+        this.code = code;
+        this.line = line;
+        this.column = column;
+        this.expected = expected;
+        this.found = found;
+        this.foundText = foundText;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public Enum<?> getExpected() {
+        return expected;
+    }
+
+    public Token.Type getFound() {
+        return found;
+    }
+
+    public String getFoundText() {
+        return foundText;
+    }
+
+    /**
+     * Crea una copia del error en otra línea.
+     * @param newLine Nueva línea
+     * @return El error en la nueva línea
+     */
+    public Diagnostic withLine(int newLine) {
+        return newLine == line ? this : new Diagnostic(code, newLine, column, expected, found, foundText);
+    }
+
+    /**
+     * Arma el mensaje del error.
+     * @return El mensaje del error
+     */
+    public String getMessage() {
+        String kind = isWarning() ? "Warning: " : code == Code.INVALID_VALUE ? "Data error: " : "Syntax error: ";
+        return kind + switch (code) {
+            case UNRECOGNIZED_TOKEN -> "Token " + foundText + " not recognized " + " at line " + line;
+            case UNEXPECTED_TOKEN -> "Syntax error: Unexpected token " + foundText + " at line " + line;
+            case UNEXPECTED_END -> "Unexpected end of input after line " + line;
+            case EXPECTED -> found == null
+                    ? "Expected " + expected
+                    : "Expected " + expected + " but found " + found + " at line " + line;
+            case EXPECTED_COMPARISON -> "Expected comparison operator" + foundText + " at line " + line;
+            case NESTING_TOO_DEEP -> "Maximum nesting depth exceeded at line " + line;
+            case UNASSIGNED_VARIABLE -> "Variable " + foundText + " may be used before it is assigned at line " + line;
+            case DEAD_STORE -> "Value assigned to " + foundText + " is never used at line " + line;
+            case INVALID_VALUE -> "Invalid number " + foundText + " at line " + line + ", column " + column;
+        };
+    }
+
+    /**
+     * Checa si es una advertencia del análisis de flujo de datos y no un error de sintaxis.
+     */
+    public boolean isWarning() {
+        return code == Code.UNASSIGNED_VARIABLE || code == Code.DEAD_STORE;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lista de errores ordenada por línea.
+ * Los errores se guardan en arreglos primitivos (no se crea un objeto por error hasta que se lee con
+ * {@link #get(int)}) en el orden en que llegan. Casi siempre llegan ya ordenados; si no, se ordenan una sola
+ * vez, por línea y después por orden de llegada, la primera vez que se leen. Se puede fijar un máximo de
+ * errores; los que pasan del máximo solo se cuentan.
+ */
+public class Diagnostics implements Iterable<Diagnostic> {
+    private static final Diagnostic.Code[] CODES = Diagnostic.Code.values();
+
+    private final int limit;
+    private byte[] codes = new byte[8];
+    private int[] lines = new int[8];
+    private int[] columns = new int[8];
+    private Enum<?>[] expected = new Enum<?>[8];
+    private Token.Type[] found = new Token.Type[8];
+    private String[] foundTexts = new String[8];
+    private int size = 0;
+    private int dropped = 0; // Errores que no se guardaron por pasar del máximo
+    private boolean sorted = true; // false si algún error llegó antes que otro de una línea menor
+
+    /**
+     * Constructor de una lista sin máximo de errores.
+     */
+    public Diagnostics() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor de una lista con un máximo de errores.
+     * @param limit Máximo de errores que se guardan
+     */
+    public Diagnostics(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Agrega un error; queda después de los que ya había en la misma línea.
+     * @return false si ya se había llegado al máximo de errores
+     */
+    public boolean add(Diagnostic.Code code, int line, int column, Enum<?> expectedValue, Token.Type foundType, String foundText) {
+        if (size >= limit) {
+            dropped++;
+            return false;
+        }
+        if (size == lines.length) {
+            grow();
+        }
+        if (size > 0 && lines[size - 1] > line) {
+            sorted = false;
+        }
+        codes[size] = (byte) code.ordinal();
+        lines[size] = line;
+        columns[size] = column;
+        expected[size] = expectedValue;
+        found[size] = foundType;
+        foundTexts[size] = foundText;
+        size++;
+        return true;
+    }
+
+    /**
+     * Agrega un error; queda después de los que ya había en la misma línea.
+     * @return false si ya se había llegado al máximo de errores
+     */
+    public boolean add(Diagnostic diagnostic) {
+        return add(diagnostic.getCode(), diagnostic.getLine(), diagnostic.getColumn(), diagnostic.getExpected(),
+                diagnostic.getFound(), diagnostic.getFoundText());
+    }
+
+    /**
+     * Agrega todos los errores de otra lista, moviendo {@code lineDelta} líneas los que tienen línea.
+     * @param other     Lista de errores a agregar
+     * @param lineDelta Líneas que se mueven los errores
+     */
+    public void addAll(Diagnostics other, int lineDelta) {
+        for (int i = 0; i < other.size; i++) {
+            int line = other.lines[i] > 0 ? other.lines[i] + lineDelta : other.lines[i];
+            add(CODES[other.codes[i]], line, other.columns[i], other.expected[i], other.found[i], other.foundTexts[i]);
+        }
+        dropped += other.dropped;
+    }
+
+    public void addAll(Diagnostics other) {
+        addAll(other, 0);
+    }
+
+    /**
+     * Mueve todos los errores {@code delta} líneas (los errores al final de la entrada, con línea 0, no se mueven).
+     */
+    void shift(int delta) {
+        for (int i = 0; i < size; i++) {
+            if (lines[i] > 0) lines[i] += delta;
+        }
+    }
+
+    /**
+     * Borra todos los errores conservando la capacidad de la lista (el máximo no cambia).
+     */
+    void clear() {
+        Arrays.fill(expected, 0, size, null);
+        Arrays.fill(found, 0, size, null);
+        Arrays.fill(foundTexts, 0, size, null);
+        size = 0;
+        dropped = 0;
+        sorted = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checa si ya se llegó al máximo de errores.
+     * @return true si ya no se guardan más errores
+     */
+    public boolean isFull() {
+        return size >= limit;
+    }
+
+    /**
+     * Obtiene el número de errores que no se guardaron por pasar del máximo.
+     * @return Número de errores descartados
+     */
+    public int dropped() {
+        return dropped;
+    }
+
+    public int line(int index) {
+        if (!sorted) sort();
+        return lines[index];
+    }
+
+    public Diagnostic.Code code(int index) {
+        if (!sorted) sort();
+        return CODES[codes[index]];
+    }
+
+    /**
+     * Obtiene un error como objeto.
+     * @param index Posición del error (en orden de línea)
+     * @return El error
+     */
+    public Diagnostic get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException(index);
+        if (!sorted) sort();
+        return new Diagnostic(CODES[codes[index]], lines[index], columns[index], expected[index], found[index], foundTexts[index]);
+    }
+
+    @Override
+    public Iterator<Diagnostic> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Diagnostic next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Ordena los errores por línea, conservando el orden de llegada dentro de la misma línea.
+     * Se ordena una permutación (línea en la parte alta, posición en la baja) y se aplica a todos los arreglos.
+     */
+    private void sort() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) lines[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        byte[] sortedCodes = new byte[codes.length];
+        int[] sortedLines = new int[lines.length];
+        int[] sortedColumns = new int[columns.length];
+        Enum<?>[] sortedExpected = new Enum<?>[expected.length];
+        Token.Type[] sortedFound = new Token.Type[found.length];
+        String[] sortedFoundTexts = new String[foundTexts.length];
+        for (int i = 0; i < size; i++) {
+            int from = (int) keys[i];
+            sortedCodes[i] = codes[from];
+            sortedLines[i] = lines[from];
+            sortedColumns[i] = columns[from];
+            sortedExpected[i] = expected[from];
+            sortedFound[i] = found[from];
+            sortedFoundTexts[i] = foundTexts[from];
+        }
+        codes = sortedCodes;
+        lines = sortedLines;
+        columns = sortedColumns;
+        expected = sortedExpected;
+        found = sortedFound;
+        foundTexts = sortedFoundTexts;
+        sorted = true;
+    }
+
+    private void grow() {
+        int capacity = lines.length * 2;
+        codes = Arrays.copyOf(codes, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        expected = Arrays.copyOf(expected, capacity);
+        found = Arrays.copyOf(found, capacity);
+        foundTexts = Arrays.copyOf(foundTexts, capacity);
+    }
+}
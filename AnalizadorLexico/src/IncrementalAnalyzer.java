@@ -0,0 +1,361 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Análisis incremental de un documento que se edita constantemente (por ejemplo, desde un editor).
+ * Se guardan los tokens por línea y el resultado de cada sentencia de nivel superior; después de una
+ * edición solo se vuelven a analizar las líneas editadas y las sentencias que las contienen, hasta que
+ * el parser llega al inicio de una sentencia que ya existía (desde ahí el resultado no cambia).
+ * <p>
+ * El resultado es el mismo que el de analizar el documento completo con {@link Lexer} y {@link Parser}.
+ */
+class IncrementalAnalyzer {
+    private static final Token[] NO_TOKENS = new Token[0];
+
+    private final ArrayList<String> lines = new ArrayList<>();
+    private final ArrayList<Token[]> lineTokens = new ArrayList<>();
+    private final ArrayList<Diagnostics> lineErrors = new ArrayList<>(); // null si la línea no tiene errores
+    private final ArrayList<Segment> segments = new ArrayList<>(); // Sentencias de nivel superior, en orden
+    private int shiftFrom = 0;         // Las sentencias desde este índice tienen un desplazamiento de líneas pendiente
+    private int shiftDelta = 0;        // Desplazamiento de líneas pendiente
+
+    /**
+     * Sentencia de nivel superior (con los tokens que se saltaron al recuperarse de un error).
+     * Las posiciones se codifican como (índice de línea << 32 | índice del token en la línea).
+     */
+    private static class Segment {
+        long start;
+        long end;
+        final Diagnostics errors = new Diagnostics();
+        final ArrayList<String> descriptions = new ArrayList<>();
+        int[] validLines = new int[1];
+
+        void addValid(String description, int line) {
+            if (descriptions.size() == validLines.length) {
+                validLines = Arrays.copyOf(validLines, validLines.length * 2);
+            }
+            validLines[descriptions.size()] = line;
+            descriptions.add(description);
+        }
+
+        void shift(int delta) {
+            start = shift(start, delta);
+            end = shift(end, delta);
+            for (int i = 0; i < descriptions.size(); i++) {
+                validLines[i] += delta;
+            }
+            errors.shift(delta);
+        }
+
+        private static long shift(long position, int delta) {
+            return pack(line(position) + delta, index(position));
+        }
+    }
+
+    /**
+     * Constructor de la clase IncrementalAnalyzer; realiza el análisis completo del texto inicial.
+     * @param text Texto inicial del documento
+     */
+    public IncrementalAnalyzer(String text) {
+        for (String line : text.split("\n", -1)) {
+            lines.add(line);
+            lineTokens.add(NO_TOKENS);
+            lineErrors.add(null);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            lexLine(i);
+        }
+        Cursor cursor = new Cursor(0);
+        while (!cursor.isAtEnd()) {
+            segments.add(parseSegment(cursor));
+        }
+        shiftFrom = segments.size();
+    }
+
+    /**
+     * Aplica una edición al documento y actualiza el análisis.
+     * @param startLine   Línea donde empieza el texto reemplazado (desde 1)
+     * @param startColumn Columna donde empieza el texto reemplazado (desde 0)
+     * @param endLine     Línea donde termina el texto reemplazado (desde 1)
+     * @param endColumn   Columna (exclusiva) donde termina el texto reemplazado (desde 0)
+     * @param text        Texto nuevo, puede contener saltos de línea
+     */
+    public void edit(int startLine, int startColumn, int endLine, int endColumn, String text) {
+        int first = startLine - 1;
+        int last = endLine - 1;
+        String[] replaced = (lines.get(first).substring(0, startColumn) + text + lines.get(last).substring(endColumn)).split("\n", -1);
+        int delta = replaced.length - (last - first + 1);
+        int newLast = last + delta;
+
+        // La primera sentencia afectada es la primera cuyo token siguiente (lookahead) está en o después de la edición
+        int affected = firstSegmentEndingAtOrAfter(pack(first, 0));
+        long resume = affected == 0 ? 0 : start(affected);
+        int following = affected; // Primera sentencia que empieza después de las líneas editadas
+        while (following < segments.size() && line(start(following)) <= last) following++;
+
+        replaceLines(first, last, replaced);
+        if (delta != 0) {
+            addShift(following, delta);
+            for (int i = affected; i < following; i++) {
+                if (line(segments.get(i).start) >= first) {
+                    segments.get(i).start = -1; // Empezaba en las líneas editadas, ya no se puede reutilizar
+                }
+            }
+        }
+
+        // Se vuelve a parsear hasta llegar al inicio de una sentencia que no cambió
+        Cursor cursor = new Cursor(resume);
+        ArrayList<Segment> fresh = new ArrayList<>();
+        int reuse = affected;
+        while (true) {
+            if (cursor.isAtEnd()) {
+                reuse = segments.size();
+                break;
+            }
+            long position = cursor.position();
+            if (cursor.line > newLast) {
+                while (reuse < segments.size() && start(reuse) < position) reuse++;
+                if (reuse < segments.size() && start(reuse) == position) break;
+            }
+            fresh.add(parseSegment(cursor));
+        }
+        replaceSegments(affected, reuse, fresh);
+    }
+
+    /**
+     * Registra que las sentencias desde {@code from} se movieron {@code delta} líneas. El desplazamiento
+     * se guarda como pendiente para todas las sentencias siguientes y solo se aplica a las que quedan entre
+     * la edición anterior y la actual, así que editar cerca del mismo lugar no recorre todo el documento.
+     */
+    private void addShift(int from, int delta) {
+        if (shiftDelta == 0) {
+            shiftFrom = from;
+        } else if (shiftFrom < from) {
+            applyShift(shiftFrom, from, shiftDelta);
+            shiftFrom = from;
+        } else {
+            applyShift(from, shiftFrom, delta);
+        }
+        shiftDelta += delta;
+    }
+
+    private void applyShift(int from, int to, int delta) {
+        for (int i = from; i < to; i++) {
+            segments.get(i).shift(delta);
+        }
+    }
+
+    /**
+     * Reemplaza las sentencias [from, to) por las que se acaban de parsear.
+     */
+    private void replaceSegments(int from, int to, ArrayList<Segment> fresh) {
+        if (shiftFrom < to) {
+            applyShift(shiftFrom, to, shiftDelta);
+            shiftFrom = to;
+        }
+        if (fresh.size() == to - from) {
+            for (int i = 0; i < fresh.size(); i++) {
+                segments.set(from + i, fresh.get(i));
+            }
+        } else {
+            segments.subList(from, to).clear();
+            segments.addAll(from, fresh);
+        }
+        shiftFrom += fresh.size() - (to - from);
+        if (shiftFrom == segments.size()) {
+            shiftDelta = 0;
+        }
+    }
+
+    // Posiciones de una sentencia incluyendo el desplazamiento pendiente
+    private long start(int index) {
+        Segment segment = segments.get(index);
+        return index >= shiftFrom ? Segment.shift(segment.start, shiftDelta) : segment.start;
+    }
+
+    private long end(int index) {
+        Segment segment = segments.get(index);
+        return index >= shiftFrom ? Segment.shift(segment.end, shiftDelta) : segment.end;
+    }
+
+    /**
+     * Obtiene todos los errores léxicos y sintácticos del documento, ordenados por línea.
+     * @return Lista de errores
+     */
+    public Diagnostics errors() {
+        // Las líneas de los errores se corrigen aquí, así que mover líneas no obliga a volver a analizarlas
+        Diagnostics errors = new Diagnostics();
+        for (int i = 0; i < lineErrors.size(); i++) {
+            Diagnostics lexical = lineErrors.get(i);
+            if (lexical != null) errors.addAll(lexical, i + 1 - lexical.line(0));
+        }
+        for (int index = 0; index < segments.size(); index++) {
+            errors.addAll(segments.get(index).errors, index >= shiftFrom ? shiftDelta : 0);
+        }
+        return errors;
+    }
+
+    /**
+     * Obtiene los mensajes de las sentencias válidas del documento, en el orden en que se reconocieron.
+     * @return Lista de mensajes
+     */
+    public List<String> validStatements() {
+        ArrayList<String> messages = new ArrayList<>();
+        for (int index = 0; index < segments.size(); index++) {
+            Segment segment = segments.get(index);
+            int shift = index >= shiftFrom ? shiftDelta : 0;
+            for (int i = 0; i < segment.descriptions.size(); i++) {
+                messages.add("Valid " + segment.descriptions.get(i) + " statement at line " + (segment.validLines[i] + shift));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Obtiene los tokens del documento, en orden y con su línea actual.
+     * @return Lista de tokens
+     */
+    public List<Token> tokens() {
+        ArrayList<Token> tokens = new ArrayList<>();
+        for (Cursor cursor = new Cursor(0); !cursor.isAtEnd(); cursor.advance()) {
+            tokens.add(cursor.token());
+        }
+        return tokens;
+    }
+
+    /**
+     * Obtiene el texto actual del documento.
+     * @return El texto del documento
+     */
+    public String text() {
+        return String.join("\n", lines);
+    }
+
+    public int lineCount() {
+        return lines.size();
+    }
+
+    private void replaceLines(int first, int last, String[] replaced) {
+        int oldCount = last - first + 1;
+        if (replaced.length != oldCount) {
+            lines.subList(first, last + 1).clear();
+            lineTokens.subList(first, last + 1).clear();
+            lineErrors.subList(first, last + 1).clear();
+            lines.addAll(first, Arrays.asList(replaced));
+            lineTokens.addAll(first, Collections.nCopies(replaced.length, NO_TOKENS));
+            lineErrors.addAll(first, Collections.nCopies(replaced.length, null));
+        } else {
+            for (int i = 0; i < replaced.length; i++) {
+                lines.set(first + i, replaced[i]);
+            }
+        }
+        for (int i = 0; i < replaced.length; i++) {
+            lexLine(first + i);
+        }
+    }
+
+    private void lexLine(int index) {
+        Diagnostics errors = new Diagnostics();
+        String line = lines.get(index);
+        ArrayList<Token> tokens = new Lexer(line, 0, line.length(), index + 1, errors).tokenize();
+        lineTokens.set(index, tokens.isEmpty() ? NO_TOKENS : tokens.toArray(NO_TOKENS));
+        lineErrors.set(index, errors.isEmpty() ? null : errors);
+    }
+
+    private Segment parseSegment(Cursor cursor) {
+        Segment segment = new Segment();
+        segment.start = cursor.position();
+        Parser parser = new IterativeParser(cursor, segment.errors, Reporter.NONE) {
+            @Override
+            void statementParsed(String description, int line) {
+                segment.addValid(description, line);
+            }
+        };
+        parser.parseNext();
+        segment.end = cursor.position();
+        return segment;
+    }
+
+    private int firstSegmentEndingAtOrAfter(long position) {
+        int low = 0;
+        int high = segments.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (end(middle) < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return Math.min(low, Math.max(segments.size() - 1, 0));
+    }
+
+    private static long pack(int line, int index) {
+        return ((long) line << 32) | index;
+    }
+
+    private static int line(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int index(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Fuente de tokens que recorre los tokens por línea a partir de una posición.
+     * El número de línea de cada token se corrige al leerlo, así que al insertar o borrar líneas
+     * no hace falta recorrer los tokens que quedan después.
+     */
+    private class Cursor implements TokenSource {
+        private int line;
+        private int index;
+
+        Cursor(long position) {
+            this.line = IncrementalAnalyzer.line(position);
+            this.index = IncrementalAnalyzer.index(position);
+            skipEmptyLines();
+        }
+
+        private void skipEmptyLines() {
+            while (line < lines.size() && index >= lineTokens.get(line).length) {
+                line++;
+                index = 0;
+            }
+        }
+
+        long position() {
+            return pack(line, index);
+        }
+
+        @Override
+        public boolean isAtEnd() {
+            return line >= lines.size();
+        }
+
+        @Override
+        public Token token() {
+            if (isAtEnd()) return null;
+            Token token = lineTokens.get(line)[index];
+            if (token.getLineNumber() != line + 1) {
+                token.setLineNumber(line + 1);
+            }
+            return token;
+        }
+
+        @Override
+        public int lineNumber() {
+            return isAtEnd() ? 0 : line + 1;
+        }
+
+        @Override
+        public void advance() {
+            if (!isAtEnd()) {
+                index++;
+                skipEmptyLines();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Ejecuta un {@link Program}. Los valores de las variables están en un arreglo {@code long[]} indexado
+ * por slot y las operaciones se despachan con un {@code switch} sobre el código de instrucción, sin
+ * objetos ni llamadas virtuales en el ciclo principal.
+ * <p>
+ * Cada asignación y cada evaluación de una condición cuentan como un paso; al llegar al máximo de
+ * pasos la ejecución se detiene, así que un ciclo infinito no ocupa un núcleo indefinidamente.
+ */
+class Interpreter {
+    /**
+     * Forma en que terminó una ejecución.
+     */
+    enum Status {
+        FINISHED,         // Se ejecutó todo el programa
+        STEP_LIMIT,       // Se llegó al máximo de pasos
+        DIVISION_BY_ZERO  // Se dividió entre cero
+    }
+
+    /**
+     * Resultado de una ejecución.
+     * @param status Forma en que terminó
+     * @param steps  Pasos ejecutados
+     * @param line   Línea donde se detuvo (0 si terminó el programa)
+     */
+    record Result(Status status, long steps, int line) {
+    }
+
+    private final Program program;
+    private final long[] frame;
+
+    /**
+     * Constructor de la clase Interpreter; todas las variables empiezan en 0.
+     * @param program Programa a ejecutar
+     */
+    public Interpreter(Program program) {
+        this.program = program;
+        this.frame = new long[program.slotCount()];
+    }
+
+    /**
+     * Obtiene los valores de las variables, indexados por slot (ver {@link Program#variable(int)}).
+     * @return Arreglo con los valores de las variables
+     */
+    public long[] frame() {
+        return frame;
+    }
+
+    /**
+     * Ejecuta el programa desde el inicio sobre los valores actuales de las variables.
+     * @param maxSteps Máximo de pasos (asignaciones y condiciones evaluadas)
+     * @return El resultado de la ejecución
+     */
+    public Result run(long maxSteps) {
+        final int[] code = program.code();
+        final long[] constants = program.constants();
+        final long[] frame = this.frame;
+        final long[] stack = new long[program.maxStack() + 1];
+        int sp = 0;
+        int pc = 0;
+        long steps = 0;
+        while (true) {
+            int opcode = code[pc];
+            switch (opcode) {
+                case Program.CONST -> {
+                    stack[sp++] = constants[code[pc + 1]];
+                    pc += 2;
+                }
+                case Program.LOAD -> {
+                    stack[sp++] = frame[code[pc + 1]];
+                    pc += 2;
+                }
+                case Program.STORE -> {
+                    if (steps++ == maxSteps) {
+                        return new Result(Status.STEP_LIMIT, maxSteps, program.lines()[pc]);
+                    }
+                    frame[code[pc + 1]] = stack[--sp];
+                    pc += 2;
+                }
+                case Program.ADD -> {
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    pc++;
+                }
+                case Program.SUBTRACT -> {
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    pc++;
+                }
+                case Program.MULTIPLY -> {
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    pc++;
+                }
+                case Program.DIVIDE -> {
+                    sp--;
+                    if (stack[sp] == 0) {
+                        return new Result(Status.DIVISION_BY_ZERO, steps, program.lines()[pc]);
+                    }
+                    stack[sp - 1] /= stack[sp];
+                    pc++;
+                }
+                case Program.JUMP -> pc = code[pc + 1];
+                case Program.HALT -> {
+                    return new Result(Status.FINISHED, steps, 0);
+                }
+                default -> {
+                    // Saltos condicionales
+                    if (steps++ == maxSteps) {
+                        return new Result(Status.STEP_LIMIT, maxSteps, program.lines()[pc]);
+                    }
+                    long right = stack[--sp];
+                    long left = stack[--sp];
+                    boolean holds = switch (opcode) {
+                        case Program.UNLESS_EQUAL -> left == right;
+                        case Program.UNLESS_NOT_EQUAL -> left != right;
+                        case Program.UNLESS_LESS -> left < right;
+                        case Program.UNLESS_LESS_EQUAL -> left <= right;
+                        case Program.UNLESS_GREATER -> left > right;
+                        default -> left >= right;
+                    };
+                    pc = holds ? pc + 2 : code[pc + 1];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+import java.util.Arrays;
+
+/**
+ * Parser que reconoce la misma gramática, reporta los mismos errores y construye el mismo árbol que
+ * {@link Parser}, pero sin recursión: lo que falta por reconocer de cada bloque, condición o expresión se
+ * guarda como estados en una pila de enteros en el heap, y los nodos a medio construir en otra. Así la
+ * profundidad de anidamiento solo está limitada por la memoria (o por el máximo que se indique) y un
+ * programa muy anidado no provoca un {@link StackOverflowError}.
+ */
+class IterativeParser extends Parser {
+    // Estados de la pila: cada uno es lo que falta por hacer en una regla de la gramática
+    private static final int STATEMENT = 0;          // Una sentencia completa
+    private static final int ASSIGNMENT_END = 1;     // ';' de una asignación
+    private static final int CONDITION = 2;          // Operandos y operador de comparación de una condición
+    private static final int CONDITION_END = 3;      // Checa la comparación y ')' de una condición
+    private static final int IF_THEN = 4;            // 'then' de un if
+    private static final int THEN_BLOCK = 5;         // Sentencias del bloque then, 'else' o 'endif'
+    private static final int ELSE_BLOCK = 6;         // Sentencias del bloque else y 'endif'
+    private static final int WHILE_DO = 7;           // 'do' de un while
+    private static final int WHILE_BLOCK = 8;        // Sentencias del bloque y 'endwhile'
+    private static final int APPEND_SECOND = 9;      // Agrega la sentencia al bloque then o al cuerpo del while
+    private static final int APPEND_THIRD = 10;      // Agrega la sentencia al bloque else
+    private static final int EXPRESSION = 11;        // Una expresión completa
+    private static final int GROUPING_END = 12;      // ')' de una expresión entre paréntesis y el resto de la expresión de afuera
+
+    private static final int START = -2; // Para expression(): todavía no se lee el primer operando
+    private static final Token.Lexeme[] LEXEMES = Token.Lexeme.values();
+
+    private final int maxDepth;
+    private int[] stack = new int[64];
+    private int size = 0;
+    private int[] nodes = new int[64]; // Nodos a medio construir y resultados de las reglas ya reconocidas
+    private int nodeCount = 0;
+    private int depth = 0; // Bloques y paréntesis abiertos
+    private int[] blockStates = new int[16]; // Posición en la pila de estados del estado de cada bloque abierto, por nivel
+    private int deepest = 0; // Máximo de depth en todo el análisis
+
+    /**
+     * Constructor sin límite de anidamiento.
+     * @param source   Fuente de tokens
+     * @param errors   Lista donde se agregan los errores encontrados
+     * @param reporter Destino de las sentencias válidas
+     */
+    public IterativeParser(TokenSource source, Diagnostics errors, Reporter reporter) {
+        this(source, errors, reporter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor con un máximo de bloques y paréntesis anidados.
+     * @param source   Fuente de tokens
+     * @param errors   Lista donde se agregan los errores encontrados
+     * @param reporter Destino de las sentencias válidas
+     * @param maxDepth Máximo de bloques y paréntesis anidados
+     */
+    public IterativeParser(TokenSource source, Diagnostics errors, Reporter reporter, int maxDepth) {
+        super(source, errors, reporter);
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    void parseNext() {
+        int mark = ast().size();
+        startStatement();
+        size = 0;
+        nodeCount = 0;
+        depth = 0;
+        push(STATEMENT);
+        while (true) {
+            try {
+                run();
+                break;
+            } catch (SyntaxException e) {
+                // El error ya se agregó a la lista; se sincroniza y se sigue en el bloque que indique
+                int level = synchronize();
+                if (level == 0) break;
+                resume(level);
+            }
+        }
+        statementCompleted(mark, nodeCount > 0 ? nodes[0] : Ast.NONE);
+    }
+
+    /**
+     * Regresa las pilas al bloque abierto de un nivel para seguir con sus sentencias después de un error.
+     * El estado de cada bloque abierto (IF_THEN, WHILE_DO, THEN_BLOCK, ELSE_BLOCK o WHILE_BLOCK) se queda en
+     * la misma posición de la pila de estados mientras está abierto, y su if o while está en la pila de nodos
+     * en la posición nivel - 1. Si el error fue en la condición, el bloque empieza ahí.
+     * @param level Nivel del bloque (desde 1)
+     */
+    private void resume(int level) {
+        size = blockStates[level - 1] + 1;
+        nodeCount = level;
+        depth = level;
+        int state = stack[size - 1];
+        if (state == IF_THEN || state == WHILE_DO) {
+            ast().setSecond(topNode(), block());
+            stack[size - 1] = state == IF_THEN ? THEN_BLOCK : WHILE_BLOCK;
+        }
+    }
+
+    /**
+     * Procesa los estados de la pila hasta terminar la sentencia de nivel superior.
+     */
+    private void run() throws SyntaxException {
+        TokenSource source = source();
+        Ast ast = ast();
+        while (size > 0) {
+            switch (stack[--size]) {
+                case STATEMENT -> {
+                    if (isAtEnd()) {
+                        throw unexpectedEnd();
+                    }
+                    if (source.type() == Token.Type.VARIABLE) {
+                        ast.setStatementLine(source.lineNumber());
+                        pushNode(ast.assignment(position(), source.lineNumber(), source.intern(ast.variables()), Ast.NONE));
+                        advance();
+                        consume(Token.Lexeme.ASSIGN);
+                        push(ASSIGNMENT_END);
+                        push(EXPRESSION);
+                    } else if (source.lexeme() == Token.Lexeme.IF) {
+                        ast.setStatementLine(source.lineNumber());
+                        pushNode(ast.ifStatement(position(), source.lineNumber(), Ast.NONE, Ast.NONE, Ast.NONE));
+                        advance();
+                        markBlock(openIf());
+                        push(IF_THEN); // Antes de lo que puede fallar, para que resume() encuentre el bloque
+                        push(CONDITION_END);
+                        push(CONDITION);
+                        enter();
+                        consume(Token.Lexeme.OPEN_PARENTHESIS);
+                    } else if (source.lexeme() == Token.Lexeme.WHILE) {
+                        ast.setStatementLine(source.lineNumber());
+                        pushNode(ast.whileStatement(position(), source.lineNumber(), Ast.NONE, Ast.NONE));
+                        advance();
+                        markBlock(openWhile());
+                        push(WHILE_DO);
+                        push(CONDITION_END);
+                        push(CONDITION);
+                        enter();
+                        consume(Token.Lexeme.OPEN_PARENTHESIS);
+                    } else {
+                        throw unexpectedToken();
+                    }
+                }
+                case ASSIGNMENT_END -> {
+                    consume(Token.Lexeme.SEMICOLON);
+                    int value = popNode();
+                    ast.setSecond(topNode(), value);
+                    statementParsed("assignment", previousLine());
+                }
+                case CONDITION -> expression(nodeCount, COMPARISON, START);
+                case CONDITION_END -> {
+                    int condition = topNode();
+                    if (condition == Ast.NONE || ast.kind(condition) != Ast.Kind.CONDITION) {
+                        if (isAtEnd()) {
+                            throw unexpectedEnd();
+                        }
+                        throw expectedComparison();
+                    }
+                    consume(Token.Lexeme.CLOSURE_PARENTHESIS);
+                }
+                case IF_THEN -> {
+                    startBlock();
+                    push(THEN_BLOCK);
+                    consume(Token.Lexeme.THEN);
+                    headerParsed();
+                }
+                case WHILE_DO -> {
+                    startBlock();
+                    push(WHILE_BLOCK);
+                    consume(Token.Lexeme.DO);
+                    headerParsed();
+                }
+                case THEN_BLOCK -> {
+                    if (check(Token.Lexeme.ELSE)) {
+                        ast.setThird(topNode(), block());
+                        advance();
+                        openElse();
+                        push(ELSE_BLOCK);
+                    } else if (check(Token.Lexeme.ENDIF)) {
+                        advance();
+                        depth--;
+                        if (closeBlock()) {
+                            statementParsed("if then", previousLine());
+                        }
+                    } else {
+                        push(THEN_BLOCK);
+                        push(APPEND_SECOND);
+                        push(STATEMENT);
+                    }
+                }
+                case ELSE_BLOCK -> {
+                    if (check(Token.Lexeme.ENDIF)) {
+                        advance();
+                        depth--;
+                        if (closeBlock()) {
+                            statementParsed("if then", previousLine());
+                        }
+                    } else {
+                        push(ELSE_BLOCK);
+                        push(APPEND_THIRD);
+                        push(STATEMENT);
+                    }
+                }
+                case WHILE_BLOCK -> {
+                    if (check(Token.Lexeme.ENDWHILE)) {
+                        advance();
+                        depth--;
+                        if (closeBlock()) {
+                            statementParsed("while", previousLine());
+                        }
+                    } else {
+                        push(WHILE_BLOCK);
+                        push(APPEND_SECOND);
+                        push(STATEMENT);
+                    }
+                }
+                case APPEND_SECOND -> {
+                    int statement = popNode();
+                    ast.append(ast.second(topNode()), statement);
+                }
+                case APPEND_THIRD -> {
+                    int statement = popNode();
+                    ast.append(ast.third(topNode()), statement);
+                }
+                case EXPRESSION -> expression(nodeCount, ADDITIVE, START);
+                case GROUPING_END -> {
+                    consume(Token.Lexeme.CLOSURE_PARENTHESIS);
+                    depth--;
+                    int expression = popNode();
+                    int line = popNode();
+                    int token = popNode();
+                    int grouping = ast.grouping(token, line, expression);
+                    int minPrecedence = popNode();
+                    int base = popNode();
+                    expression(base, minPrecedence, grouping);
+                }
+                default -> throw new IllegalStateException("Unknown parser state");
+            }
+        }
+    }
+
+    /**
+     * Asigna la condición que está en la pila al if o while de abajo y le crea su bloque (then o cuerpo).
+     */
+    private void startBlock() {
+        int condition = popNode();
+        ast().setFirst(topNode(), condition);
+        ast().setSecond(topNode(), block());
+    }
+
+    /**
+     * Reconoce una expresión con un ciclo y la tabla de precedencia de {@link Parser}, en lugar de una regla
+     * por nivel. De cada operación pendiente se guardan en la pila de nodos (arriba de {@code base}) el operando
+     * izquierdo, el token, la línea y el operador, y el nodo se crea hasta leer el derecho, para que el árbol
+     * pueda compartir subexpresiones iguales ({@link Ast#binary}); al leer un operador se completan las
+     * pendientes de igual o mayor precedencia, así que los operadores del mismo nivel se agrupan a la izquierda. Una comparación
+     * sube {@code minPrecedence} para que no se pueda encadenar otra. Al encontrar '(' se guarda el estado en
+     * la pila y se continúa en {@link #GROUPING_END}; al terminar, el nodo de la expresión queda en la pila de nodos.
+     * @param base          Tamaño de la pila de nodos sin las operaciones pendientes de esta expresión
+     * @param minPrecedence Precedencia mínima de los operadores que se aceptan
+     * @param operand       Operando que ya se leyó, o {@link #START} si hay que leer el primero
+     */
+    private void expression(int base, int minPrecedence, int operand) throws SyntaxException {
+        TokenSource source = source();
+        Ast ast = ast();
+        while (true) {
+            if (operand == START) {
+                // Igual que en Parser, si no hay un primario no se consume nada y no es error
+                if (checkType(Token.Type.NUMBER) || checkType(Token.Type.VARIABLE)) {
+                    operand = literal();
+                } else if (check(Token.Lexeme.OPEN_PARENTHESIS)) {
+                    pushNode(base);
+                    pushNode(minPrecedence);
+                    pushNode(position());
+                    pushNode(source.lineNumber());
+                    advance();
+                    enter();
+                    push(GROUPING_END);
+                    push(EXPRESSION);
+                    return;
+                } else {
+                    operand = Ast.NONE;
+                }
+            }
+            int precedence = isAtEnd() ? 0 : precedence(source.lexeme());
+            if (precedence < minPrecedence) {
+                precedence = 0; // Termina la expresión
+            }
+            while (nodeCount > base && precedence(LEXEMES[topNode()]) >= precedence) {
+                Token.Lexeme operator = LEXEMES[popNode()];
+                int line = popNode();
+                int token = popNode();
+                int left = popNode();
+                operand = precedence(operator) == COMPARISON
+                        ? ast.condition(token, line, left, operator, operand)
+                        : ast.binary(token, line, left, operator, operand);
+            }
+            pushNode(operand);
+            if (precedence == 0) {
+                return;
+            }
+            pushNode(position());
+            pushNode(source.lineNumber());
+            pushNode(source.lexeme().ordinal());
+            if (precedence == COMPARISON) {
+                minPrecedence = COMPARISON + 1;
+            }
+            advance();
+            operand = START;
+        }
+    }
+
+    /**
+     * Registra que se abrió un bloque o un paréntesis y checa el máximo de anidamiento.
+     */
+    private void enter() throws SyntaxException {
+        if (++depth > deepest) {
+            deepest = depth;
+        }
+        if (depth > maxDepth) {
+            throw fatalError(Diagnostic.Code.NESTING_TOO_DEEP, previousLine(), 0);
+        }
+    }
+
+    @Override
+    int maxNesting() {
+        return deepest;
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        deepest = 0;
+    }
+
+    /**
+     * Guarda dónde va a quedar el estado del bloque que se abrió (el siguiente que se agrega a la pila).
+     */
+    private void markBlock(int level) {
+        if (level > blockStates.length) {
+            blockStates = Arrays.copyOf(blockStates, level * 2);
+        }
+        blockStates[level - 1] = size;
+    }
+
+    private void push(int state) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size++] = state;
+    }
+
+    private void pushNode(int node) {
+        if (nodeCount == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodeCount * 2);
+        }
+        nodes[nodeCount++] = node;
+    }
+
+    private int popNode() {
+        return nodes[--nodeCount];
+    }
+
+    private int topNode() {
+        return nodes[nodeCount - 1];
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Reporter en formato JSON Lines: un objeto por evento, uno por línea. Por ejemplo:
+ * <pre>
+ * {"event":"start","file":"input1.txt","length":120}
+ * {"event":"token","line":1,"column":1,"type":"CONDITIONAL_OPERAND","lexeme":"IF","value":"if"}
+ * {"event":"statement","kind":"assignment","line":2}
+ * {"event":"error","code":"EXPECTED","line":4,"column":7,"message":"Syntax error: Expected THEN at line 4"}
+ * {"event":"error_limit","errors":10}
+ * {"event":"end","file":"input1.txt","errors":1}
+ * </pre>
+ * En modo streaming el evento {@code start} no tiene {@code length} y no hay eventos {@code token}.
+ */
+class JsonLinesReporter implements Reporter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ReportBuffer out;
+
+    public JsonLinesReporter(ReportBuffer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void startFile(String fileName, String input) {
+        out.put("{\"event\":\"start\",\"file\":");
+        string(fileName);
+        if (input != null) {
+            out.put(",\"length\":");
+            out.putDecimal(input.length());
+        }
+        out.put("}\n");
+    }
+
+    @Override
+    public void token(Token token) {
+        out.put("{\"event\":\"token\",\"line\":");
+        out.putDecimal(token.getLineNumber());
+        out.put(",\"column\":");
+        out.putDecimal(token.getColumn());
+        out.put(",\"type\":\"");
+        out.put(token.getType().name());
+        out.put("\",\"lexeme\":");
+        if (token.getLexeme() == null) {
+            out.put("null");
+        } else {
+            out.put('"');
+            out.put(token.getLexeme().name());
+            out.put('"');
+        }
+        out.put(",\"value\":");
+        string(token.getValue());
+        out.put("}\n");
+    }
+
+    @Override
+    public void statement(String description, int line) {
+        out.put("{\"event\":\"statement\",\"kind\":\"");
+        out.put(description);
+        out.put("\",\"line\":");
+        out.putDecimal(line);
+        out.put("}\n");
+    }
+
+    @Override
+    public void optimization(String message) {
+        out.put("{\"event\":\"optimization\",\"message\":");
+        string(message);
+        out.put("}\n");
+    }
+
+    @Override
+    public void error(Diagnostic error) {
+        out.put("{\"event\":\"error\",\"code\":\"");
+        out.put(error.getCode().name());
+        out.put("\",\"line\":");
+        out.putDecimal(error.getLine());
+        out.put(",\"column\":");
+        out.putDecimal(error.getColumn());
+        out.put(",\"message\":");
+        string(error.getMessage());
+        out.put("}\n");
+    }
+
+    @Override
+    public void errorLimit(int count) {
+        out.put("{\"event\":\"error_limit\",\"errors\":");
+        out.putDecimal(count);
+        out.put("}\n");
+    }
+
+    @Override
+    public void endFile(String fileName, int errors) {
+        out.put("{\"event\":\"end\",\"file\":");
+        string(fileName);
+        out.put(",\"errors\":");
+        out.putDecimal(errors);
+        out.put("}\n");
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * Escribe una cadena JSON, escapando comillas, diagonales invertidas y caracteres de control.
+     */
+    private void string(String text) {
+        out.put('"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.put(text, start, i);
+                out.put('\\');
+                switch (c) {
+                    case '"', '\\' -> out.put(c);
+                    case '\n' -> out.put('n');
+                    case '\r' -> out.put('r');
+                    case '\t' -> out.put('t');
+                    default -> {
+                        out.put("u00");
+                        out.put(HEX[c >> 4]);
+                        out.put(HEX[c & 0xf]);
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        out.put(text, start, text.length());
+        out.put('"');
+    }
+}
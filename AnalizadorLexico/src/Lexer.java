@@ -0,0 +1,424 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Analizador léxico basado en un único autómata finito determinista (DFA).
+ * El autómata se construye una sola vez a partir de los patrones de {@link Token.Type}
+ * y de los lexemas de {@link Token.Lexeme}. Después cada carácter de la entrada cuesta
+ * una consulta a la tabla de transiciones y siempre se toma el token más largo (maximal munch),
+ * por lo que la entrada ya no depende de los espacios entre tokens.
+ * <p>
+ * La entrada puede ser una cadena completa o un {@link Reader}; en el segundo caso los caracteres
+ * se leen en una ventana de tamaño fijo y los tokens se entregan bajo demanda como {@link TokenSource},
+ * de modo que la memoria usada no depende del tamaño de la entrada.
+ */
+class Lexer implements TokenSource {
+    static final int ALPHABET = 128; // Solo se aceptan caracteres ASCII
+    static final int DEAD = -1;      // Estado sin transición
+    static final int START = 0;      // Estado inicial
+    static final int IDENTIFIER = 1; // Identificador genérico (VARIABLE): solo sigue con letras, dígitos y '_'
+    static final int NUMBER = 2;     // Número entero
+    private static final int WINDOW_SIZE = 8192; // Tamaño inicial de la ventana de lectura
+
+    private static final int[] TRANSITIONS;              // transitions[estado * ALPHABET + carácter]
+    private static final Token.Type[] ACCEPT_TYPE;       // Tipo aceptado por estado (null si no acepta)
+    private static final Token.Lexeme[] ACCEPT_LEXEME;   // Lexema aceptado por estado
+
+    static {
+        DfaBuilder builder = new DfaBuilder();
+        for (String word : vocabulary()) {
+            Token.Type type = classify(word);
+            if (type != null) {
+                builder.addWord(word, type, lexemeOf(word));
+            }
+        }
+        TRANSITIONS = builder.transitions();
+        ACCEPT_TYPE = builder.acceptTypes.toArray(new Token.Type[0]);
+        ACCEPT_LEXEME = builder.acceptLexemes.toArray(new Token.Lexeme[0]);
+    }
+
+    private final Diagnostics errors;
+    private Reporter reporter = Reporter.NONE; // Destino de los tokens creados
+    private Reader reader;   // null cuando ya no hay más caracteres por leer
+    private char[] buffer;
+    private int limit;
+    private int position = 0;
+    private int mark = 0;    // Primera posición de la ventana que todavía se necesita
+    private int base = 0;    // Posición absoluta en la entrada del inicio de la ventana
+    private int scannedState; // Estado de aceptación del último token encontrado
+    private int scannedLength;
+    private int line = 1;
+    private int tokenCount = 0;
+    private int lineStart = 0; // Posición absoluta del inicio de la línea actual
+    private Token current;    // Token actual de la fuente de tokens
+    private boolean hasCurrent = false;
+
+    /**
+     * Constructor de la clase Lexer
+     * @param input  Cadena de entrada para analizar
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     */
+    public Lexer(String input, Diagnostics errors) {
+        this(input, 0, input.length(), 1, errors);
+    }
+
+    /**
+     * Constructor para analizar solo una parte de la cadena, que debe empezar al inicio de una línea.
+     * Las posiciones de los tokens siguen siendo relativas a toda la cadena.
+     * @param input     Cadena de entrada
+     * @param from      Posición inicial de la parte a analizar
+     * @param to        Posición final (exclusiva) de la parte a analizar
+     * @param firstLine Número de línea de la posición inicial
+     * @param errors    Lista donde se agregan los tokens no reconocidos
+     */
+    public Lexer(String input, int from, int to, int firstLine, Diagnostics errors) {
+        this.buffer = new char[to - from];
+        input.getChars(from, to, buffer, 0);
+        this.limit = buffer.length;
+        this.base = from;
+        this.lineStart = from;
+        this.line = firstLine;
+        this.errors = errors;
+    }
+
+    /**
+     * Constructor para analizar la entrada conforme se va leyendo.
+     * @param reader Lector de la entrada (no se cierra al terminar)
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     */
+    public Lexer(Reader reader, Diagnostics errors) {
+        this.reader = reader;
+        this.buffer = new char[WINDOW_SIZE];
+        this.limit = 0;
+        this.errors = errors;
+    }
+
+    /**
+     * Reinicia el lexer para analizar otra cadena completa, reutilizando su arreglo de caracteres si alcanza.
+     * Los errores se siguen agregando a la misma lista.
+     * @param input Cadena de entrada
+     */
+    void reset(String input) {
+        if (buffer.length < input.length()) {
+            buffer = new char[input.length()];
+        }
+        input.getChars(0, input.length(), buffer, 0);
+        reader = null;
+        limit = input.length();
+        position = 0;
+        mark = 0;
+        base = 0;
+        line = 1;
+        tokenCount = 0;
+        lineStart = 0;
+        current = null;
+        hasCurrent = false;
+    }
+
+    /**
+     * Indica dónde se reporta cada token que se crea con {@link #nextToken()}.
+     * @param reporter Destino de los tokens
+     */
+    public void reportTo(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Realiza el análisis léxico completo de la entrada.
+     * @return ArrayList de tokens encontrados en la entrada.
+     */
+    public ArrayList<Token> tokenize() {
+        final ArrayList<Token> tokens = new ArrayList<>();
+        Token token;
+        while ((token = nextToken()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Obtiene el siguiente token de la entrada.
+     * @return El siguiente token o null si se llegó al final de la entrada.
+     */
+    public Token nextToken() {
+        if (!scan()) return null;
+        Token token = new Token();
+        token.setType(scannedType());
+        token.setValue(new String(buffer, mark, scannedLength));
+        token.setLexeme(scannedLexeme());
+        token.setLineNumber(line);
+        token.setColumn(scannedColumn());
+        reporter.token(token);
+        return token;
+    }
+
+    /**
+     * Avanza al siguiente token sin crear objetos; el token queda descrito por
+     * {@link #scannedType()}, {@link #scannedLexeme()}, {@link #scannedStart()},
+     * {@link #scannedLength()} y {@link #scannedLine()}.
+     * @return false si se llegó al final de la entrada.
+     */
+    boolean scan() {
+        while (true) {
+            if (position == limit) {
+                mark = position;
+                if (!fill()) return false;
+            }
+            char c = buffer[position];
+            if (c == '\n') {
+                line++;
+                position++;
+                lineStart = base + position;
+                continue;
+            }
+            if (isBlank(c)) {
+                position++;
+                continue;
+            }
+
+            mark = position; // Inicio del token actual
+            int state = START;
+            int accepted = DEAD;
+            int acceptedLength = 0;
+            while (position < limit || fill()) {
+                char next = buffer[position];
+                if (next >= ALPHABET) break;
+                state = TRANSITIONS[state * ALPHABET + next];
+                if (state == DEAD) break;
+                position++;
+                if (ACCEPT_TYPE[state] != null) {
+                    accepted = state;
+                    acceptedLength = position - mark;
+                }
+            }
+
+            if (accepted == DEAD) {
+                // Agrupa los caracteres que no pueden iniciar ningún token
+                position = mark + 1;
+                while (position < limit || fill()) {
+                    char next = buffer[position];
+                    if (isBlank(next) || next == '\n' || canStartToken(next)) break;
+                    position++;
+                }
+                String word = new String(buffer, mark, position - mark);
+                errors.add(Diagnostic.Code.UNRECOGNIZED_TOKEN, line, base + mark - lineStart + 1, null, null, word);
+                continue;
+            }
+
+            position = mark + acceptedLength;
+            scannedState = accepted;
+            scannedLength = acceptedLength;
+            tokenCount++;
+            return true;
+        }
+    }
+
+    // Descripción del último token encontrado por scan()
+    Token.Type scannedType() { return ACCEPT_TYPE[scannedState]; }
+    Token.Lexeme scannedLexeme() { return ACCEPT_LEXEME[scannedState]; }
+    int scannedStart() { return base + mark; }
+    int scannedLength() { return scannedLength; }
+    int scannedLine() { return line; }
+    int scannedColumn() { return base + mark - lineStart + 1; }
+
+    // Autómata, para los lexers que leen la entrada de otra forma (MappedLexer)
+    static int transition(int state, int c) { return TRANSITIONS[state * ALPHABET + c]; }
+    static Token.Type acceptType(int state) { return ACCEPT_TYPE[state]; }
+    static Token.Lexeme acceptLexeme(int state) { return ACCEPT_LEXEME[state]; }
+
+    // Contadores para AnalysisMetrics
+    int tokenCount() { return tokenCount; }
+    long consumed() { return base + position; } // Caracteres leídos hasta ahora
+
+    /**
+     * Lee más caracteres del lector, descartando los que están antes de {@code mark}.
+     * @return false si ya no hay más entrada.
+     */
+    private boolean fill() {
+        if (reader == null) return false;
+        System.arraycopy(buffer, mark, buffer, 0, limit - mark);
+        limit -= mark;
+        position -= mark;
+        base += mark;
+        mark = 0;
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2); // Token más grande que la ventana
+        }
+        try {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                reader = null;
+                return false;
+            }
+            limit += read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return position < limit || fill();
+    }
+
+    private Token current() {
+        if (!hasCurrent) {
+            current = nextToken();
+            hasCurrent = true;
+        }
+        return current;
+    }
+
+    @Override
+    public boolean isAtEnd() {
+        return current() == null;
+    }
+
+    @Override
+    public Token token() {
+        return current();
+    }
+
+    @Override
+    public void advance() {
+        current();
+        hasCurrent = false;
+    }
+
+    static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    static boolean canStartToken(char c) {
+        return c < ALPHABET && TRANSITIONS[START * ALPHABET + c] != DEAD;
+    }
+
+    /**
+     * Obtiene las palabras fijas del lenguaje: todos los lexemas y las alternativas literales
+     * de los patrones de {@link Token.Type} (por ejemplo true, false o &lt;&gt;).
+     */
+    private static Set<String> vocabulary() {
+        Set<String> words = new LinkedHashSet<>();
+        for (Token.Lexeme lexeme : Token.Lexeme.values()) {
+            words.add(lexeme.lexeme);
+        }
+        for (Token.Type type : Token.Type.values()) {
+            String body = type.pattern.replace("\\b", "");
+            if (body.startsWith("(") && body.endsWith(")") && !body.startsWith("(?")) {
+                body = body.substring(1, body.length() - 1);
+            }
+            if (!isLiteralAlternation(body)) continue;
+            for (String alternative : body.split("\\|")) {
+                words.add(alternative.replace("\\", ""));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Checa si un patrón es solo una alternancia de literales (sin clases ni cuantificadores).
+     */
+    private static boolean isLiteralAlternation(String body) {
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                i++; // Carácter escapado
+            } else if ("[](){}?*+.^$".indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return !body.isEmpty();
+    }
+
+    /**
+     * Clasifica una palabra fija con los patrones de {@link Token.Type}, en el mismo orden
+     * en el que se declaran y dejando VARIABLE al final.
+     */
+    private static Token.Type classify(String word) {
+        for (Token.Type type : Token.Type.values()) {
+            if (type != Token.Type.VARIABLE && Pattern.matches(type.pattern, word)) {
+                return type;
+            }
+        }
+        return Pattern.matches(Token.Type.VARIABLE.pattern, word) ? Token.Type.VARIABLE : null;
+    }
+
+    private static Token.Lexeme lexemeOf(String word) {
+        for (Token.Lexeme lexeme : Token.Lexeme.values()) {
+            if (word.equals(lexeme.lexeme)) {
+                return lexeme;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Construye la tabla de transiciones: un trie de las palabras fijas sobre los estados
+     * genéricos de identificador y número.
+     */
+    private static class DfaBuilder {
+        private final ArrayList<int[]> rows = new ArrayList<>();
+        private final ArrayList<Token.Type> acceptTypes = new ArrayList<>();
+        private final ArrayList<Token.Lexeme> acceptLexemes = new ArrayList<>();
+
+        DfaBuilder() {
+            int start = newState(null, null, null);
+            int identifier = newState(null, Token.Type.VARIABLE, null);
+            int number = newState(null, Token.Type.NUMBER, null);
+            for (char c = 0; c < ALPHABET; c++) {
+                if (isIdentifierStart(c)) rows.get(start)[c] = identifier;
+                if (c >= '0' && c <= '9') {
+                    rows.get(start)[c] = number;
+                    rows.get(number)[c] = number;
+                }
+                if (isIdentifierPart(c)) rows.get(identifier)[c] = identifier;
+            }
+        }
+
+        private int newState(int[] copyOf, Token.Type type, Token.Lexeme lexeme) {
+            int[] row = copyOf != null ? copyOf.clone() : new int[ALPHABET];
+            if (copyOf == null) Arrays.fill(row, DEAD);
+            rows.add(row);
+            acceptTypes.add(type);
+            acceptLexemes.add(lexeme);
+            return rows.size() - 1;
+        }
+
+        void addWord(String word, Token.Type type, Token.Lexeme lexeme) {
+            boolean identifierLike = isIdentifierStart(word.charAt(0));
+            int state = START;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                int target = rows.get(state)[c];
+                if (target == DEAD || target == IDENTIFIER || target == NUMBER) {
+                    // Los prefijos de palabras clave siguen siendo identificadores válidos
+                    target = identifierLike
+                            ? newState(rows.get(IDENTIFIER), Token.Type.VARIABLE, null)
+                            : newState(null, null, null);
+                    rows.get(state)[c] = target;
+                }
+                state = target;
+            }
+            acceptTypes.set(state, type);
+            acceptLexemes.set(state, lexeme);
+        }
+
+        int[] transitions() {
+            int[] table = new int[rows.size() * ALPHABET];
+            for (int state = 0; state < rows.size(); state++) {
+                System.arraycopy(rows.get(state), 0, table, state * ALPHABET, ALPHABET);
+            }
+            return table;
+        }
+    }
+}
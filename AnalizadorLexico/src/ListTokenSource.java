@@ -0,0 +1,28 @@
+import java.util.List;
+
+/**
+ * Fuente de tokens sobre una lista ya construida (por ejemplo, la que devuelve {@link Lexer#tokenize()}).
+ */
+class ListTokenSource implements TokenSource {
+    private final List<Token> tokens;
+    private int currentPosition = 0;
+
+    public ListTokenSource(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public boolean isAtEnd() {
+        return currentPosition >= tokens.size();
+    }
+
+    @Override
+    public Token token() {
+        return isAtEnd() ? null : tokens.get(currentPosition);
+    }
+
+    @Override
+    public void advance() {
+        if (!isAtEnd()) currentPosition++;
+    }
+}
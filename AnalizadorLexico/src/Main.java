@@ -1,11 +1,16 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
     /**
@@ -13,144 +18,651 @@ public class Main {
      * @param fileName Nombre del archivo de entrada.
      */
     public static void runExamples(String fileName) {
-        String input = "";
+        analyze(fileName, System.out);
+    }
+
+    /**
+     * Analiza un archivo y escribe los resultados en la salida indicada.
+     * @param fileName Nombre del archivo de entrada.
+     * @param out      Salida donde se escriben la entrada, los tokens y los errores.
+     * @return Número de errores encontrados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyze(String fileName, PrintStream out) {
+        return analyze(fileName, out, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Analiza un archivo deteniendo el análisis al llegar a un máximo de errores.
+     * @param fileName  Nombre del archivo de entrada.
+     * @param out       Salida donde se escriben la entrada, los tokens y los errores.
+     * @param maxErrors Máximo de errores que se reportan.
+     * @param maxDepth  Máximo de bloques y paréntesis anidados.
+     * @return Número de errores reportados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyze(String fileName, PrintStream out, int maxErrors, int maxDepth) {
+        Reporter reporter = new TextReporter(out);
+        int errors = analyze(fileName, reporter, maxErrors, maxDepth);
+        reporter.flush();
+        return errors;
+    }
+
+    /**
+     * Analiza un archivo y reporta la entrada, los tokens, las sentencias válidas y los errores.
+     * @param fileName  Nombre del archivo de entrada.
+     * @param reporter  Destino de los resultados.
+     * @param maxErrors Máximo de errores que se reportan.
+     * @param maxDepth  Máximo de bloques y paréntesis anidados.
+     * @return Número de errores reportados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyze(String fileName, Reporter reporter, int maxErrors, int maxDepth) {
+        return analyze(fileName, reporter, maxErrors, maxDepth, null);
+    }
+
+    /**
+     * Analiza un archivo usando una caché de resultados: si el mismo contenido ya se analizó con las
+     * mismas opciones se reporta el resultado guardado sin volver a analizarlo.
+     * @param fileName  Nombre del archivo de entrada.
+     * @param reporter  Destino de los resultados.
+     * @param maxErrors Máximo de errores que se reportan.
+     * @param maxDepth  Máximo de bloques y paréntesis anidados.
+     * @param cache     Caché de resultados (null para no usarla).
+     * @return Número de errores reportados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyze(String fileName, Reporter reporter, int maxErrors, int maxDepth, AnalysisCache cache) {
+        String input;
 
         // Read file
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            StringBuilder stringBuilder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line).append(System.lineSeparator()); // Preserve newlines
-            }
-            input = stringBuilder.toString();
+        try {
+            input = readInput(fileName);
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
-            return;
+            return -1;
+        }
+        return analyze(fileName, input, reporter, maxErrors, maxDepth, cache);
+    }
+
+    /**
+     * Analiza el contenido de un archivo que ya se leyó. Las sentencias válidas se optimizan ({@link Optimizer})
+     * y los cambios se reportan después de las sentencias.
+     * @param fileName  Nombre del archivo que se muestra en los resultados.
+     * @param input     Contenido del archivo.
+     * @param reporter  Destino de los resultados.
+     * @param maxErrors Máximo de errores que se reportan.
+     * @param maxDepth  Máximo de bloques y paréntesis anidados.
+     * @param cache     Caché de resultados (null para no usarla).
+     * @return Número de errores reportados.
+     */
+    static int analyze(String fileName, String input, Reporter reporter, int maxErrors, int maxDepth, AnalysisCache cache) {
+        AnalysisMetrics.Probe probe = new AnalysisMetrics.Probe(fileName, false);
+
+        // Report the file name and the input
+        reporter.startFile(fileName, input);
+
+        // Cached result: no lexical or syntax analysis
+        if (cache != null) {
+            byte[] key = AnalysisCache.key(input, maxErrors, maxDepth);
+            int cachedErrors = cache.replay(key, reporter);
+            if (cachedErrors >= 0) {
+                probe.cached(input.length(), cachedErrors);
+                reporter.endFile(fileName, cachedErrors);
+                return cachedErrors;
+            }
+            reporter = cache.record(key, reporter);
         }
 
-        // Print the file name
-        System.out.println("\n ------------------------------------------ " + fileName + " --------------------------------------------\n");
+        // Los errores se agregan conforme se encuentran y se ordenan por línea una sola vez, al leerlos
+        final Diagnostics errors = new Diagnostics(maxErrors);
 
-        // Print the input
-        System.out.println("Input: " + input);
+        // Lexical analysis into a token buffer, then each token is reported
+        TokenBuffer tokens = TokenBuffer.lex(input, errors);
+        tokens.reportTo(reporter);
+        reporter.endTokens();
+        probe.lexed(input.length(), tokens.size());
 
-        // Run the lexical analysis and syntax analysis
-        ArrayList<Token> tokens;
+        // Parser initialization and syntax checking; recovery uses the buffer's synchronization index
+        Parser parser = new IterativeParser(tokens.cursor(), errors, reporter, maxDepth);
+        Ast ast = parser.parseTree(); // Parsing the token list, keeping the valid statements
+        probe.parsed(parser, input.length(), tokens.size(), errors.size());
 
-        final ArrayList<SyntaxException> errors = new ArrayList<>();
+        // Constant folding and dead branches over the valid statements; the reporter and the cache see the changes
+        for (String message : Optimizer.optimize(ast).messages()) {
+            reporter.optimization(message);
+        }
+
+        reportErrors(errors, reporter);
+        reporter.endFile(fileName, errors.size());
+        return errors.size();
+    }
 
-        // Lexical analysis
+    /**
+     * Analiza un archivo sin cargarlo completo en memoria: el lexer lee el archivo por partes
+     * y el parser va pidiendo los tokens conforme los necesita.
+     * @param fileName Nombre del archivo de entrada.
+     */
+    public static void runStreaming(String fileName) {
+        analyzeStreaming(fileName, System.out);
+    }
+
+    /**
+     * Analiza un archivo en modo streaming y escribe los resultados en la salida indicada.
+     * @param fileName Nombre del archivo de entrada.
+     * @param out      Salida donde se escriben las sentencias válidas y los errores.
+     * @return Número de errores encontrados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyzeStreaming(String fileName, PrintStream out) {
+        return analyzeStreaming(fileName, out, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Analiza un archivo en modo streaming deteniendo el análisis al llegar a un máximo de errores.
+     * @param fileName  Nombre del archivo de entrada.
+     * @param out       Salida donde se escriben las sentencias válidas y los errores.
+     * @param maxErrors Máximo de errores que se reportan.
+     * @param maxDepth  Máximo de bloques y paréntesis anidados.
+     * @return Número de errores reportados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyzeStreaming(String fileName, PrintStream out, int maxErrors, int maxDepth) {
+        Reporter reporter = new TextReporter(out);
+        int errors = analyzeStreaming(fileName, reporter, maxErrors, maxDepth);
+        reporter.flush();
+        return errors;
+    }
+
+    /**
+     * Analiza un archivo en modo streaming y reporta las sentencias válidas y los errores (no los tokens).
+     * @param fileName  Nombre del archivo de entrada.
+     * @param reporter  Destino de los resultados.
+     * @param maxErrors Máximo de errores que se reportan.
+     * @param maxDepth  Máximo de bloques y paréntesis anidados.
+     * @return Número de errores reportados, o -1 si no se pudo leer el archivo.
+     */
+    public static int analyzeStreaming(String fileName, Reporter reporter, int maxErrors, int maxDepth) {
+        AnalysisMetrics.Probe probe = new AnalysisMetrics.Probe(fileName, true);
+        reporter.startFile(fileName, null);
+
+        final Diagnostics errors = new Diagnostics(maxErrors);
+        try (FileReader reader = new FileReader(fileName)) {
+            Lexer lexer = new Lexer(reader, errors);
+            Parser parser = new IterativeParser(lexer, errors, reporter, maxDepth);
+            parser.parse();
+            probe.parsed(parser, lexer.consumed(), lexer.tokenCount(), errors.size());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return -1;
+        }
+
+        reportErrors(errors, reporter);
+        reporter.endFile(fileName, errors.size());
+        return errors.size();
+    }
+
+    /**
+     * Reporta los errores en orden de línea (el mensaje de cada uno se arma hasta este punto).
+     * @param errors   Errores encontrados.
+     * @param reporter Destino de los errores.
+     */
+    private static void reportErrors(Diagnostics errors, Reporter reporter) {
+        for (Diagnostic error : errors) {
+            reporter.error(error);
+        }
+        if (errors.isFull()) {
+            reporter.errorLimit(errors.size());
+        }
+    }
+
+    /**
+     * Analiza un archivo y, si no tiene errores, ejecuta el programa y muestra el valor final de las variables.
+     * @param fileName Nombre del archivo de entrada.
+     * @param out      Salida donde se escriben los errores o el resultado.
+     * @param maxSteps Máximo de pasos (asignaciones y condiciones evaluadas) de la ejecución.
+     * @param compiled Si se ejecuta el programa traducido a bytecode ({@link CompiledProgram}); si no cabe
+     *                 en un método de la JVM se usa el intérprete.
+     * @param optimize Si antes de ejecutar se evalúan las expresiones constantes y se quitan las ramas
+     *                 que nunca se ejecutan ({@link Optimizer}); los cambios se muestran en la salida.
+     * @return El resultado de la ejecución, o null si no se pudo leer el archivo o tiene errores.
+     */
+    public static Interpreter.Result execute(String fileName, PrintStream out, long maxSteps, boolean compiled, boolean optimize) {
+        String input;
         try {
-            tokens = lex(input,errors);
-            System.out.println(" -------------------------------------  Tokens:  -----------------------------------------");
-            for (Token token : tokens){
-                System.out.println(" Value: " + token.getValue() + " Type: " + token.getType() + " Lexeme: " + token.getLexeme());
+            input = readInput(fileName);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return null;
+        }
+        out.println("\n ------------------------------------------ " + fileName + " --------------------------------------------\n");
+
+        final Diagnostics errors = new Diagnostics();
+        TokenBuffer tokens = TokenBuffer.lex(input, errors);
+        Ast ast = new IterativeParser(tokens.cursor(), errors, Reporter.NONE).parseTree();
+        if (!errors.isEmpty()) {
+            Reporter reporter = new TextReporter(out);
+            reportErrors(errors, reporter);
+            reporter.flush();
+            return null;
+        }
+
+        if (optimize) {
+            for (String message : Optimizer.optimize(ast).messages()) {
+                out.println(message);
             }
-            // Syntax analysis
-            System.out.println("\n ------------------------------------------ Syntax analysis:  --------------------------------------------\n");
+        }
+        Program program = Program.compile(ast);
+        CompiledProgram compiledProgram = compiled ? CompiledProgram.compile(program) : null;
+        Interpreter.Result result;
+        long[] frame;
+        if (compiledProgram != null) {
+            result = compiledProgram.run(maxSteps);
+            frame = compiledProgram.frame();
+        } else {
+            Interpreter interpreter = new Interpreter(program);
+            result = interpreter.run(maxSteps);
+            frame = interpreter.frame();
+        }
+        switch (result.status()) {
+            case FINISHED -> out.println("Execution finished after " + result.steps() + " steps");
+            case STEP_LIMIT -> out.println("Execution stopped at line " + result.line() + ": step limit of " + maxSteps + " reached");
+            case DIVISION_BY_ZERO -> out.println("Execution stopped at line " + result.line() + ": division by zero");
+        }
+        for (int slot = 0; slot < program.slotCount(); slot++) {
+            out.println(program.variable(slot) + " = " + frame[slot]);
+        }
+        return result;
+    }
 
-            // Parser initialization and syntax checking
-            Parser parser = new Parser(tokens, errors);
-            try {
-                parser.parse(); // Parsing the token list
-            } catch (SyntaxException e) {
-                errors.add(e);
+    /**
+     * Analiza un archivo y, si no tiene errores, ejecuta el programa una vez por cada fila de una tabla de
+     * valores iniciales, por columnas ({@link BatchInterpreter}). La tabla es un CSV cuya primera línea tiene
+     * los nombres de las variables; las variables del programa que no están en ella empiezan en 0 y las
+     * columnas que no son variables del programa se ignoran. El resultado se escribe en el mismo formato:
+     * el valor final de cada variable y cómo terminó cada fila.
+     * <p>
+     * La tabla se lee y se ejecuta de a {@link BatchInterpreter#BLOCK} filas, así que no se carga completa en
+     * memoria. Las líneas vacías se omiten; una fila con un campo que no es un número no se ejecuta y el
+     * campo se reporta (línea y columna del CSV) después de los resultados.
+     * @param fileName Nombre del archivo con el programa.
+     * @param dataName Nombre del archivo CSV con los valores iniciales.
+     * @param out      Salida donde se escriben los errores o el resultado.
+     * @param maxSteps Máximo de pasos de cada fila.
+     * @param optimize Si antes de ejecutar se optimiza el programa ({@link Optimizer}).
+     * @return Número de filas ejecutadas, o -1 si no se pudo leer algún archivo o el programa tiene errores.
+     */
+    public static int executeColumns(String fileName, String dataName, PrintStream out, long maxSteps, boolean optimize) {
+        String input;
+        try {
+            input = readInput(fileName);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return -1;
+        }
+
+        final Diagnostics errors = new Diagnostics();
+        Ast ast = new IterativeParser(TokenBuffer.lex(input, errors).cursor(), errors, Reporter.NONE).parseTree();
+        if (!errors.isEmpty()) {
+            Reporter reporter = new TextReporter(out);
+            reportErrors(errors, reporter);
+            reporter.flush();
+            return -1;
+        }
+        if (optimize) {
+            Optimizer.optimize(ast);
+        }
+
+        BatchInterpreter interpreter = new BatchInterpreter(ast);
+        Diagnostics invalid = new Diagnostics();
+        int rows = 0;
+        try (BufferedReader data = Files.newBufferedReader(Path.of(dataName))) {
+            String first = data.readLine();
+            String[] header = first == null ? new String[0] : first.split(",");
+            long[][] columns = new long[interpreter.slotCount()][];
+            int[] slots = new int[header.length]; // Slot de cada columna del CSV, o -1 si no es variable del programa
+            for (int column = 0; column < header.length; column++) {
+                slots[column] = -1;
+                for (int slot = 0; slot < interpreter.slotCount(); slot++) {
+                    if (interpreter.variable(slot).equals(header[column].trim())) {
+                        slots[column] = slot;
+                        columns[slot] = new long[BatchInterpreter.BLOCK];
+                    }
+                }
+            }
+            StringBuilder line = new StringBuilder();
+            for (int slot = 0; slot < interpreter.slotCount(); slot++) {
+                line.append(interpreter.variable(slot)).append(',');
+            }
+            out.println(line.append("status,steps,line"));
+
+            int lineNumber = 1;
+            String text = "";
+            while (text != null) {
+                int count = 0; // Filas del bloque
+                while (count < BatchInterpreter.BLOCK && (text = data.readLine()) != null) {
+                    lineNumber++;
+                    if (!text.isBlank() && readRow(text, lineNumber, slots, columns, count, invalid)) {
+                        count++;
+                    }
+                }
+                if (count == 0) break;
+                BatchInterpreter.Result result = interpreter.run(columns, count, maxSteps);
+                for (int row = 0; row < count; row++) {
+                    line.setLength(0);
+                    for (int slot = 0; slot < interpreter.slotCount(); slot++) {
+                        line.append(result.columns()[slot][row]).append(',');
+                    }
+                    line.append(result.status(row)).append(',').append(result.steps()[row]).append(',').append(result.lines()[row]);
+                    out.println(line);
+                }
+                rows += count;
             }
-        } catch (SyntaxException e) {
-            errors.add(e);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return -1;
+        }
+        if (!invalid.isEmpty()) {
+            Reporter reporter = new TextReporter(out);
+            reportErrors(invalid, reporter);
+            reporter.flush();
         }
+        return rows;
+    }
 
-        errors.sort(Comparator.comparingInt(SyntaxException::getLineErrorNumber));
-        for (SyntaxException error : errors) {
-            System.out.println(error.getMessage());
+    /**
+     * Lee los valores iniciales de una fila del CSV; las columnas que le faltan a la fila empiezan en 0.
+     * @param text    Texto de la fila
+     * @param line    Línea de la fila en el CSV, para los errores
+     * @param slots   Slot de cada columna del CSV, o -1
+     * @param columns Columnas del bloque, por slot
+     * @param row     Fila del bloque donde se escriben los valores
+     * @param invalid Lista donde se agregan los campos que no son números
+     * @return Si todos los campos son números (si no, la fila no se debe ejecutar)
+     */
+    private static boolean readRow(String text, int line, int[] slots, long[][] columns, int row, Diagnostics invalid) {
+        String[] fields = text.split(",");
+        boolean valid = true;
+        for (int column = 0; column < slots.length; column++) {
+            if (slots[column] < 0) continue;
+            if (column >= fields.length) {
+                columns[slots[column]][row] = 0;
+                continue;
+            }
+            String field = fields[column].trim();
+            try {
+                columns[slots[column]][row] = Long.parseLong(field);
+            } catch (NumberFormatException e) {
+                invalid.add(Diagnostic.Code.INVALID_VALUE, line, column + 1, null, null, field.isEmpty() ? "(empty)" : field);
+                valid = false;
+            }
         }
+        return valid;
     }
 
     /**
-     * Método principal para iniciar el análisis léxico.
-     * @param args Argumentos de línea de comandos (no utilizados).
+     * Analiza un archivo y, si no tiene errores de sintaxis, busca variables que se usan antes de asignarlas
+     * y asignaciones cuyo valor nunca se lee ({@link Dataflow}). La entrada no se muestra, así que el archivo
+     * se analiza mapeado en memoria, sin convertirlo a texto ({@link TokenBuffer#map(Path, Diagnostics)}).
+     * @param fileName Nombre del archivo de entrada.
+     * @param out      Salida donde se escriben los errores y las advertencias.
+     * @return Número de errores y advertencias, o -1 si no se pudo leer el archivo.
      */
-    public static void main(String[] args)  {
-        runExamples("input1.txt");
-        runExamples("input2.txt");
-        runExamples("input3.txt");
+    public static int check(String fileName, PrintStream out) {
+        return check(fileName, TokenBuffer.Lexing.MAPPED, out);
     }
 
     /**
-     * Realiza el análisis léxico de la cadena de entrada y devuelve una lista de tokens.
-     * @param input Cadena de entrada para analizar.
-     * @return ArrayList de tokens encontrados en la entrada.
+     * Igual que {@link #check(String, PrintStream)}, con otra forma de hacer el análisis léxico.
+     * @param lexing Forma de hacer el análisis léxico del archivo.
      */
-    private static ArrayList<Token> lex(String input, ArrayList<SyntaxException> errors) throws SyntaxException {
-        final ArrayList<Token> tokens = new ArrayList<>();
-        String[] lines = input.split("\\r?\\n"); // Separa la entrada en líneas
-        int lineNumber = 0;
+    static int check(String fileName, TokenBuffer.Lexing lexing, PrintStream out) {
+        final Diagnostics errors = new Diagnostics();
+        TokenBuffer tokens;
+        try {
+            tokens = lexing.read(Path.of(fileName), errors);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return -1;
+        }
+        out.println("\n ------------------------------------------ " + fileName + " --------------------------------------------\n");
 
-        for (String line : lines) {
-            lineNumber++; // Incrementa el número de línea de cada token
-            StringTokenizer st = new StringTokenizer(line, " \t", true); // Tokenize the line
+        Ast ast = new IterativeParser(tokens.cursor(), errors, Reporter.NONE).parseTree();
+        if (errors.isEmpty()) {
+            Dataflow.analyze(ast, errors); // Con errores de sintaxis faltarían sentencias y habría advertencias falsas
+        }
+        Reporter reporter = new TextReporter(out);
+        reportErrors(errors, reporter);
+        reporter.flush();
+        return errors.size();
+    }
 
-            while (st.hasMoreTokens()) {
-                String word = st.nextToken();
+    /**
+     * Revisa solo si un archivo es válido, como filtro rápido antes de un análisis completo: los tokens se
+     * reconocen con {@link Recognizer}, sin construir el árbol ni crear los errores de sintaxis, y solo se
+     * muestran las posiciones de los errores.
+     * @param fileName Nombre del archivo de entrada.
+     * @param out      Salida donde se escribe el resultado.
+     * @return true si el archivo no tiene errores léxicos ni de sintaxis; false si los tiene o no se pudo leer.
+     */
+    public static boolean validate(String fileName, PrintStream out) {
+        return validate(fileName, TokenBuffer.Lexing.MAPPED, out);
+    }
 
-                if (word.trim().isEmpty()) {
-                    continue; // Salta espacios
-                }
+    /**
+     * Igual que {@link #validate(String, PrintStream)}, con otra forma de hacer el análisis léxico.
+     * @param lexing Forma de hacer el análisis léxico del archivo.
+     */
+    static boolean validate(String fileName, TokenBuffer.Lexing lexing, PrintStream out) {
+        final Diagnostics errors = new Diagnostics();
+        TokenBuffer tokens;
+        try {
+            tokens = lexing.read(Path.of(fileName), errors);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return false;
+        }
+        Recognizer recognizer = new Recognizer();
+        if (recognizer.recognize(tokens, errors.size()) && errors.isEmpty()) {
+            out.println(fileName + ": valid");
+            return true;
+        }
+        out.println(fileName + ": invalid");
+        for (int i = 0; i < errors.size(); i++) {
+            out.println("  lexical error at " + errors.get(i).getLine() + ":" + errors.get(i).getColumn());
+        }
+        for (int i = 0; i < recognizer.errorCount(); i++) {
+            int position = recognizer.errorPosition(i);
+            if (position == tokens.size()) {
+                out.println("  syntax error at end of input");
+            } else {
+                out.println("  syntax error at " + tokens.line(position) + ":" + tokens.column(position));
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Analiza muchos archivos en paralelo.
+     * Opciones: {@code --threads N} (hilos del pool fork-join), {@code --virtual} (un hilo virtual por archivo),
+     * {@code --stream} (análisis en modo streaming), {@code --max-errors N} (máximo de errores por archivo),
+     * {@code --max-depth N} (máximo de bloques y paréntesis anidados), {@code --format F} (formato de la salida,
+     * ver {@link Reporter.Format}), {@code --cache DIR} (caché de resultados en disco, ver {@link AnalysisCache}) y
+     * {@code --cache-size MB} (tamaño máximo de la caché) y {@code --metrics} (al final muestra los contadores de
+     * {@link AnalysisMetrics}); el resto de los argumentos son archivos o directorios.
+     * @param args Opciones y archivos.
+     */
+    public static void runBatch(List<String> args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean virtual = false;
+        boolean streaming = false;
+        int maxErrors = Integer.MAX_VALUE;
+        int maxDepth = Integer.MAX_VALUE;
+        Reporter.Format format = Reporter.Format.TEXT;
+        String cacheDirectory = null;
+        long cacheSize = 256;
+        boolean metrics = false;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            switch (args.get(i)) {
+                case "--threads" -> threads = Integer.parseInt(args.get(++i));
+                case "--virtual" -> virtual = true;
+                case "--stream" -> streaming = true;
+                case "--max-errors" -> maxErrors = Integer.parseInt(args.get(++i));
+                case "--max-depth" -> maxDepth = Integer.parseInt(args.get(++i));
+                case "--format" -> format = parseFormat(args.get(++i));
+                case "--cache" -> cacheDirectory = args.get(++i);
+                case "--cache-size" -> cacheSize = Long.parseLong(args.get(++i));
+                case "--metrics" -> metrics = true;
+                default -> paths.add(args.get(i));
+            }
+        }
 
-                boolean matched = false;
+        AnalysisCache cache = cacheDirectory == null ? null : new AnalysisCache(Path.of(cacheDirectory), cacheSize << 20);
+        if (metrics) {
+            AnalysisMetrics.enable();
+        }
+        ExecutorService executor = virtual ? Executors.newVirtualThreadPerTaskExecutor() : new ForkJoinPool(threads);
+        try {
+            new BatchAnalyzer(executor, threads * 4, streaming, maxErrors, maxDepth, format, cache).run(BatchAnalyzer.collectFiles(paths), System.out);
+        } finally {
+            executor.shutdown();
+        }
+        if (metrics) {
+            // Con un formato para programas los contadores van a la salida de errores para no mezclarlos
+            AnalysisMetrics.current().snapshot().print(format.isReadable() ? System.out : System.err);
+        }
+    }
 
-                // Procesamiento de todos los tokens menos VARIABLE
-                for (Token.Type tokenType : Token.Type.values()) {
-                    if (tokenType == Token.Type.VARIABLE) {
-                        continue;
-                    }
+    /**
+     * Inicia el servidor de análisis ({@link AnalysisServer}); las solicitudes se envían con {@link AnalysisClient}.
+     * Opciones: {@code --socket RUTA} (socket Unix, por omisión {@link AnalysisClient#DEFAULT_SOCKET}),
+     * {@code --port N} (TCP en loopback en lugar del socket Unix; necesita {@code --root}), {@code --root DIR}
+     * (solo se analizan archivos dentro de este directorio), {@code --workers N} (solicitudes que se
+     * analizan a la vez), {@code --queue N} (solicitudes que pueden esperar turno), {@code --cache DIR} y
+     * {@code --cache-size MB} (caché de resultados, ver {@link AnalysisCache}).
+     * @param args Opciones.
+     */
+    public static void runServer(List<String> args) throws IOException {
+        String socket = AnalysisClient.DEFAULT_SOCKET;
+        int port = 0;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queue = 64;
+        String cacheDirectory = null;
+        long cacheSize = 256;
+        Path root = null;
+        for (int i = 0; i < args.size(); i++) {
+            switch (args.get(i)) {
+                case "--socket" -> socket = args.get(++i);
+                case "--port" -> port = Integer.parseInt(args.get(++i));
+                case "--root" -> root = Path.of(args.get(++i));
+                case "--workers" -> workers = Integer.parseInt(args.get(++i));
+                case "--queue" -> queue = Integer.parseInt(args.get(++i));
+                case "--cache" -> cacheDirectory = args.get(++i);
+                case "--cache-size" -> cacheSize = Long.parseLong(args.get(++i));
+                default -> throw new IllegalArgumentException("Unknown option: " + args.get(i));
+            }
+        }
 
-                    Pattern pattern = Pattern.compile(tokenType.pattern);
-                    Matcher matcher = pattern.matcher(word);
-                    if (matcher.matches()) {
-                        Token token = new Token();
-                        token.setType(tokenType);
-                        token.setValue(word);
-                        token.setLineNumber(lineNumber);
-                        matchLexeme(word, token);
-                        tokens.add(token);
-                        matched = true;
-                        break;
-                    }
-                }
+        AnalysisCache cache = cacheDirectory == null ? null : new AnalysisCache(Path.of(cacheDirectory), cacheSize << 20);
+        if (port > 0 && root == null) {
+            throw new IllegalArgumentException("--port needs --root: any local user can connect to a TCP port");
+        }
+        AnalysisServer server = new AnalysisServer(AnalysisServer.address(socket, port), workers, queue, cache, root);
+        server.warmUp(20);
+        System.err.println("Listening on " + (port > 0 ? "port " + port : socket));
+        server.serve();
+    }
 
-                // Checar por lexemas de tipo variable
-                if (!matched) {
-                    Pattern variablePattern = Pattern.compile(Token.Type.VARIABLE.pattern);
-                    Matcher variableMatcher = variablePattern.matcher(word);
-                    if (variableMatcher.matches()) {
-                        Token token = new Token();
-                        token.setType(Token.Type.VARIABLE);
-                        token.setValue(word);
-                        token.setLineNumber(lineNumber);
-                        tokens.add(token);
-                    } else {
-                        // Si no es token válido se arroja un error
-                        errors.add(new SyntaxException("Token " + word +" not recognized " + " at line " + lineNumber , lineNumber ));
-                    }
+    /**
+     * Método principal para iniciar el análisis léxico.
+     * @param args Sin argumentos se ejecutan los ejemplos; con {@code --stream archivo...} se analizan
+     *             los archivos en modo streaming, con {@code --batch ...} se analizan en paralelo
+     *             (ver {@link #runBatch(List)}), con {@code --serve ...} se inicia el servidor de análisis
+     *             (ver {@link #runServer(List)}) y con {@code --run [--max-steps N] [--compile] [--optimize] archivo...}
+     *             se ejecutan (con {@code --compile}, traducidos a bytecode; con {@code --optimize}, optimizados; con
+     *             {@code --columns datos.csv}, una vez por fila de valores iniciales, ver {@link #executeColumns});
+     *             con {@code --check archivo...} se buscan además advertencias de flujo de datos (ver {@link #check})
+     *             y con {@code --validate archivo...} solo se revisa si son válidos (ver {@link #validate}); estos
+     *             dos aceptan antes {@code --lexer L} (ver {@link TokenBuffer.Lexing}, por omisión MAPPED).
+     *             Los ejemplos y el modo streaming aceptan antes {@code --format F} (ver {@link Reporter.Format}).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(List.of(args).subList(1, args.length));
+            return;
+        }
+        if (args.length > 0 && (args[0].equals("--check") || args[0].equals("--validate"))) {
+            TokenBuffer.Lexing lexing = TokenBuffer.Lexing.MAPPED;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--lexer")) {
+                    lexing = TokenBuffer.Lexing.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                } else if (args[0].equals("--check")) {
+                    check(args[i], lexing, System.out);
+                } else {
+                    validate(args[i], lexing, System.out);
                 }
             }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            runServer(List.of(args).subList(1, args.length));
+            return;
         }
-        return tokens;
+        if (args.length > 0 && args[0].equals("--run")) {
+            long maxSteps = 100_000_000L;
+            boolean compiled = false;
+            boolean optimize = false;
+            String data = null;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--max-steps")) {
+                    maxSteps = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--compile")) {
+                    compiled = true;
+                } else if (args[i].equals("--optimize")) {
+                    optimize = true;
+                } else if (args[i].equals("--columns")) {
+                    data = args[++i];
+                } else if (data != null) {
+                    executeColumns(args[i], data, System.out, maxSteps, optimize);
+                } else {
+                    execute(args[i], System.out, maxSteps, compiled, optimize);
+                }
+            }
+            return;
+        }
+
+        // Toda la salida pasa por un solo buffer grande que se escribe al final o cuando se llena
+        Reporter.Format format = Reporter.Format.TEXT;
+        int first = 0;
+        if (args.length > 1 && args[0].equals("--format")) {
+            format = parseFormat(args[1]);
+            first = 2;
+        }
+        Reporter reporter = format.open(System.out, ReportBuffer.DEFAULT_CAPACITY);
+        if (args.length > first && args[first].equals("--stream")) {
+            for (int i = first + 1; i < args.length; i++) {
+                analyzeStreaming(args[i], reporter, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            }
+        } else {
+            analyze("input1.txt", reporter, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            analyze("input2.txt", reporter, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            analyze("input3.txt", reporter, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        reporter.flush();
+    }
+
+    private static Reporter.Format parseFormat(String name) {
+        return Reporter.Format.valueOf(name.toUpperCase(Locale.ROOT));
     }
 
     /**
-     * Asigna un lexema al token basado en su valor.
-     * @param word La palabra actual para la que se está creando el token.
-     * @param token El token al que se le asignará el lexema.
+     * Lee un archivo completo.
+     * @param fileName Nombre del archivo.
+     * @return El contenido del archivo, con un salto de línea del sistema al final de cada línea.
      */
-    private static void matchLexeme(String word, Token token){
-        for (Token.Lexeme lexeme : Token.Lexeme.values()) {
-            if (word.equals(lexeme.lexeme)) {
-                token.setLexeme(lexeme);
-                break;
+    static String readInput(String fileName) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            StringBuilder stringBuilder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                stringBuilder.append(line).append(System.lineSeparator()); // Preserve newlines
             }
+            return stringBuilder.toString();
         }
     }
 }
\ No newline at end of file
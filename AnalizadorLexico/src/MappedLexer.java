@@ -0,0 +1,241 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Analizador léxico sobre los bytes de un archivo mapeado en memoria, sin decodificarlo a caracteres ni crear
+ * un String por línea. Reconoce los mismos tokens, con los mismos tipos, lexemas y líneas, que {@link Lexer}.
+ * <p>
+ * Los bytes se copian por ventanas a un arreglo y un {@link ByteClassifier} calcula para cada bloque de 64
+ * bytes las máscaras de saltos de línea, espacios y caracteres de identificador. Con ellas los espacios, las
+ * líneas y el resto de un identificador largo se saltan un bloque a la vez ({@link Long#numberOfTrailingZeros}
+ * y {@link Long#bitCount}); solo el inicio de cada token recorre el autómata de {@link Lexer}, y en cuanto
+ * llega al estado genérico de identificador el token termina donde acaba el bloque de caracteres de
+ * identificador.
+ * <p>
+ * Las posiciones y columnas cuentan bytes. Para archivos ASCII es lo mismo que caracteres; un carácter fuera
+ * de ASCII se reporta como token no reconocido igual que en {@link Lexer}, pero ocupa sus bytes en UTF-8.
+ */
+final class MappedLexer {
+    private static final int WINDOW_SIZE = 1 << 16; // Múltiplo de ByteClassifier.BLOCK
+    private static final ByteClassifier CLASSIFIER = ByteClassifier.create();
+
+    private final ByteBuffer input;
+    private final Diagnostics errors;
+    private byte[] window = new byte[WINDOW_SIZE];
+    private long[] newlines = new long[WINDOW_SIZE / ByteClassifier.BLOCK];
+    private long[] blanks = new long[WINDOW_SIZE / ByteClassifier.BLOCK];
+    private long[] words = new long[WINDOW_SIZE / ByteClassifier.BLOCK];
+    private int limit = 0;
+    private int position = 0;
+    private int mark = 0;      // Primera posición de la ventana que todavía se necesita
+    private int base = 0;      // Posición en la entrada del inicio de la ventana
+    private int scannedState;  // Estado de aceptación del último token encontrado
+    private int scannedLength;
+    private int line = 1;
+    private int lineStart = 0; // Posición en la entrada del inicio de la línea actual
+
+    /**
+     * Constructor de la clase MappedLexer
+     * @param input  Bytes de la entrada (por ejemplo, un archivo mapeado); se leen de 0 a su capacidad
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     */
+    MappedLexer(ByteBuffer input, Diagnostics errors) {
+        this.input = input;
+        this.errors = errors;
+    }
+
+    /**
+     * Obtiene la entrada como texto, para las vistas de los tokens.
+     */
+    CharSequence text() {
+        return new Text(input, 0, input.capacity());
+    }
+
+    /**
+     * Avanza al siguiente token; el token queda descrito por {@link #scannedType()}, {@link #scannedLexeme()},
+     * {@link #scannedStart()}, {@link #scannedLength()} y {@link #scannedLine()}, como en {@link Lexer#scan()}.
+     * @return false si se llegó al final de la entrada.
+     */
+    boolean scan() {
+        while (skipSpace()) {
+            mark = position; // Inicio del token actual
+            int state = Lexer.START;
+            int accepted = Lexer.DEAD;
+            int acceptedLength = 0;
+            while (position < limit || fill()) {
+                int next = window[position];
+                if (next < 0) break; // Fuera de ASCII
+                state = Lexer.transition(state, next);
+                if (state == Lexer.DEAD) break;
+                position++;
+                if (state == Lexer.IDENTIFIER) {
+                    // Ya no es prefijo de ninguna palabra fija: el identificador sigue mientras haya letras, dígitos o '_'
+                    skipWord();
+                    accepted = state;
+                    acceptedLength = position - mark;
+                    break;
+                }
+                if (Lexer.acceptType(state) != null) {
+                    accepted = state;
+                    acceptedLength = position - mark;
+                }
+            }
+
+            if (accepted == Lexer.DEAD) {
+                // Agrupa los bytes que no pueden iniciar ningún token
+                position = mark + 1;
+                while (position < limit || fill()) {
+                    char next = (char) (window[position] & 0xFF);
+                    if (Lexer.isBlank(next) || next == '\n' || Lexer.canStartToken(next)) break;
+                    position++;
+                }
+                String word = new String(window, mark, position - mark, StandardCharsets.UTF_8);
+                errors.add(Diagnostic.Code.UNRECOGNIZED_TOKEN, line, base + mark - lineStart + 1, null, null, word);
+                continue;
+            }
+
+            position = mark + acceptedLength;
+            scannedState = accepted;
+            scannedLength = acceptedLength;
+            return true;
+        }
+        return false;
+    }
+
+    // Descripción del último token encontrado por scan()
+    Token.Type scannedType() { return Lexer.acceptType(scannedState); }
+    Token.Lexeme scannedLexeme() { return Lexer.acceptLexeme(scannedState); }
+    int scannedStart() { return base + mark; }
+    int scannedLength() { return scannedLength; }
+    int scannedLine() { return line; }
+
+    /**
+     * Registra el texto del último token en una tabla de símbolos directamente desde los bytes.
+     * @return El identificador del texto
+     */
+    int intern(SymbolTable symbols) {
+        return symbols.intern(window, mark, mark + scannedLength);
+    }
+
+    /**
+     * Salta los espacios y saltos de línea, contando las líneas.
+     * @return false si se llegó al final de la entrada.
+     */
+    private boolean skipSpace() {
+        while (true) {
+            int end = nextClear(newlines, blanks, position);
+            countLines(position, end);
+            position = end;
+            if (position < limit) return true;
+            mark = position;
+            if (!fill()) return false;
+        }
+    }
+
+    /**
+     * Avanza hasta el primer byte que no es letra, dígito ni '_'.
+     */
+    private void skipWord() {
+        while (true) {
+            position = nextClear(words, words, position);
+            if (position < limit || !fill()) return;
+        }
+    }
+
+    /**
+     * Busca desde {@code from} la primera posición que no está en ninguna de las dos máscaras.
+     * @return La posición, o {@code limit} si no hay
+     */
+    private int nextClear(long[] a, long[] b, int from) {
+        if (from >= limit) return limit;
+        int block = from / ByteClassifier.BLOCK;
+        long clear = ~(a[block] | b[block]) & (-1L << from);
+        int blocks = (limit + ByteClassifier.BLOCK - 1) / ByteClassifier.BLOCK;
+        while (clear == 0) {
+            if (++block == blocks) return limit;
+            clear = ~(a[block] | b[block]);
+        }
+        return Math.min(limit, block * ByteClassifier.BLOCK + Long.numberOfTrailingZeros(clear));
+    }
+
+    /**
+     * Cuenta los saltos de línea de {@code [from, to)} y recuerda dónde empieza la última línea.
+     */
+    private void countLines(int from, int to) {
+        if (from == to) return; // Lo más común: el token empieza justo después del anterior o de un espacio
+        for (int block = from / ByteClassifier.BLOCK; block * ByteClassifier.BLOCK < to; block++) {
+            int blockStart = block * ByteClassifier.BLOCK;
+            long bits = newlines[block];
+            if (blockStart < from) bits &= -1L << from;
+            if (to - blockStart < ByteClassifier.BLOCK) bits &= (1L << (to - blockStart)) - 1;
+            if (bits != 0) {
+                line += Long.bitCount(bits);
+                lineStart = base + blockStart + 63 - Long.numberOfLeadingZeros(bits) + 1;
+            }
+        }
+    }
+
+    /**
+     * Copia más bytes de la entrada a la ventana, descartando los que están antes de {@code mark}, y los clasifica.
+     * @return false si ya no hay más entrada.
+     */
+    private boolean fill() {
+        int remaining = input.capacity() - (base + limit);
+        if (remaining == 0) return false;
+        System.arraycopy(window, mark, window, 0, limit - mark);
+        limit -= mark;
+        position -= mark;
+        base += mark;
+        mark = 0;
+        if (limit == window.length) {
+            // Token más grande que la ventana
+            window = Arrays.copyOf(window, window.length * 2);
+            newlines = new long[window.length / ByteClassifier.BLOCK];
+            blanks = new long[newlines.length];
+            words = new long[newlines.length];
+        }
+        int read = Math.min(remaining, window.length - limit);
+        input.get(base + limit, window, limit, read);
+        limit += read;
+        CLASSIFIER.classify(window, limit, newlines, blanks, words);
+        return true;
+    }
+
+    /**
+     * Vista de texto sobre bytes ASCII: cada byte es un carácter.
+     */
+    private static final class Text implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        Text(ByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new Text(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] copy = new byte[length];
+            bytes.get(offset, copy);
+            return new String(copy, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Optimización de un árbol ({@link Ast}) antes de ejecutarlo: las operaciones entre constantes se
+ * reemplazan por su resultado, las condiciones entre constantes se evalúan, y se quitan las ramas de
+ * un {@code if} y los {@code while} que nunca se ejecutan. El árbol se modifica en su lugar, así que
+ * quien lo use después (por ejemplo {@link Program#compile(Ast)}) ya ve el programa reducido.
+ * <p>
+ * Cada nodo se visita una vez, con una pila explícita (sin recursión), y las sentencias de un bloque
+ * que se conserva se enlazan en la lista del bloque que lo contiene sin recorrerlas de nuevo, así que
+ * el tiempo es lineal en el tamaño del árbol. Una subexpresión compartida ({@link Ast}) se evalúa solo
+ * la primera vez; en sus otros usos se toma su resultado y se cuentan sus operaciones otra vez, así que
+ * el reporte es el mismo que con un árbol sin nodos compartidos.
+ * <p>
+ * Las divisiones entre cero no se evalúan, para que el error ocurra al ejecutar el programa.
+ */
+class Optimizer {
+    /**
+     * Resultado de la optimización.
+     * @param foldedOperations Operaciones y comparaciones evaluadas
+     * @param removedBranches  Ramas de {@code if} eliminadas
+     * @param removedLoops     Ciclos {@code while} eliminados
+     * @param messages         Descripción de los cambios, ordenada por línea
+     */
+    record Report(int foldedOperations, int removedBranches, int removedLoops, List<String> messages) {
+    }
+
+    // Estado de un nodo
+    private static final byte CONSTANT = 1;  // Expresión con valor conocido (en values)
+    private static final byte TRUE = 2;      // Condición siempre verdadera
+    private static final byte FALSE = 3;     // Condición siempre falsa
+
+    // Qué hacer con una sentencia al armar la lista de su bloque
+    private static final byte KEEP = 0;
+    private static final byte DROP = 1;
+    private static final byte THEN = 2;      // Se reemplaza por las sentencias del bloque then
+    private static final byte ELSE = 3;      // Se reemplaza por las sentencias del bloque else
+
+    private final Ast ast;
+    private final byte[] states;
+    private final long[] values;
+    private final byte[] actions;
+    private final int[] folds;         // Operaciones evaluadas dentro de cada expresión visitada, más 1 (0 = sin visitar)
+    private int[] stack = new int[64];
+    private int stackSize = 0;
+    private int folded = 0;            // Operaciones evaluadas desde la última sentencia o condición
+    private int foldedOperations = 0;
+    private int removedBranches = 0;
+    private int removedLoops = 0;
+    private final ArrayList<Message> messages = new ArrayList<>();
+
+    private record Message(int line, String text) {
+    }
+
+    private Optimizer(Ast ast) {
+        this.ast = ast;
+        this.states = new byte[ast.size()];
+        this.values = new long[ast.size()];
+        this.actions = new byte[ast.size()];
+        this.folds = new int[ast.size()];
+    }
+
+    /**
+     * Optimiza un árbol.
+     * @param ast Árbol construido con {@link Parser#parseTree()}; se modifica
+     * @return Los cambios realizados
+     */
+    public static Report optimize(Ast ast) {
+        return new Optimizer(ast).run();
+    }
+
+    private Report run() {
+        for (int statement = ast.firstStatement(); statement != Ast.NONE; statement = ast.next(statement)) {
+            visit(statement);
+        }
+        int[] list = relink(ast.firstStatement());
+        ast.setStatements(list[0], list[1], list[2]);
+        messages.sort(Comparator.comparingInt(Message::line));
+        List<String> texts = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            texts.add(message.text());
+        }
+        return new Report(foldedOperations, removedBranches, removedLoops, texts);
+    }
+
+    /**
+     * Recorre un subárbol en postorden: cada nodo se procesa después de sus hijos.
+     */
+    private void visit(int root) {
+        push(root, 0);
+        while (stackSize > 0) {
+            stackSize -= 2;
+            int node = stack[stackSize];
+            int phase = stack[stackSize + 1];
+            if (node == Ast.NONE) continue;
+            if (phase == 0) {
+                if (folds[node] > 0) {
+                    folded += folds[node] - 1; // Subexpresión compartida que ya se evaluó
+                    continue;
+                }
+                push(node, 1);
+                switch (ast.kind(node)) {
+                    case ASSIGNMENT -> push(ast.second(node), 0);
+                    case IF -> {
+                        push(ast.third(node), 0);
+                        push(ast.second(node), 0);
+                        push(ast.first(node), 0);
+                    }
+                    case WHILE, CONDITION, BINARY -> {
+                        push(ast.second(node), 0);
+                        push(ast.first(node), 0);
+                    }
+                    case BLOCK -> {
+                        for (int statement = ast.first(node); statement != Ast.NONE; statement = ast.next(statement)) {
+                            push(statement, 0);
+                        }
+                    }
+                    case GROUPING -> push(ast.first(node), 0);
+                    case LITERAL -> { }
+                }
+            } else {
+                finish(node);
+            }
+        }
+    }
+
+    private void finish(int node) {
+        int line = ast.line(node);
+        switch (ast.kind(node)) {
+            case LITERAL -> {
+                if (ast.literalType(node) == Token.Type.NUMBER) {
+                    states[node] = CONSTANT;
+                    values[node] = Program.parseNumber(ast.text(node));
+                }
+                folds[node] = 1;
+            }
+            case GROUPING -> {
+                int expression = ast.first(node);
+                if (isConstant(expression)) {
+                    setConstant(node, value(expression));
+                }
+                folds[node] = 1 + folds(expression);
+            }
+            case BINARY -> {
+                int left = ast.first(node);
+                int right = ast.second(node);
+                if (isConstant(left) && isConstant(right) && !(ast.operator(node) == Token.Lexeme.DIVISION && value(right) == 0)) {
+                    long a = value(left);
+                    long b = value(right);
+                    setConstant(node, switch (ast.operator(node)) {
+                        case PLUS -> a + b;
+                        case MINUS -> a - b;
+                        case MULTIPLICATION -> a * b;
+                        default -> a / b;
+                    });
+                    folded++;
+                    folds[node]++;
+                }
+                folds[node] += 1 + folds(left) + folds(right);
+            }
+            case CONDITION -> {
+                int left = ast.first(node);
+                int right = ast.second(node);
+                if (isConstant(left) && isConstant(right)) {
+                    long a = value(left);
+                    long b = value(right);
+                    boolean holds = switch (ast.operator(node)) {
+                        case EQUAL_TO -> a == b;
+                        case NOT_EQUAL_TO, DIFFERENT_FROM -> a != b;
+                        case LESS_THAN -> a < b;
+                        case LESS_EQUAL_THAN -> a <= b;
+                        case GREATER_THAN -> a > b;
+                        default -> a >= b;
+                    };
+                    states[node] = holds ? TRUE : FALSE;
+                    folded++;
+                }
+                reportFolded(line);
+            }
+            case ASSIGNMENT -> reportFolded(line);
+            case IF -> {
+                byte condition = states[ast.first(node)];
+                boolean hasElse = ast.third(node) != Ast.NONE;
+                if (condition == TRUE) {
+                    actions[node] = THEN;
+                    if (hasElse) {
+                        removedBranches++;
+                        report(line, "Unreachable else branch removed at line " + line);
+                    } else {
+                        report(line, "Always true condition removed at line " + line);
+                    }
+                } else if (condition == FALSE) {
+                    actions[node] = hasElse ? ELSE : DROP;
+                    removedBranches++;
+                    report(line, "Unreachable then branch removed at line " + line);
+                }
+            }
+            case WHILE -> {
+                if (states[ast.first(node)] == FALSE) {
+                    actions[node] = DROP;
+                    removedLoops++;
+                    report(line, "Unreachable while loop removed at line " + line);
+                }
+            }
+            case BLOCK -> {
+                int[] list = relink(ast.first(node));
+                ast.setFirst(node, list[0]);
+                ast.setSecond(node, list[1]);
+                ast.setThird(node, list[2]);
+            }
+        }
+    }
+
+    /**
+     * Vuelve a enlazar una lista de sentencias ya procesadas: quita las eliminadas y pone en su lugar
+     * las sentencias de la rama que se conserva.
+     * @return Primera sentencia, última sentencia y número de sentencias
+     */
+    private int[] relink(int first) {
+        int head = Ast.NONE;
+        int tail = Ast.NONE;
+        int count = 0;
+        int statement = first;
+        while (statement != Ast.NONE) {
+            int following = ast.next(statement);
+            int from = statement;
+            int to = statement;
+            int size = 1;
+            switch (actions[statement]) {
+                case DROP -> size = 0;
+                case THEN, ELSE -> {
+                    int block = actions[statement] == THEN ? ast.second(statement) : ast.third(statement);
+                    from = ast.first(block);
+                    to = ast.second(block);
+                    size = ast.third(block);
+                }
+                default -> { }
+            }
+            if (size > 0) {
+                if (tail == Ast.NONE) {
+                    head = from;
+                } else {
+                    ast.setNext(tail, from);
+                }
+                tail = to;
+                count += size;
+            }
+            statement = following;
+        }
+        if (tail != Ast.NONE) {
+            ast.setNext(tail, Ast.NONE);
+        }
+        return new int[] {head, tail, count};
+    }
+
+    private boolean isConstant(int expression) {
+        // Una expresión vacía vale 0, igual que al ejecutar
+        return expression == Ast.NONE || states[expression] == CONSTANT;
+    }
+
+    private int folds(int expression) {
+        return expression == Ast.NONE ? 0 : folds[expression] - 1;
+    }
+
+    private long value(int expression) {
+        return expression == Ast.NONE ? 0 : values[expression];
+    }
+
+    private void setConstant(int node, long value) {
+        states[node] = CONSTANT;
+        values[node] = value;
+        ast.setLiteral(node, Token.Type.NUMBER, ast.numbers().intern(Long.toString(value)));
+    }
+
+    private void reportFolded(int line) {
+        if (folded > 0) {
+            foldedOperations += folded;
+            report(line, "Constant expression folded at line " + line + " (" + folded + (folded == 1 ? " operation)" : " operations)"));
+            folded = 0;
+        }
+    }
+
+    private void report(int line, String text) {
+        messages.add(new Message(line, text));
+    }
+
+    private void push(int node, int phase) {
+        if (stackSize + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[stackSize] = node;
+        stack[stackSize + 1] = phase;
+        stackSize += 2;
+    }
+}
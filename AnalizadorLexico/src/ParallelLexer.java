@@ -0,0 +1,129 @@
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Análisis léxico en paralelo de una entrada grande.
+ * Ningún token ocupa más de una línea, así que la entrada se corta en partes al inicio de una línea,
+ * cada parte se analiza en un pool fork-join y los resultados se unen en orden. El resultado
+ * (tokens, líneas y errores) es el mismo que el de {@link TokenBuffer#lex(String, Diagnostics)}.
+ */
+class ParallelLexer {
+    private static final int MIN_CHUNK_SIZE = 1 << 16; // No vale la pena dividir partes más pequeñas
+
+    /**
+     * Realiza el análisis léxico en paralelo en el pool común.
+     * @param source Cadena de entrada para analizar
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     * @return El buffer con todos los tokens de la entrada
+     */
+    public static TokenBuffer lex(String source, Diagnostics errors) {
+        return lex(source, errors, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Realiza el análisis léxico en paralelo en el pool indicado.
+     * @param source Cadena de entrada para analizar
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     * @param pool   Pool donde se analizan las partes
+     * @return El buffer con todos los tokens de la entrada
+     */
+    public static TokenBuffer lex(String source, Diagnostics errors, ForkJoinPool pool) {
+        int[] bounds = split(source, pool.getParallelism() * 4);
+        int chunks = bounds.length - 1;
+        if (chunks <= 1 || pool.getParallelism() <= 1) {
+            return TokenBuffer.lex(source, errors);
+        }
+
+        // Primero se cuentan las líneas de cada parte para conocer la línea global en la que empieza
+        int[] firstLines = new int[chunks];
+        forEachChunk(pool, chunks, chunk -> firstLines[chunk] = countNewlines(source, bounds[chunk], bounds[chunk + 1]));
+        int line = 1;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int newlines = firstLines[chunk];
+            firstLines[chunk] = line;
+            line += newlines;
+        }
+
+        TokenBuffer[] parts = new TokenBuffer[chunks];
+        Diagnostics[] partErrors = new Diagnostics[chunks];
+        forEachChunk(pool, chunks, chunk -> {
+            partErrors[chunk] = new Diagnostics();
+            parts[chunk] = TokenBuffer.lex(source, bounds[chunk], bounds[chunk + 1], firstLines[chunk], partErrors[chunk]);
+        });
+
+        int total = 0;
+        for (TokenBuffer part : parts) {
+            total += part.size();
+        }
+        TokenBuffer result = new TokenBuffer(source, total);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            result.append(parts[chunk]);
+            errors.addAll(partErrors[chunk]);
+        }
+        return result;
+    }
+
+    /**
+     * Divide la entrada en partes de tamaño parecido que empiezan al inicio de una línea.
+     * @return Posiciones de corte, incluyendo 0 y el tamaño de la entrada
+     */
+    private static int[] split(String source, int targetChunks) {
+        int length = source.length();
+        int chunks = Math.max(1, Math.min(targetChunks, length / MIN_CHUNK_SIZE));
+        int[] bounds = new int[chunks + 1];
+        int count = 0;
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int cut = source.indexOf('\n', (int) ((long) length * chunk / chunks));
+            if (cut < 0) break;
+            cut++; // La siguiente parte empieza después del salto de línea
+            if (cut > bounds[count] && cut < length) {
+                bounds[++count] = cut;
+            }
+        }
+        bounds[++count] = length;
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    private static int countNewlines(String source, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (source.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+
+    private static void forEachChunk(ForkJoinPool pool, int chunks, IntConsumer action) {
+        pool.invoke(new ChunkAction(0, chunks, action));
+    }
+
+    /**
+     * Tarea fork-join que aplica una acción a cada parte del rango [from, to).
+     */
+    private static class ChunkAction extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer action; // Las tareas nunca se serializan
+
+        ChunkAction(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(from, middle, action), new ChunkAction(middle, to, action));
+        }
+    }
+}
@@ -1,147 +1,469 @@
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Clase parser
  */
 
 class Parser {
-    private final List<Token> tokens;
-    private final ArrayList<SyntaxException> errors;
-    private int currentPosition = 0;
+    // Tabla de operadores binarios: precedencia por ordinal de Token.Lexeme (0 si no es operador).
+    // Para agregar un operador basta con agregarlo aquí (y evaluarlo en Program y Optimizer).
+    static final int COMPARISON = 1;     // Solo en condiciones, una vez y sin anidar
+    static final int ADDITIVE = 2;
+    static final int MULTIPLICATIVE = 3;
+    private static final int[] PRECEDENCE = new int[Token.Lexeme.values().length];
+    private static final boolean[] SYNCHRONIZING = new boolean[Token.Lexeme.values().length];
+
+    static {
+        operator(Token.Lexeme.EQUAL_TO, COMPARISON);
+        operator(Token.Lexeme.NOT_EQUAL_TO, COMPARISON);
+        operator(Token.Lexeme.DIFFERENT_FROM, COMPARISON);
+        operator(Token.Lexeme.LESS_THAN, COMPARISON);
+        operator(Token.Lexeme.LESS_EQUAL_THAN, COMPARISON);
+        operator(Token.Lexeme.GREATER_THAN, COMPARISON);
+        operator(Token.Lexeme.GRATER_EQUAL_THAN, COMPARISON);
+        operator(Token.Lexeme.PLUS, ADDITIVE);
+        operator(Token.Lexeme.MINUS, ADDITIVE);
+        operator(Token.Lexeme.MULTIPLICATION, MULTIPLICATIVE);
+        operator(Token.Lexeme.DIVISION, MULTIPLICATIVE);
+
+        // Conjunto de sincronización: FOLLOW(sentencia) de la gramática ('if', 'while', 'else', 'endif' y 'endwhile';
+        // sin las variables, que también aparecen dentro de las expresiones), ';', que termina una asignación, y
+        // 'then' y 'do', que terminan la condición de un bloque (FOLLOW de la condición entre paréntesis)
+        synchronizing(Token.Lexeme.SEMICOLON);
+        synchronizing(Token.Lexeme.IF);
+        synchronizing(Token.Lexeme.WHILE);
+        synchronizing(Token.Lexeme.THEN);
+        synchronizing(Token.Lexeme.DO);
+        synchronizing(Token.Lexeme.ELSE);
+        synchronizing(Token.Lexeme.ENDIF);
+        synchronizing(Token.Lexeme.ENDWHILE);
+    }
+
+    private final TokenSource source;
+    // Se lanza para regresar al punto de recuperación; el error ya quedó registrado en la lista de errores
+    private static final SyntaxException RECOVERY = new SyntaxException("recovery", 0);
+
+    private final Diagnostics errors;
+    private final Reporter reporter; // Destino de las sentencias válidas
+    private int previousLine = 0; // Línea del último token consumido
+    private int position = 0;     // Número de tokens consumidos (posición del token actual en la fuente)
+    private final Ast ast = new Ast();
+    private boolean keepTree = false; // Si es false, el árbol de cada sentencia se descarta al terminarla
+    private int recoveries = 0;    // Veces que se llamó a synchronize()
+    private int skippedTokens = 0; // Tokens descartados por synchronize()
+
+    // Recuperación de errores dentro de la sentencia de nivel superior actual. Los bloques abiertos se numeran
+    // desde 1 (el más externo); por cada nivel se guarda el nivel del bloque más interno hasta él que acepta
+    // cada cierre (0 si ninguno), así que buscarlo no depende del anidamiento
+    private int[] thenLevels = new int[16];  // 'else': if que todavía no llega a su bloque else
+    private int[] ifLevels = new int[16];    // 'endif': cualquier if
+    private int[] whileLevels = new int[16]; // 'endwhile'
+    private int blockCount = 0;
+    private int damagedBlocks = 0;      // Los primeros bloques abiertos que contienen un error
+    private int headerLevel = 0;        // Bloque al que le falta su 'then' o 'do' (0 si ninguno)
+    private boolean failed = false;     // Si la sentencia tuvo errores
+    private boolean abandon = false;    // Si el error pide saltar el resto de la sentencia (ver fatalError)
+    private boolean pending = false;    // Si hay un error al que todavía no se le hace synchronize()
+    private int resumeLevel = 0;        // Nivel donde sigue el análisis después del último error
 
     // Constructores y metódos
-    public Parser(List<Token> tokens, ArrayList<SyntaxException> errors) {
-        this.tokens = tokens;
+    public Parser(List<Token> tokens, Diagnostics errors) {
+        this(new ListTokenSource(tokens), errors);
+    }
+
+    /**
+     * Constructor que consume los tokens conforme se van necesitando (por ejemplo, desde un {@link Lexer} sobre un Reader).
+     * @param source Fuente de tokens
+     * @param errors Lista donde se agregan los errores encontrados
+     */
+    public Parser(TokenSource source, Diagnostics errors) {
+        this(source, errors, Reporter.NONE);
+    }
+
+    /**
+     * Constructor que reporta las sentencias válidas.
+     * @param source   Fuente de tokens
+     * @param errors   Lista donde se agregan los errores encontrados
+     * @param reporter Destino de las sentencias válidas
+     */
+    public Parser(TokenSource source, Diagnostics errors, Reporter reporter) {
+        this.source = source;
         this.errors = errors;
+        this.reporter = reporter;
     }
 
     /**
      * Método para iniciar el análisis sintáctico
      */
-    public void parse()  throws SyntaxException{
-        while (!isAtEnd()) {
-            try {
-                parseStatement();
-            } catch (SyntaxException e) {
-                errors.add(e); // Agrega error al ArrayList y continua con el análisis
-                synchronize();
-            }
+    public void parse() {
+        while (!isAtEnd() && !errors.isFull()) {
+            parseNext();
         }
     }
 
     /**
-     * Método para sincronizar el analizador sintáctico
+     * Método para hacer el análisis sintáctico conservando el árbol de todas las sentencias válidas
+     * @return El árbol con las sentencias de nivel superior que no tuvieron errores
      */
-    private void synchronize() {
-        while (!isAtEnd()) {
-            // Checar un token de sincronización
-            if (isAtStatementBoundary(Objects.requireNonNull(peek()))) {
-                return; // Se encuentra un buen punto para retomar
+    public Ast parseTree() {
+        keepTree = true;
+        parse();
+        return ast;
+    }
+
+    /**
+     * Método para reiniciar el parser y analizar otra vez desde el token actual de la fuente, vaciando
+     * el árbol y los contadores (la fuente y la lista de errores se reinician aparte)
+     */
+    void reset() {
+        previousLine = 0;
+        position = 0;
+        recoveries = 0;
+        skippedTokens = 0;
+        startStatement();
+        ast.clear();
+    }
+
+    /**
+     * Método para parsear una sola sentencia de nivel superior, incluyendo la recuperación si tiene errores.
+     * Al terminar, la fuente queda en el inicio de la siguiente sentencia de nivel superior.
+     */
+    void parseNext() {
+        int mark = ast.size();
+        startStatement();
+        int statement = Ast.NONE;
+        try {
+            statement = parseStatement();
+        } catch (SyntaxException e) {
+            resumesAt(0); // El error ya se agregó a la lista; se sincroniza y termina la sentencia
+        }
+        statementCompleted(mark, statement);
+    }
+
+    /**
+     * Método para empezar una sentencia de nivel superior sin bloques abiertos ni errores
+     */
+    void startStatement() {
+        blockCount = 0;
+        damagedBlocks = 0;
+        headerLevel = 0;
+        failed = false;
+        abandon = false;
+        pending = false;
+    }
+
+    /**
+     * Método para conservar o descartar el árbol de una sentencia de nivel superior; si tuvo errores
+     * siempre se descarta. Si no se conserva ningún árbol, las tablas de símbolos también se descartan
+     * cuando crecen demasiado ({@link Ast#trimSymbols()})
+     * @param mark      Tamaño del árbol antes de la sentencia
+     * @param statement Nodo de la sentencia
+     */
+    void statementCompleted(int mark, int statement) {
+        if (keepTree && !failed) {
+            ast.addStatement(statement);
+        } else {
+            ast.truncate(mark);
+            if (!keepTree) {
+                ast.trimSymbols();
             }
+        }
+    }
+
+    /**
+     * Método que se llama cada vez que se reconoce una sentencia válida
+     * @param description Tipo de sentencia (assignment, if then, while)
+     * @param line        Línea del último token de la sentencia
+     */
+    void statementParsed(String description, int line) {
+        reporter.statement(description, line);
+    }
 
-            advance(); // Continua al siguiente token
+    /**
+     * Método para sincronizar el analizador sintáctico después de un error (recuperación en modo pánico):
+     * se saltan tokens hasta uno del conjunto de sincronización ({@link #isSynchronizing}), que la fuente
+     * encuentra sin revisarlos uno por uno si tiene un índice ({@link TokenSource#skipToSynchronizing()}).
+     * <ul>
+     *     <li>';' se consume y el análisis sigue en la lista de sentencias del bloque más interno.</li>
+     *     <li>'if' o 'while' empieza la siguiente sentencia del bloque más interno.</li>
+     *     <li>'then' o 'do' se consume si es el que le falta al bloque más interno (el error fue en su condición)
+     *     y el análisis sigue en sus sentencias; si no, se salta.</li>
+     *     <li>'else', 'endif' o 'endwhile' cierra el bloque más interno que lo acepta (los de adentro se
+     *     abandonan); si ningún bloque abierto lo acepta, se salta.</li>
+     * </ul>
+     * En el nivel superior la sentencia termina ahí. Todos los bloques que siguen abiertos quedan marcados
+     * con error, así que ya no se reportan como válidos. El resultado solo depende de los tokens, así que
+     * los errores siempre son los mismos.
+     * @return Nivel donde sigue el análisis: el número de bloques que siguen abiertos (0 termina la
+     *         sentencia de nivel superior; también al llegar al final o si la lista de errores se llenó)
+     */
+    int synchronize() {
+        recoveries++;
+        failed = true;
+        int level = 0;
+        if (abandon && blockCount > 0) {
+            skipBlocks();
+        } else {
+            while (!errors.isFull()) {
+                int skipped = source.skipToSynchronizing();
+                position += skipped;
+                skippedTokens += skipped;
+                if (isAtEnd()) break;
+                Token.Lexeme lexeme = source.lexeme();
+                if (lexeme == Token.Lexeme.SEMICOLON) {
+                    advance();
+                    skippedTokens++;
+                    level = blockCount;
+                } else if (lexeme == Token.Lexeme.IF || lexeme == Token.Lexeme.WHILE) {
+                    level = blockCount;
+                } else if (lexeme == Token.Lexeme.THEN || lexeme == Token.Lexeme.DO) {
+                    advance();
+                    skippedTokens++;
+                    if (!opensHeader(lexeme)) {
+                        continue; // No es el que falta: se salta
+                    }
+                    level = blockCount;
+                } else {
+                    level = closingLevel(lexeme);
+                    if (level < 0) {
+                        advance(); // Cierre de un bloque que no está abierto
+                        skippedTokens++;
+                        level = 0;
+                        continue;
+                    }
+                }
+                break;
+            }
         }
+        blockCount = level;
+        damagedBlocks = level;
+        headerLevel = 0;
+        abandon = false;
+        return level;
+    }
+
+    /**
+     * Checa si un 'then' o 'do' es el que le falta al bloque más interno.
+     */
+    private boolean opensHeader(Token.Lexeme lexeme) {
+        if (headerLevel == 0 || headerLevel != blockCount) return false;
+        return lexeme == Token.Lexeme.THEN ? ifLevels[blockCount] == blockCount : whileLevels[blockCount] == blockCount;
     }
 
     /**
-     * Método para checar si el token es un punto clave
+     * Salta hasta cerrar todos los bloques abiertos, contando los 'if' y 'while' que se abren y los
+     * 'endif' y 'endwhile' que se cierran.
      */
-    private boolean isAtStatementBoundary(Token token) {
-        // Checa si el token es un punto clave de otro token
-        if (token.getLexeme() == null) {
-            return false; // No es un token clave
+    private void skipBlocks() {
+        int open = blockCount;
+        while (!isAtEnd() && open > 0) {
+            Token.Lexeme lexeme = source.lexeme();
+            if (lexeme == Token.Lexeme.IF || lexeme == Token.Lexeme.WHILE) {
+                open++;
+            } else if (lexeme == Token.Lexeme.ENDIF || lexeme == Token.Lexeme.ENDWHILE) {
+                open--;
+            }
+            advance();
+            skippedTokens++;
         }
-        return switch (token.getLexeme()) {
-            case IF, WHILE -> true;
-            default -> false;
+    }
+
+    /**
+     * Busca el bloque abierto más interno que acepta un cierre.
+     * @return Su nivel (desde 1), o -1 si ninguno lo acepta
+     */
+    private int closingLevel(Token.Lexeme lexeme) {
+        int level = switch (lexeme) {
+            case ELSE -> thenLevels[blockCount];
+            case ENDIF -> ifLevels[blockCount];
+            default -> whileLevels[blockCount];
         };
+        return level == 0 ? -1 : level;
+    }
+
+    /**
+     * Método para el punto de recuperación de un bloque: si el error todavía no se sincronizó, se sincroniza.
+     * @param level Nivel del bloque (0 para el nivel superior)
+     * @return true si el análisis sigue en este bloque; si no, hay que volver a lanzar la excepción
+     */
+    boolean resumesAt(int level) {
+        if (pending) {
+            pending = false;
+            resumeLevel = synchronize();
+        }
+        return resumeLevel == level;
+    }
+
+    /**
+     * Método para registrar que se abrió un if (el bloque then y después el else)
+     * @return El nivel del bloque
+     */
+    int openIf() {
+        int level = openBlock();
+        thenLevels[level] = level;
+        ifLevels[level] = level;
+        headerLevel = level;
+        return level;
+    }
+
+    /**
+     * Método para registrar que se abrió un while
+     * @return El nivel del bloque
+     */
+    int openWhile() {
+        int level = openBlock();
+        whileLevels[level] = level;
+        headerLevel = level;
+        return level;
+    }
+
+    /**
+     * Método para registrar que se leyó el 'then' o 'do' del bloque más interno
+     */
+    void headerParsed() {
+        headerLevel = 0;
+    }
+
+    /**
+     * Método para registrar que el if más interno pasó a su bloque else
+     */
+    void openElse() {
+        thenLevels[blockCount] = thenLevels[blockCount - 1];
+    }
+
+    /**
+     * Abre un bloque que no acepta ningún cierre (quien llama lo corrige).
+     */
+    private int openBlock() {
+        int level = ++blockCount;
+        if (level == thenLevels.length) {
+            thenLevels = Arrays.copyOf(thenLevels, level * 2);
+            ifLevels = Arrays.copyOf(ifLevels, level * 2);
+            whileLevels = Arrays.copyOf(whileLevels, level * 2);
+        }
+        thenLevels[level] = thenLevels[level - 1];
+        ifLevels[level] = ifLevels[level - 1];
+        whileLevels[level] = whileLevels[level - 1];
+        return level;
+    }
+
+    /**
+     * Método para cerrar el bloque más interno
+     * @return true si no tuvo errores (la sentencia se reporta como válida)
+     */
+    boolean closeBlock() {
+        boolean valid = blockCount > damagedBlocks;
+        blockCount--;
+        damagedBlocks = Math.min(damagedBlocks, blockCount);
+        return valid;
     }
 
+    /**
+     * Checa si un lexema está en el conjunto de sincronización de la recuperación de errores.
+     */
+    static boolean isSynchronizing(Token.Lexeme lexeme) {
+        return lexeme != null && SYNCHRONIZING[lexeme.ordinal()];
+    }
+
+    private static void synchronizing(Token.Lexeme lexeme) {
+        SYNCHRONIZING[lexeme.ordinal()] = true;
+    }
+
+    // Contadores para AnalysisMetrics
+    int recoveries() { return recoveries; }
+    int skippedTokens() { return skippedTokens; }
+
+    /**
+     * Máximo de bloques y paréntesis anidados que se encontró (este parser no lo lleva y regresa 0).
+     */
+    int maxNesting() { return 0; }
+
     /**
      * Método para parsear una sentencia
+     * @return El nodo de la sentencia en el árbol
      */
-    private void parseStatement()  throws SyntaxException {
-        Token currentToken = peek();
-        assert currentToken != null;
-        if (currentToken.getType() == Token.Type.VARIABLE) {
-            parseAssignmentStatement();
+    private int parseStatement()  throws SyntaxException {
+        if (isAtEnd()) {
+            throw unexpectedEnd();
+        }
+        if (source.type() == Token.Type.VARIABLE) {
+            return parseAssignmentStatement();
+        } else if (source.lexeme() == null) {
+            throw unexpectedToken();
         } else {
-            switch (currentToken.getLexeme()) {
+            return switch (source.lexeme()) {
                 case WHILE -> parseWhileStatement();
                 case IF -> parseIfStatement();
-                default -> throw new SyntaxException("Syntax error: Unexpected token " + currentToken.getValue() + " at line " + currentToken.getLineNumber(),  currentToken.getLineNumber());
-            }
+                default -> throw unexpectedToken();
+            };
         }
     }
 
     /**
      * Método para parsear una asignación
      */
-    private void parseAssignmentStatement()  throws SyntaxException {
+    private int parseAssignmentStatement()  throws SyntaxException {
+        int token = position;
+        int line = source.lineNumber();
+        ast.setStatementLine(line); // Las líneas de sus expresiones son relativas a esta
+        int variable = source.intern(ast.variables());
         consume(Token.Type.VARIABLE);// Consumir el nombre de la variable
         consume(Token.Lexeme.ASSIGN); // Consumir el operador '='
-        parseExpression(); // Parsear la expresión a la derecha del '='
+        int expression = parseExpression(); // Parsear la expresión a la derecha del '='
         consume(Token.Lexeme.SEMICOLON); // Consumir el ';'
 
-        System.out.println("Valid assignment statement at line " + previous().getLineNumber());
+        statementParsed("assignment", previousLine);
+        return ast.assignment(token, line, variable, expression);
     }
     /**
      * Método para parsear una expresión matematica
+     * @return El nodo de la expresión, o {@link Ast#NONE} si no tiene operandos
      */
-    private Expression parseExpression() throws SyntaxException {
-        return parseAdditionSubtraction();
-    }
-
-    private Expression parseAdditionSubtraction() throws SyntaxException {
-        Expression expr = parseMultiplicationDivision();
-        while (true) {
-            Token operator;
-            if (check(Token.Lexeme.PLUS)) {
-                operator = consume(Token.Lexeme.PLUS);
-                expr = new Expression.Binary(expr, operator, parseMultiplicationDivision());
-            } else if (check(Token.Lexeme.MINUS)) {
-                operator = consume(Token.Lexeme.MINUS);
-                expr = new Expression.Binary(expr, operator, parseMultiplicationDivision());
-            } else {
-                break;
-            }
-        }
-        return expr;
+    private int parseExpression() throws SyntaxException {
+        return parseExpression(ADDITIVE);
     }
 
-    private Expression parseMultiplicationDivision() throws SyntaxException {
-        Expression expr = parsePrimary();
-
-        while (true) {
-            Token operator;
-            if (check(Token.Lexeme.MULTIPLICATION)) {
-                operator = consume(Token.Lexeme.MULTIPLICATION);
-                expr = new Expression.Binary(expr, operator, parsePrimary());
-            } else if (check(Token.Lexeme.DIVISION)) {
-                operator = consume(Token.Lexeme.DIVISION);
-                expr = new Expression.Binary(expr, operator, parsePrimary());
-            } else {
+    /**
+     * Método para parsear una expresión con la tabla de precedencia: un solo ciclo lee los operadores de
+     * precedencia {@code minPrecedence} o mayor, y el operando derecho de cada uno se parsea con la
+     * precedencia siguiente, así que los operadores del mismo nivel se agrupan a la izquierda.
+     * Una comparación termina la expresión (no se pueden encadenar).
+     * @param minPrecedence Precedencia mínima de los operadores que se aceptan
+     * @return El nodo de la expresión, o {@link Ast#NONE} si no tiene operandos
+     */
+    private int parseExpression(int minPrecedence) throws SyntaxException {
+        int expr = parsePrimary();
+        while (!isAtEnd()) {
+            Token.Lexeme operator = source.lexeme();
+            int precedence = precedence(operator);
+            if (precedence < minPrecedence) {
                 break;
             }
+            int token = position;
+            int line = source.lineNumber();
+            advance();
+            int right = parseExpression(precedence + 1);
+            if (precedence == COMPARISON) {
+                return ast.condition(token, line, expr, operator, right);
+            }
+            expr = ast.binary(token, line, expr, operator, right);
         }
-
         return expr;
     }
-    private Expression parsePrimary() throws SyntaxException {
-        if (checkType(Token.Type.NUMBER)) {
-            return new Expression.Literal(consume(Token.Type.NUMBER));
-        } else if (checkType(Token.Type.VARIABLE)) {
-            // Handling variable tokens
-            return new Expression.Literal(consume(Token.Type.VARIABLE));
+
+    private int parsePrimary() throws SyntaxException {
+        if (checkType(Token.Type.NUMBER) || checkType(Token.Type.VARIABLE)) {
+            return literal();
         } else if (check(Token.Lexeme.OPEN_PARENTHESIS)) {
+            int token = position;
+            int line = source.lineNumber();
             consume(Token.Lexeme.OPEN_PARENTHESIS);
-            Expression expr = parseExpression();
+            int expr = parseExpression();
             consume(Token.Lexeme.CLOSURE_PARENTHESIS);
-            return expr;
+            return ast.grouping(token, line, expr);
         }
-        return null;
+        return Ast.NONE;
     }
 
 
@@ -149,117 +471,182 @@ class Parser {
     /**
      * Método para parsear una condición
      */
-    private Condition parseCondition()  throws SyntaxException {
+    private int parseCondition()  throws SyntaxException {
         consume(Token.Lexeme.OPEN_PARENTHESIS);
-        Expression leftOperand = parseExpression(); //Comprueba que el operando de la izquierda sea una expresión
-
-        // Se asegura de que el siguiente token es un operador
-        Token operator;
-        if (Objects.requireNonNull(peek()).getLexeme() == Token.Lexeme.LESS_THAN || Objects.requireNonNull(peek()).getLexeme() == Token.Lexeme.LESS_EQUAL_THAN ||
-                Objects.requireNonNull(peek()).getLexeme() == Token.Lexeme.GREATER_THAN || Objects.requireNonNull(peek()).getLexeme() == Token.Lexeme.GRATER_EQUAL_THAN ||
-                Objects.requireNonNull(peek()).getLexeme() == Token.Lexeme.EQUAL_TO) {
+        int condition = parseExpression(COMPARISON); // Operando izquierdo, comparación y operando derecho
 
-            operator = advance();
-        } else {
-            throw new SyntaxException("Expected comparison operator" + Objects.requireNonNull(peek()).getValue() + " at line " + Objects.requireNonNull(peek()).getLineNumber(), Objects.requireNonNull(peek()).getLineNumber()); // Error si no es un operador
+        // Se asegura de que la expresión tuvo un operador de comparación
+        if (condition == Ast.NONE || ast.kind(condition) != Ast.Kind.CONDITION) {
+            if (isAtEnd()) {
+                throw unexpectedEnd();
+            }
+            throw expectedComparison(); // Error si no es un operador
         }
-
-        Expression rightOperand = parseExpression(); // Comprueba que el operando de la derecha sea una expresión
         consume(Token.Lexeme.CLOSURE_PARENTHESIS);
+        return condition;
+    }
 
-        return new Condition(leftOperand, operator, rightOperand);
+    private static void operator(Token.Lexeme lexeme, int precedence) {
+        PRECEDENCE[lexeme.ordinal()] = precedence;
     }
 
+    /**
+     * Obtiene la precedencia de un operador binario en la tabla.
+     * @return La precedencia, o 0 si el lexema no es un operador binario (o es null)
+     */
+    static int precedence(Token.Lexeme lexeme) {
+        return lexeme == null ? 0 : PRECEDENCE[lexeme.ordinal()];
+    }
+
+    /**
+     * Método para checar si el lexema es un operador de comparación aceptado en una condición
+     */
+    static boolean isComparison(Token.Lexeme lexeme) {
+        return precedence(lexeme) == COMPARISON;
+    }
 
     /**
      * Método para parsear un bloque if-then-endif
      */
-    private void parseIfStatement()  throws SyntaxException {
+    private int parseIfStatement()  throws SyntaxException {
+        int token = position;
+        int line = source.lineNumber();
+        ast.setStatementLine(line); // Las líneas de sus expresiones son relativas a esta
         consume(Token.Lexeme.IF); // Consumir 'if'
-        parseCondition(); // Parsear condición
-        consume(Token.Lexeme.THEN); // Consumir 'then'
+        int level = openIf();
+        int condition = Ast.NONE;
+        int thenBlock;
+        try {
+            condition = parseCondition(); // Parsear condición
+            thenBlock = block();
+            consume(Token.Lexeme.THEN); // Consumir 'then'
+            headerParsed();
+        } catch (SyntaxException e) {
+            if (!resumesAt(level)) throw e;
+            thenBlock = block(); // Se siguen revisando las sentencias del bloque
+        }
 
         while (!check(Token.Lexeme.ENDIF) && !check(Token.Lexeme.ELSE)) {
-            parseStatement(); // Parsear sentencias del bloque 'then'
+            try {
+                ast.append(thenBlock, parseStatement()); // Parsear sentencias del bloque 'then'
+            } catch (SyntaxException e) {
+                if (!resumesAt(level)) throw e;
+            }
         }
 
+        int elseBlock = Ast.NONE;
         if (check(Token.Lexeme.ELSE)) {
+            elseBlock = block();
             consume(Token.Lexeme.ELSE); // Consumir 'else'
+            openElse();
             while (!check(Token.Lexeme.ENDIF)) {
-                parseStatement(); // Parsear sentencias del bloque 'else'
+                try {
+                    ast.append(elseBlock, parseStatement()); // Parsear sentencias del bloque 'else'
+                } catch (SyntaxException e) {
+                    if (!resumesAt(level)) throw e;
+                }
             }
         }
 
         consume(Token.Lexeme.ENDIF); // Consumir 'endif'
-        System.out.println("Valid if then statement at line " + previous().getLineNumber());
+        if (closeBlock()) {
+            statementParsed("if then", previousLine);
+        }
+        return ast.ifStatement(token, line, condition, thenBlock, elseBlock);
     }
 
     /**
      * Método para parsear un bloque while-do  -endwhile
      */
-    private void parseWhileStatement()  throws SyntaxException {
+    private int parseWhileStatement()  throws SyntaxException {
+        int token = position;
+        int line = source.lineNumber();
+        ast.setStatementLine(line); // Las líneas de sus expresiones son relativas a esta
         consume(Token.Lexeme.WHILE); // Consumir 'while'
-        parseCondition(); // Parsear condición
-        consume(Token.Lexeme.DO); // Consumir 'do'
+        int level = openWhile();
+        int condition = Ast.NONE;
+        int body;
+        try {
+            condition = parseCondition(); // Parsear condición
+            body = block();
+            consume(Token.Lexeme.DO); // Consumir 'do'
+            headerParsed();
+        } catch (SyntaxException e) {
+            if (!resumesAt(level)) throw e;
+            body = block(); // Se siguen revisando las sentencias del bloque
+        }
 
         while (!check(Token.Lexeme.ENDWHILE)) {
-            parseStatement(); // Parsear cada sentencia dentro del bucle
+            try {
+                ast.append(body, parseStatement()); // Parsear cada sentencia dentro del bucle
+            } catch (SyntaxException e) {
+                if (!resumesAt(level)) throw e;
+            }
         }
 
         consume(Token.Lexeme.ENDWHILE); // Consumir 'endwhile'
-        System.out.println("Valid while statement at line " + previous().getLineNumber());
+        if (closeBlock()) {
+            statementParsed("while", previousLine);
+        }
+        return ast.whileStatement(token, line, condition, body);
     }
 
     /**
-     * Método para obtener el token actual
+     * Método para crear un bloque vacío en el árbol, asociado al token actual ('then', 'else' o 'do')
      */
-    private Token peek() {
-        if (isAtEnd()) return null;
-        return tokens.get(currentPosition);
+    int block() {
+        return ast.block(position, source.lineNumber());
     }
 
     /**
-     * Método para obtener el token anterior
+     * Método para consumir un número o variable y agregarlo al árbol
      */
-    private Token previous() {
-        return tokens.get(currentPosition - 1);
+    int literal() {
+        Token.Type type = source.type();
+        int node = ast.literal(position, source.lineNumber(), type, source.intern(ast.symbols(type)));
+        advance();
+        return node;
     }
 
     /**
      * Método para checar si se ha llegado al final de la lista de tokens
      */
-    private boolean isAtEnd() {
-        return currentPosition >= tokens.size();
+    boolean isAtEnd() {
+        return source.isAtEnd();
     }
 
     /**
      * Método para avanzar al siguiente token
      */
-    private Token advance() {
-        if (!isAtEnd()) currentPosition++;
-        return previous();
+    void advance() {
+        if (!isAtEnd()) {
+            previousLine = source.lineNumber();
+            position++;
+            source.advance();
+        }
     }
 
     /**
      * Método para checar si el token actual es del tipo especificado
      */
-    private boolean check(Token.Lexeme lexeme) {
+    boolean check(Token.Lexeme lexeme) {
         if (isAtEnd()) return false;
-        return Objects.requireNonNull(peek()).getLexeme() == lexeme;
+        return source.lexeme() == lexeme;
     }
 
     /**
      * Método para checar si el token actual es del tipo especificado
      * @param expectedLexeme El lexema esperado
      */
-    private Token consume(Token.Lexeme expectedLexeme)  throws SyntaxException {
+    void consume(Token.Lexeme expectedLexeme)  throws SyntaxException {
         if (check(expectedLexeme)) {
-            return advance();
+            advance();
+            return;
         }
-        if (peek() == null) {
-            throw new SyntaxException("Expected " + expectedLexeme, 0);
+        if (isAtEnd()) {
+            throw error(Diagnostic.Code.EXPECTED, 0, 0, expectedLexeme, null, null);
         }
-        throw new SyntaxException("Expected " + expectedLexeme + " but found " + Objects.requireNonNull(peek()).getType() + " at line " + Objects.requireNonNull(peek()).getLineNumber(), Objects.requireNonNull(peek()).getLineNumber());
+        throw error(Diagnostic.Code.EXPECTED, source.lineNumber(), source.column(), expectedLexeme, source.type(), null);
     }
 
 
@@ -267,19 +654,92 @@ class Parser {
      * Método para checar si el token actual es del tipo especificado
      * @param type El tipo de token a checar
      */
-    private boolean checkType(Token.Type type) {
+    boolean checkType(Token.Type type) {
         if (isAtEnd()) return false;
-        return Objects.requireNonNull(peek()).getType() == type;
+        return source.type() == type;
     }
 
     /**
      * Método para checar si el token actual es del tipo especificado
      * @param expectedType El tipo de token esperado
      */
-    private Token consume(Token.Type expectedType) throws SyntaxException {
+    void consume(Token.Type expectedType) throws SyntaxException {
         if (checkType(expectedType)) {
-            return advance();
+            advance();
+            return;
+        }
+        if (isAtEnd()) {
+            throw error(Diagnostic.Code.EXPECTED, 0, 0, expectedType, null, null);
         }
-        throw new SyntaxException("Expected " + expectedType + " but found " + Objects.requireNonNull(peek()).getType() + " at line " + Objects.requireNonNull(peek()).getLineNumber(), Objects.requireNonNull(peek()).getLineNumber());
+        throw error(Diagnostic.Code.EXPECTED, source.lineNumber(), source.column(), expectedType, source.type(), null);
+    }
+
+    /**
+     * Método para registrar un error en la lista de errores
+     * @return La excepción que hay que lanzar para regresar al punto de recuperación
+     */
+    SyntaxException error(Diagnostic.Code code, int line, int column, Enum<?> expected, Token.Type found, String foundText) {
+        errors.add(code, line, column, expected, found, foundText);
+        pending = true;
+        return RECOVERY;
+    }
+
+    /**
+     * Método para registrar un error después del cual no se sigue dentro de la sentencia (por ejemplo,
+     * demasiado anidamiento): la recuperación salta hasta cerrar todos sus bloques abiertos
+     * @return La excepción que hay que lanzar para regresar al punto de recuperación
+     */
+    SyntaxException fatalError(Diagnostic.Code code, int line, int column) {
+        abandon = true;
+        return error(code, line, column, null, null, null);
+    }
+
+    /**
+     * Método para registrar que el token actual no puede iniciar una sentencia
+     */
+    SyntaxException unexpectedToken() {
+        return error(Diagnostic.Code.UNEXPECTED_TOKEN, source.lineNumber(), source.column(), null, source.type(), source.text());
+    }
+
+    /**
+     * Método para registrar que la entrada terminó a la mitad de una sentencia
+     */
+    SyntaxException unexpectedEnd() {
+        return error(Diagnostic.Code.UNEXPECTED_END, previousLine, 0, null, null, null);
+    }
+
+    /**
+     * Método para registrar que el token actual no es un operador de comparación
+     */
+    SyntaxException expectedComparison() {
+        return error(Diagnostic.Code.EXPECTED_COMPARISON, source.lineNumber(), source.column(), null, source.type(), source.text());
+    }
+
+    /**
+     * Método para obtener la línea del último token consumido
+     */
+    int previousLine() {
+        return previousLine;
+    }
+
+    /**
+     * Método para obtener el árbol que se está construyendo
+     */
+    Ast ast() {
+        return ast;
+    }
+
+    /**
+     * Método para obtener la posición del token actual en la fuente
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Método para obtener la fuente de tokens
+     */
+    TokenSource source() {
+        return source;
     }
-}
\ No newline at end of file
+}
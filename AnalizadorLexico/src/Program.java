@@ -0,0 +1,305 @@
+import java.util.Arrays;
+
+/**
+ * Programa listo para ejecutarse: el árbol ({@link Ast}) traducido a un arreglo de instrucciones de una
+ * máquina de pila. Cada variable ya es un índice (slot) en el arreglo de valores y cada número una
+ * constante {@code long}, así que al ejecutar no se buscan nombres ni se crean objetos.
+ * <p>
+ * La traducción recorre el árbol con una pila explícita, así que un programa muy anidado no
+ * provoca un {@link StackOverflowError}.
+ */
+final class Program {
+    // Instrucciones; las que tienen operando lo guardan en la siguiente posición del código
+    static final int CONST = 0;      // CONST índice: apila una constante
+    static final int LOAD = 1;       // LOAD slot: apila el valor de una variable
+    static final int STORE = 2;      // STORE slot: guarda el tope de la pila en una variable
+    static final int ADD = 3;
+    static final int SUBTRACT = 4;
+    static final int MULTIPLY = 5;
+    static final int DIVIDE = 6;
+    static final int JUMP = 7;       // JUMP destino
+    static final int UNLESS_EQUAL = 8;        // UNLESS_* destino: saca dos valores y salta si la comparación es falsa
+    static final int UNLESS_NOT_EQUAL = 9;
+    static final int UNLESS_LESS = 10;
+    static final int UNLESS_LESS_EQUAL = 11;
+    static final int UNLESS_GREATER = 12;
+    static final int UNLESS_GREATER_EQUAL = 13;
+    static final int HALT = 14;
+
+    private final int[] code;
+    private final int[] lines;       // Línea de origen de cada instrucción
+    private final long[] constants;
+    private final String[] variables; // Nombre de cada slot
+    private final int maxStack;      // Altura máxima de la pila de valores
+
+    private Program(int[] code, int[] lines, long[] constants, String[] variables, int maxStack) {
+        this.code = code;
+        this.lines = lines;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * Traduce las sentencias de nivel superior de un árbol.
+     * @param ast Árbol construido con {@link Parser#parseTree()}
+     * @return El programa
+     */
+    public static Program compile(Ast ast) {
+        return new Compiler(ast).compile();
+    }
+
+    int[] code() {
+        return code;
+    }
+
+    int[] lines() {
+        return lines;
+    }
+
+    long[] constants() {
+        return constants;
+    }
+
+    int maxStack() {
+        return maxStack;
+    }
+
+    /**
+     * Obtiene el número de variables (slots) del programa.
+     * @return El número de slots
+     */
+    public int slotCount() {
+        return variables.length;
+    }
+
+    /**
+     * Obtiene el nombre de la variable de un slot.
+     * @param slot Slot de la variable
+     * @return El nombre de la variable
+     */
+    public String variable(int slot) {
+        return variables[slot];
+    }
+
+    /**
+     * Obtiene el valor de un número escrito en el programa. Los números que no caben en un {@code long}
+     * se truncan igual que el resultado de una operación que se desborda.
+     * @param text Dígitos del número; puede empezar con '-' si lo generó {@link Optimizer}
+     * @return El valor del número
+     */
+    static long parseNumber(String text) {
+        boolean negative = text.startsWith("-");
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < text.length(); i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Traducción del árbol a instrucciones.
+     */
+    private static final class Compiler {
+        private final Ast ast;
+        private int[] code = new int[64];
+        private int[] lines = new int[64];
+        private int size = 0;
+        private final long[] constants;
+        private final int zero;  // Constante 0, valor de una expresión vacía
+        private int height = 0;  // Altura de la pila de valores en el punto actual
+        private int maxHeight = 0;
+        // Pila de trabajo: nodo, fase y dos datos por entrada (en las expresiones, a es la línea de la sentencia)
+        private int[] work = new int[64];
+        private int workSize = 0;
+
+        Compiler(Ast ast) {
+            this.ast = ast;
+            SymbolTable numbers = ast.numbers();
+            constants = new long[numbers.size() + 1];
+            for (int id = 0; id < numbers.size(); id++) {
+                constants[id] = parseNumber(numbers.name(id));
+            }
+            zero = numbers.size();
+        }
+
+        Program compile() {
+            for (int statement = ast.firstStatement(); statement != Ast.NONE; statement = ast.next(statement)) {
+                compileTree(statement);
+            }
+            emit(HALT, 0);
+            String[] variables = new String[ast.variables().size()];
+            for (int slot = 0; slot < variables.length; slot++) {
+                variables[slot] = ast.variables().name(slot);
+            }
+            return new Program(Arrays.copyOf(code, size), Arrays.copyOf(lines, size), constants, variables, maxHeight);
+        }
+
+        private void compileTree(int root) {
+            push(root, 0, 0, 0);
+            while (workSize > 0) {
+                workSize -= 4;
+                int node = work[workSize];
+                int phase = work[workSize + 1];
+                int a = work[workSize + 2];
+                int b = work[workSize + 3];
+                if (node == Ast.NONE) {
+                    emit(CONST, 0, zero);
+                    continue;
+                }
+                int line = ast.line(node);
+                switch (ast.kind(node)) {
+                    case ASSIGNMENT -> {
+                        if (phase == 0) {
+                            push(node, 1, 0, 0);
+                            push(ast.second(node), 0, line, 0);
+                        } else {
+                            emit(STORE, line, ast.first(node));
+                        }
+                    }
+                    case IF -> {
+                        if (phase == 0) {
+                            push(node, 1, 0, 0);
+                            push(ast.first(node), 0, line, 0);
+                        } else if (phase == 1) {
+                            int skipThen = emitUnless(ast.first(node));
+                            push(node, 2, skipThen, 0);
+                            pushBlock(ast.second(node));
+                        } else if (phase == 2) {
+                            if (ast.third(node) == Ast.NONE) {
+                                patch(a);
+                            } else {
+                                int skipElse = emit(JUMP, line, 0);
+                                patch(a);
+                                push(node, 3, skipElse, 0);
+                                pushBlock(ast.third(node));
+                            }
+                        } else {
+                            patch(a);
+                        }
+                    }
+                    case WHILE -> {
+                        if (phase == 0) {
+                            push(node, 1, size, 0);
+                            push(ast.first(node), 0, line, 0);
+                        } else if (phase == 1) {
+                            int exit = emitUnless(ast.first(node));
+                            push(node, 2, a, exit);
+                            pushBlock(ast.second(node));
+                        } else {
+                            emit(JUMP, line, a);
+                            patch(b);
+                        }
+                    }
+                    case BLOCK -> {
+                        // a es la siguiente sentencia del bloque por traducir
+                        if (a != Ast.NONE) {
+                            push(node, 0, ast.next(a), 0);
+                            push(a, 0, 0, 0);
+                        }
+                    }
+                    case CONDITION -> {
+                        // El salto lo agrega la sentencia; aquí solo se apilan los operandos
+                        push(ast.second(node), 0, a, 0);
+                        push(ast.first(node), 0, a, 0);
+                    }
+                    case BINARY -> {
+                        if (phase == 0) {
+                            push(node, 1, a, 0);
+                            push(ast.second(node), 0, a, 0);
+                            push(ast.first(node), 0, a, 0);
+                        } else {
+                            emit(switch (ast.operator(node)) {
+                                case PLUS -> ADD;
+                                case MINUS -> SUBTRACT;
+                                case MULTIPLICATION -> MULTIPLY;
+                                default -> DIVIDE;
+                            }, ast.line(node, a));
+                        }
+                    }
+                    case LITERAL -> {
+                        if (ast.literalType(node) == Token.Type.VARIABLE) {
+                            emit(LOAD, ast.line(node, a), ast.first(node));
+                        } else {
+                            emit(CONST, ast.line(node, a), ast.first(node));
+                        }
+                    }
+                    case GROUPING -> push(ast.first(node), 0, a, 0);
+                }
+            }
+        }
+
+        private void pushBlock(int block) {
+            push(block, 0, ast.first(block), 0);
+        }
+
+        /**
+         * Agrega el salto condicional de una condición (sus operandos ya están en la pila).
+         * @return Posición del destino del salto, para completarlo con {@link #patch(int)}
+         */
+        private int emitUnless(int condition) {
+            int opcode = switch (ast.operator(condition)) {
+                case EQUAL_TO -> UNLESS_EQUAL;
+                case NOT_EQUAL_TO, DIFFERENT_FROM -> UNLESS_NOT_EQUAL;
+                case LESS_THAN -> UNLESS_LESS;
+                case LESS_EQUAL_THAN -> UNLESS_LESS_EQUAL;
+                case GREATER_THAN -> UNLESS_GREATER;
+                default -> UNLESS_GREATER_EQUAL;
+            };
+            return emit(opcode, ast.line(condition), 0);
+        }
+
+        private void emit(int opcode, int line) {
+            ensureCapacity(1);
+            lines[size] = line;
+            code[size++] = opcode;
+            adjustHeight(opcode);
+        }
+
+        /**
+         * Agrega una instrucción con operando.
+         * @return Posición del operando
+         */
+        private int emit(int opcode, int line, int operand) {
+            ensureCapacity(2);
+            lines[size] = line;
+            code[size++] = opcode;
+            lines[size] = line;
+            code[size++] = operand;
+            adjustHeight(opcode);
+            return size - 1;
+        }
+
+        private void patch(int operand) {
+            code[operand] = size;
+        }
+
+        private void adjustHeight(int opcode) {
+            switch (opcode) {
+                case CONST, LOAD -> height++;
+                case STORE, ADD, SUBTRACT, MULTIPLY, DIVIDE -> height--;
+                case JUMP, HALT -> { }
+                default -> height -= 2;
+            }
+            maxHeight = Math.max(maxHeight, height);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+        }
+
+        private void push(int node, int phase, int a, int b) {
+            if (workSize + 4 > work.length) {
+                work = Arrays.copyOf(work, work.length * 2);
+            }
+            work[workSize] = node;
+            work[workSize + 1] = phase;
+            work[workSize + 2] = a;
+            work[workSize + 3] = b;
+            workSize += 4;
+        }
+    }
+}
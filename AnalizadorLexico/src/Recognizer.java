@@ -0,0 +1,351 @@
+import java.util.Arrays;
+
+/**
+ * Reconocedor de la gramática de {@link Parser} que solo dice si la entrada es válida y en qué tokens hay
+ * errores: no construye árbol, no crea excepciones ni diagnósticos y no reporta sentencias. Es un autómata de
+ * pila LL(1) guiado por tablas: cada token se convierte en una clase (por el ordinal de su tipo o de su
+ * lexema en {@link TokenBuffer}), la pila es un arreglo de enteros con los símbolos de la gramática que faltan
+ * por reconocer y, si arriba hay un no terminal, la tabla da la producción que le toca con la clase del token
+ * actual.
+ * <p>
+ * Los errores se detectan en los mismos tokens que en {@link Parser} y la recuperación es la misma (ver
+ * {@link Parser#synchronize()}): se salta hasta el siguiente token de sincronización con el índice de
+ * {@link TokenBuffer} y la pila se regresa al bloque abierto donde sigue el análisis, así que las posiciones
+ * coinciden con las de sus errores de sintaxis. Cada 'endif' o 'endwhile' en la pila marca un bloque abierto.
+ * Después de crear el reconocedor, reconocer una entrada sin errores no crea ningún objeto; la pila solo
+ * crece con una entrada más anidada que las anteriores.
+ */
+final class Recognizer {
+    // Clases de token (terminales de la gramática)
+    private static final int VARIABLE = 0;
+    private static final int NUMBER = 1;
+    private static final int IF = 2;
+    private static final int THEN = 3;
+    private static final int ELSE = 4;
+    private static final int ENDIF = 5;
+    private static final int WHILE = 6;
+    private static final int DO = 7;
+    private static final int ENDWHILE = 8;
+    private static final int ASSIGN = 9;
+    private static final int SEMICOLON = 10;
+    private static final int OPEN = 11;            // '('
+    private static final int CLOSE = 12;           // ')'
+    private static final int ADDITIVE = 13;        // '+' o '-'
+    private static final int MULTIPLICATIVE = 14;  // '*' o '/'
+    private static final int COMPARISON = 15;
+    private static final int OTHER = 16;           // Cualquier otro token
+    private static final int END = 17;             // Fin de la entrada
+    private static final int CLASSES = 18;
+
+    // No terminales; en la pila se distinguen de los terminales por ser mayores o iguales a STATEMENT
+    private static final int STATEMENT = 32;
+    private static final int THEN_LIST = 33;       // Sentencias del bloque then
+    private static final int ELSE_PART = 34;       // 'else' y sus sentencias, o nada
+    private static final int ELSE_LIST = 35;       // Sentencias del bloque else
+    private static final int WHILE_LIST = 36;      // Sentencias del cuerpo de un while
+    private static final int CONDITION = 37;       // Expresión, comparación y expresión
+    private static final int EXPRESSION = 38;      // Términos separados por '+' o '-'
+    private static final int EXPRESSION_REST = 39;
+    private static final int TERM = 40;            // Primarios separados por '*' o '/'
+    private static final int TERM_REST = 41;
+    private static final int PRIMARY = 42;         // Variable, número, expresión entre paréntesis o nada
+    private static final int NONTERMINALS = 11;
+
+    private static final int ERROR = -1;
+    private static final int EPSILON = 0;
+    private static final int IF_PRODUCTION = 2;    // Abren un bloque
+    private static final int WHILE_PRODUCTION = 3;
+    private static final int ELSE_PRODUCTION = 5;  // El if más interno pasa a su bloque else
+
+    // Lado derecho de cada producción, en el orden en que se reconoce
+    private static final int[][] PRODUCTIONS = {
+            {},
+            {VARIABLE, ASSIGN, EXPRESSION, SEMICOLON},
+            {IF, OPEN, CONDITION, CLOSE, THEN, THEN_LIST, ELSE_PART, ENDIF},
+            {WHILE, OPEN, CONDITION, CLOSE, DO, WHILE_LIST, ENDWHILE},
+            {STATEMENT, THEN_LIST},
+            {ELSE, ELSE_LIST},
+            {STATEMENT, ELSE_LIST},
+            {STATEMENT, WHILE_LIST},
+            {EXPRESSION, COMPARISON, EXPRESSION},
+            {TERM, EXPRESSION_REST},
+            {ADDITIVE, TERM, EXPRESSION_REST},
+            {PRIMARY, TERM_REST},
+            {MULTIPLICATIVE, PRIMARY, TERM_REST},
+            {VARIABLE},
+            {NUMBER},
+            {OPEN, EXPRESSION, CLOSE},
+    };
+    private static final int MAX_PRODUCTION = 8; // Símbolos del lado derecho más largo
+
+    private static final int[] TABLE = new int[NONTERMINALS * CLASSES]; // Producción por no terminal y clase
+    private static final int BY_LEXEME = -1;
+    private static final int[] TYPE_CLASSES = new int[Token.Type.values().length];
+    private static final int[] LEXEME_CLASSES = new int[Token.Lexeme.values().length + 1]; // Por ordinal + 1; 0 = sin lexema
+
+    static {
+        Arrays.fill(TABLE, ERROR);
+        rule(STATEMENT, VARIABLE, 1);
+        rule(STATEMENT, IF, 2);
+        rule(STATEMENT, WHILE, 3);
+        otherwise(THEN_LIST, 4);
+        rule(THEN_LIST, ENDIF, EPSILON);
+        rule(THEN_LIST, ELSE, EPSILON);
+        otherwise(ELSE_PART, EPSILON);
+        rule(ELSE_PART, ELSE, 5);
+        otherwise(ELSE_LIST, 6);
+        rule(ELSE_LIST, ENDIF, EPSILON);
+        otherwise(WHILE_LIST, 7);
+        rule(WHILE_LIST, ENDWHILE, EPSILON);
+        otherwise(CONDITION, 8);
+        otherwise(EXPRESSION, 9);
+        otherwise(EXPRESSION_REST, EPSILON);
+        rule(EXPRESSION_REST, ADDITIVE, 10);
+        otherwise(TERM, 11);
+        otherwise(TERM_REST, EPSILON);
+        rule(TERM_REST, MULTIPLICATIVE, 12);
+        otherwise(PRIMARY, EPSILON); // Igual que en Parser, una expresión puede no tener operandos
+        rule(PRIMARY, VARIABLE, 13);
+        rule(PRIMARY, NUMBER, 14);
+        rule(PRIMARY, OPEN, 15);
+
+        Arrays.fill(TYPE_CLASSES, BY_LEXEME);
+        TYPE_CLASSES[Token.Type.VARIABLE.ordinal()] = VARIABLE;
+        TYPE_CLASSES[Token.Type.NUMBER.ordinal()] = NUMBER;
+        Arrays.fill(LEXEME_CLASSES, OTHER);
+        lexeme(Token.Lexeme.IF, IF);
+        lexeme(Token.Lexeme.THEN, THEN);
+        lexeme(Token.Lexeme.ELSE, ELSE);
+        lexeme(Token.Lexeme.ENDIF, ENDIF);
+        lexeme(Token.Lexeme.WHILE, WHILE);
+        lexeme(Token.Lexeme.DO, DO);
+        lexeme(Token.Lexeme.ENDWHILE, ENDWHILE);
+        lexeme(Token.Lexeme.ASSIGN, ASSIGN);
+        lexeme(Token.Lexeme.SEMICOLON, SEMICOLON);
+        lexeme(Token.Lexeme.OPEN_PARENTHESIS, OPEN);
+        lexeme(Token.Lexeme.CLOSURE_PARENTHESIS, CLOSE);
+        for (Token.Lexeme operator : Token.Lexeme.values()) {
+            // Los operadores salen de la tabla de precedencia de Parser
+            switch (Parser.precedence(operator)) {
+                case Parser.COMPARISON -> lexeme(operator, COMPARISON);
+                case Parser.ADDITIVE -> lexeme(operator, ADDITIVE);
+                case Parser.MULTIPLICATIVE -> lexeme(operator, MULTIPLICATIVE);
+                default -> { }
+            }
+        }
+    }
+
+    private final int maxErrors;
+    private int[] stack = new int[64];
+    // Bloques abiertos, por nivel desde 1: posición en la pila de su 'endif' o 'endwhile' y, como en Parser, el
+    // nivel del bloque más interno hasta él que acepta cada cierre (0 si ninguno)
+    private int[] markers = new int[16];
+    private int[] thenLevels = new int[16];
+    private int[] ifLevels = new int[16];
+    private int[] whileLevels = new int[16];
+    private int[] errors = new int[8]; // Posición del token de cada error (el número de tokens si es el final)
+    private int errorCount = 0;
+
+    /**
+     * Constructor sin máximo de errores.
+     */
+    Recognizer() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor de la clase Recognizer
+     * @param maxErrors Máximo de errores, contando los léxicos; al llegar a él se deja de reconocer, como
+     *                  {@link Parser} con una lista de errores llena
+     */
+    Recognizer(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Reconoce todos los tokens de un buffer; los errores de una llamada anterior se descartan.
+     * @param tokens Tokens de la entrada
+     * @return true si no hay errores de sintaxis (los errores léxicos no están en el buffer)
+     */
+    boolean recognize(TokenBuffer tokens) {
+        return recognize(tokens, 0);
+    }
+
+    /**
+     * Reconoce todos los tokens de un buffer cuyo análisis léxico tuvo errores. Como en {@link Parser}, donde
+     * comparten la lista de errores, los errores léxicos cuentan para el máximo de errores.
+     * @param tokens        Tokens de la entrada
+     * @param lexicalErrors Número de errores léxicos de la entrada
+     * @return true si no hay errores de sintaxis
+     */
+    boolean recognize(TokenBuffer tokens, int lexicalErrors) {
+        errorCount = 0;
+        int limit = maxErrors - lexicalErrors; // Errores de sintaxis que caben antes de llegar al máximo
+        int size = tokens.size();
+        int position = 0;
+        int depth = 0;
+        int level = 0; // Bloques abiertos
+        while ((position < size || depth > 0) && errorCount < limit) { // Con bloques abiertos falta su final
+            if (depth == 0) {
+                stack[depth++] = STATEMENT; // Una sentencia de nivel superior
+            }
+            boolean failed = false;
+            while (depth > 0) {
+                int symbol = stack[--depth];
+                int token = position < size ? tokenClass(tokens, position) : END;
+                if (symbol < STATEMENT) {
+                    failed = symbol != token;
+                    if (failed) break;
+                    if (symbol == ENDIF || symbol == ENDWHILE) level--;
+                    position++;
+                    continue;
+                }
+                int production = TABLE[(symbol - STATEMENT) * CLASSES + token];
+                failed = production == ERROR;
+                if (failed) break;
+                if (depth + MAX_PRODUCTION > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                switch (production) {
+                    case IF_PRODUCTION, WHILE_PRODUCTION -> level = open(level, depth, production == IF_PRODUCTION);
+                    case ELSE_PRODUCTION -> thenLevels[level] = thenLevels[level - 1];
+                    default -> { }
+                }
+                int[] symbols = PRODUCTIONS[production];
+                for (int i = symbols.length - 1; i >= 0; i--) {
+                    stack[depth++] = symbols[i];
+                }
+            }
+            if (failed) {
+                // Error en el token actual: se sincroniza como en Parser.synchronize()
+                addError(position);
+                int open = level;
+                boolean header = open > 0 && inHeader(open, depth);
+                depth = 0;
+                level = 0;
+                while (errorCount < limit) {
+                    position = tokens.nextSynchronizing(position);
+                    if (position == size) break;
+                    int token = tokenClass(tokens, position);
+                    if (token == SEMICOLON) {
+                        position++;
+                        level = open;
+                    } else if (token == IF || token == WHILE) {
+                        level = open;
+                    } else if (token == THEN || token == DO) {
+                        position++;
+                        if (!header || (token == THEN) != (ifLevels[open] == open)) {
+                            continue; // No es el 'then' o 'do' que le falta al bloque más interno: se salta
+                        }
+                        level = open;
+                    } else {
+                        level = token == ELSE ? thenLevels[open] : token == ENDIF ? ifLevels[open] : whileLevels[open];
+                        if (level == 0) {
+                            position++; // Cierre de un bloque que no está abierto
+                            continue;
+                        }
+                    }
+                    depth = resume(level);
+                    break;
+                }
+            }
+        }
+        return errorCount == 0;
+    }
+
+    /**
+     * Obtiene el número de errores de sintaxis del último reconocimiento.
+     */
+    int errorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Obtiene la posición en el buffer del token donde se detectó un error.
+     * @param index Número del error, de 0 a {@link #errorCount()} - 1
+     * @return La posición, o el número de tokens si la entrada terminó a la mitad de una sentencia
+     */
+    int errorPosition(int index) {
+        return errors[index];
+    }
+
+    private void addError(int position) {
+        if (errorCount == errors.length) {
+            errors = Arrays.copyOf(errors, errorCount * 2);
+        }
+        errors[errorCount++] = position;
+    }
+
+    private static int tokenClass(TokenBuffer tokens, int position) {
+        int tokenClass = TYPE_CLASSES[tokens.typeOrdinal(position)];
+        return tokenClass == BY_LEXEME ? LEXEME_CLASSES[tokens.lexemeCode(position)] : tokenClass;
+    }
+
+    /**
+     * Registra un bloque que se abre; su 'endif' o 'endwhile' va a quedar en la posición {@code depth} de la pila.
+     * @return El nivel del bloque
+     */
+    private int open(int level, int depth, boolean isIf) {
+        level++;
+        if (level == thenLevels.length) {
+            markers = Arrays.copyOf(markers, level * 2);
+            thenLevels = Arrays.copyOf(thenLevels, level * 2);
+            ifLevels = Arrays.copyOf(ifLevels, level * 2);
+            whileLevels = Arrays.copyOf(whileLevels, level * 2);
+        }
+        markers[level] = depth;
+        thenLevels[level] = isIf ? level : thenLevels[level - 1];
+        ifLevels[level] = isIf ? level : ifLevels[level - 1];
+        whileLevels[level] = isIf ? whileLevels[level - 1] : level;
+        return level;
+    }
+
+    /**
+     * Checa si a un bloque todavía le falta su 'then' o 'do', es decir, si el error en la posición
+     * {@code depth} de la pila fue en su condición: el 'then' o 'do' sigue en la pila, arriba de su lista
+     * de sentencias (los símbolos hasta {@code depth} son los que faltaban al fallar).
+     */
+    private boolean inHeader(int level, int depth) {
+        int marker = markers[level];
+        int header = stack[marker] == ENDWHILE ? marker + 2 : marker + 3;
+        return depth >= header && (stack[header] == THEN || stack[header] == DO);
+    }
+
+    /**
+     * Regresa la pila al bloque abierto de un nivel, dejando arriba la lista de sentencias que le toca (la
+     * del bloque then, aunque el error haya sido en la condición del if, mientras arriba de su 'endif' siga
+     * ELSE_PART).
+     * @return La nueva altura de la pila (0 si el nivel es 0)
+     */
+    private int resume(int level) {
+        if (level == 0) return 0;
+        int marker = markers[level];
+        if (stack[marker] == ENDWHILE) {
+            stack[marker + 1] = WHILE_LIST;
+            return marker + 2;
+        }
+        if (thenLevels[level] == level) {
+            stack[marker + 1] = ELSE_PART;
+            stack[marker + 2] = THEN_LIST;
+            return marker + 3;
+        }
+        stack[marker + 1] = ELSE_LIST;
+        return marker + 2;
+    }
+
+    private static void rule(int nonterminal, int tokenClass, int production) {
+        TABLE[(nonterminal - STATEMENT) * CLASSES + tokenClass] = production;
+    }
+
+    /**
+     * Usa una producción para todas las clases de token (las reglas que se agregan después tienen prioridad).
+     */
+    private static void otherwise(int nonterminal, int production) {
+        int row = (nonterminal - STATEMENT) * CLASSES;
+        Arrays.fill(TABLE, row, row + CLASSES, production);
+    }
+
+    private static void lexeme(Token.Lexeme lexeme, int tokenClass) {
+        LEXEME_CLASSES[lexeme.ordinal() + 1] = tokenClass;
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffer de salida de los reporters. Los textos y números se escriben directamente como bytes en un
+ * buffer grande que se entrega al canal solo cuando se llena o al llamar a {@link #flush()}, así que
+ * escribir un token no crea cadenas intermedias ni hace una llamada al sistema.
+ */
+final class ReportBuffer {
+    static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor de la clase ReportBuffer
+     * @param out      Salida (no se cierra)
+     * @param capacity Tamaño del buffer en bytes
+     */
+    public ReportBuffer(OutputStream out, int capacity) {
+        this(Channels.newChannel(out), capacity);
+    }
+
+    public ReportBuffer(WritableByteChannel channel, int capacity) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(capacity, 16));
+    }
+
+    void put(int b) {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    /**
+     * Escribe un texto en UTF-8.
+     */
+    void put(CharSequence text) {
+        put(text, 0, text.length());
+    }
+
+    /**
+     * Escribe en UTF-8 los caracteres [start, end) de un texto.
+     */
+    void put(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xc0 | c >> 6);
+                put(0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, text.charAt(++i));
+                put(0xf0 | code >> 18);
+                put(0x80 | code >> 12 & 0x3f);
+                put(0x80 | code >> 6 & 0x3f);
+                put(0x80 | code & 0x3f);
+            } else {
+                put(0xe0 | c >> 12);
+                put(0x80 | c >> 6 & 0x3f);
+                put(0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    /**
+     * Calcula cuántos bytes ocupa un texto al escribirlo con {@link #put(CharSequence)}.
+     */
+    static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Escribe un número en decimal.
+     */
+    void putDecimal(long value) {
+        if (value < 0) {
+            put('-');
+            if (value == Long.MIN_VALUE) {
+                put("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            put((int) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Escribe un número no negativo con 7 bits por byte (el bit alto indica que siguen más bytes).
+     */
+    void putVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            put((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        put((int) value);
+    }
+
+    /**
+     * Entrega al canal lo que esté en el buffer.
+     */
+    void flush() {
+        drain();
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
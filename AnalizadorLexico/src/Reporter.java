@@ -0,0 +1,113 @@
+import java.io.OutputStream;
+
+/**
+ * Destino de los resultados del análisis. El lexer reporta cada token, el parser cada sentencia válida
+ * y {@link Main} el inicio y fin de cada archivo y sus errores; cada implementación decide el formato
+ * y todas escriben a través de un {@link ReportBuffer}, así que nada se imprime directamente en la consola.
+ * <p>
+ * Todos los métodos tienen una implementación vacía, así que cada formato solo implementa los
+ * eventos que le interesan.
+ */
+interface Reporter {
+    /**
+     * Reporter que descarta todo.
+     */
+    Reporter NONE = new Reporter() {
+    };
+
+    /**
+     * Formatos disponibles.
+     */
+    enum Format {
+        TEXT,     // Formato de la consola: entrada, tokens, sentencias válidas y errores
+        SUMMARY,  // Una línea por archivo con el número de tokens, sentencias y errores
+        JSON,     // Un objeto JSON por evento, uno por línea
+        BINARY;   // Registros binarios compactos (ver BinaryReporter)
+
+        /**
+         * Crea un reporter de este formato.
+         * @param out      Salida
+         * @param capacity Tamaño del buffer en bytes
+         * @return El reporter
+         */
+        Reporter open(OutputStream out, int capacity) {
+            ReportBuffer buffer = new ReportBuffer(out, capacity);
+            return switch (this) {
+                case TEXT -> new TextReporter(buffer);
+                case SUMMARY -> new SummaryReporter(buffer);
+                case JSON -> new JsonLinesReporter(buffer);
+                case BINARY -> new BinaryReporter(buffer);
+            };
+        }
+
+        /**
+         * Indica si la salida es texto para leerse en la consola.
+         */
+        boolean isReadable() {
+            return this == TEXT || this == SUMMARY;
+        }
+    }
+
+    /**
+     * Inicio del análisis de un archivo.
+     * @param fileName Nombre del archivo
+     * @param input    Contenido del archivo, o null si se analiza en modo streaming (en ese caso no se reportan tokens)
+     */
+    default void startFile(String fileName, String input) {
+    }
+
+    /**
+     * Token reconocido por el lexer.
+     */
+    default void token(Token token) {
+    }
+
+    /**
+     * Se terminaron de reportar los tokens y empieza el análisis sintáctico.
+     */
+    default void endTokens() {
+    }
+
+    /**
+     * Sentencia válida reconocida por el parser.
+     * @param description Tipo de sentencia (assignment, if then, while)
+     * @param line        Línea del último token de la sentencia
+     */
+    default void statement(String description, int line) {
+    }
+
+    /**
+     * Cambio que hizo {@link Optimizer} en las sentencias válidas (una operación evaluada, una rama o un ciclo
+     * eliminado); se reportan en orden de línea después de las sentencias.
+     * @param message Descripción del cambio
+     */
+    default void optimization(String message) {
+    }
+
+    /**
+     * Error léxico o sintáctico; se reportan en orden de línea al terminar el análisis.
+     */
+    default void error(Diagnostic error) {
+    }
+
+    /**
+     * Se llegó al máximo de errores y el análisis se detuvo.
+     * @param count Número de errores reportados
+     */
+    default void errorLimit(int count) {
+    }
+
+    /**
+     * Fin del análisis de un archivo.
+     * @param fileName Nombre del archivo
+     * @param errors   Número de errores
+     */
+    default void endFile(String fileName, int errors) {
+    }
+
+    /**
+     * Escribe en la salida lo que esté pendiente en el buffer.
+     */
+    default void flush() {
+    }
+}
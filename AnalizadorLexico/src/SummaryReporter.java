@@ -0,0 +1,51 @@
+/**
+ * Reporter silencioso: solo cuenta los eventos y escribe una línea por archivo, por ejemplo
+ * {@code input1.txt: 42 tokens, 5 valid statements, 3 errors}. Los tokens solo aparecen si se
+ * reportaron (no en modo streaming).
+ */
+class SummaryReporter implements Reporter {
+    private final ReportBuffer out;
+    private boolean tokensReported;
+    private long tokens;
+    private long statements;
+
+    public SummaryReporter(ReportBuffer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void startFile(String fileName, String input) {
+        tokensReported = input != null;
+        tokens = 0;
+        statements = 0;
+    }
+
+    @Override
+    public void token(Token token) {
+        tokens++;
+    }
+
+    @Override
+    public void statement(String description, int line) {
+        statements++;
+    }
+
+    @Override
+    public void endFile(String fileName, int errors) {
+        out.put(fileName);
+        out.put(": ");
+        if (tokensReported) {
+            out.putDecimal(tokens);
+            out.put(" tokens, ");
+        }
+        out.putDecimal(statements);
+        out.put(" valid statements, ");
+        out.putDecimal(errors);
+        out.put(" errors\n");
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
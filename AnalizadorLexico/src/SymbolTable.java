@@ -0,0 +1,146 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tabla de símbolos que asigna a cada nombre de variable un identificador entero denso (0, 1, 2, ...).
+ * Los nombres se buscan directamente sobre un rango de la entrada, así que solo se crea un
+ * String la primera vez que aparece cada nombre.
+ */
+class SymbolTable {
+    private String[] names = new String[16];
+    private int[] slots = new int[32]; // Tabla hash abierta: id + 1, o 0 si está vacía
+    private int size = 0;
+
+    /**
+     * Obtiene el identificador del nombre que ocupa {@code text[start, end)}, registrándolo si es nuevo.
+     * @param text  Texto que contiene el nombre
+     * @param start Posición inicial del nombre
+     * @param end   Posición final (exclusiva) del nombre
+     * @return El identificador del nombre
+     */
+    public int intern(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int mask = slots.length - 1;
+        int index = mix(hash) & mask;
+        while (slots[index] != 0) {
+            int id = slots[index] - 1;
+            if (matches(names[id], text, start, end)) {
+                return id;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = text.subSequence(start, end).toString();
+        slots[index] = size + 1;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Obtiene el identificador del nombre ASCII que ocupa {@code bytes[start, end)}, registrándolo si es nuevo.
+     * Da el mismo identificador que {@link #intern(CharSequence, int, int)} con el mismo texto.
+     */
+    public int intern(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (bytes[i] & 0xFF);
+        }
+        int mask = slots.length - 1;
+        int index = mix(hash) & mask;
+        while (slots[index] != 0) {
+            int id = slots[index] - 1;
+            if (matches(names[id], bytes, start, end)) {
+                return id;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        slots[index] = size + 1;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Obtiene el identificador de un nombre, registrándolo si es nuevo.
+     * @param name Nombre de la variable
+     * @return El identificador del nombre
+     */
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Obtiene el nombre asociado a un identificador.
+     * @param id Identificador devuelto por {@link #intern(CharSequence, int, int)}
+     * @return El nombre (siempre la misma instancia para el mismo identificador)
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Borra todos los nombres conservando la capacidad de la tabla (los identificadores vuelven a empezar en 0).
+     */
+    void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /**
+     * Obtiene la cantidad de nombres distintos registrados.
+     * @return El número de símbolos
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(String name, byte[] bytes, int start, int end) {
+        if (name.length() != end - start) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != (bytes[start + i] & 0xFF)) return false;
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void rehash() {
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int index = mix(names[id].hashCode()) & mask;
+            while (bigger[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            bigger[index] = id + 1;
+        }
+        slots = bigger;
+    }
+}
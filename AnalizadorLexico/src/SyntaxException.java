@@ -8,7 +8,8 @@ public class SyntaxException extends Throwable {
      */
 
     public SyntaxException(String message, int lineNumber) {
-        super("Syntax error: " + message);
+        // Sin stack trace: la excepción solo sirve para regresar al punto de recuperación del parser
+        super("Syntax error: " + message, null, false, false);
         this.lineErrorNumber = lineNumber;
     }
 
@@ -0,0 +1,93 @@
+import java.io.OutputStream;
+
+/**
+ * Reporter con el formato de la consola: el nombre del archivo, la entrada, los tokens, las sentencias
+ * válidas y los errores.
+ */
+class TextReporter implements Reporter {
+    private static final String LINE = System.lineSeparator();
+
+    private final ReportBuffer out;
+
+    public TextReporter(ReportBuffer out) {
+        this.out = out;
+    }
+
+    /**
+     * Constructor que escribe en una salida con un buffer pequeño (por ejemplo, para un solo archivo).
+     * @param out Salida
+     */
+    public TextReporter(OutputStream out) {
+        this(new ReportBuffer(out, 8192));
+    }
+
+    @Override
+    public void startFile(String fileName, String input) {
+        out.put(LINE);
+        out.put(" ------------------------------------------ ");
+        out.put(fileName);
+        out.put(" --------------------------------------------");
+        out.put(LINE);
+        out.put(LINE);
+        if (input != null) {
+            out.put("Input: ");
+            out.put(input);
+            out.put(LINE);
+            out.put(" -------------------------------------  Tokens:  -----------------------------------------");
+            out.put(LINE);
+        }
+    }
+
+    @Override
+    public void token(Token token) {
+        out.put(" Value: ");
+        out.put(token.getValue());
+        out.put(" Type: ");
+        out.put(token.getType().name());
+        out.put(" Lexeme: ");
+        out.put(token.getLexeme() == null ? "null" : token.getLexeme().name());
+        out.put(LINE);
+    }
+
+    @Override
+    public void endTokens() {
+        out.put(LINE);
+        out.put(" ------------------------------------------ Syntax analysis:  --------------------------------------------");
+        out.put(LINE);
+        out.put(LINE);
+    }
+
+    @Override
+    public void statement(String description, int line) {
+        out.put("Valid ");
+        out.put(description);
+        out.put(" statement at line ");
+        out.putDecimal(line);
+        out.put(LINE);
+    }
+
+    @Override
+    public void optimization(String message) {
+        out.put(message);
+        out.put(LINE);
+    }
+
+    @Override
+    public void error(Diagnostic error) {
+        out.put(error.getMessage());
+        out.put(LINE);
+    }
+
+    @Override
+    public void errorLimit(int count) {
+        out.put("Error limit of ");
+        out.putDecimal(count);
+        out.put(" reached, analysis stopped");
+        out.put(LINE);
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
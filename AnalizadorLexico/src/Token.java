@@ -7,6 +7,7 @@ public class Token {
     private Type type;    // Tipo del token (enum Type)
     private Lexeme lexeme; // Lexema asociado al token (enum Lexeme)
     private int lineNumber; // Número de línea en el que se encontró el token
+    private int column; // Columna (desde 1) en la que empieza el token
 
 
     /**
@@ -44,6 +45,18 @@ public class Token {
      * @return  lineNumber El número de línea en el que se encontró el token.
      */
     public int getLineNumber() { return lineNumber; }
+
+    /**
+     * Establece la columna en la que empieza el token.
+     * @param column Columna (desde 1) en la que empieza el token.
+     */
+    public void setColumn(int column) { this.column = column; }
+
+    /**
+     * Obtiene la columna en la que empieza el token.
+     * @return La columna (desde 1) en la que empieza el token.
+     */
+    public int getColumn() { return column; }
     /**
      * Establece el valor del token.
      * @param value El valor del token a establecer.
@@ -114,7 +127,8 @@ public class Token {
         LESS_THAN("<"),
         LESS_EQUAL_THAN("<="),
         GREATER_THAN(">"),
-        GRATER_EQUAL_THAN(">=");
+        GRATER_EQUAL_THAN(">="),
+        DIFFERENT_FROM("<>");
         public final String lexeme; // Representación de cadena del lexema
 
         Lexeme(String l) {
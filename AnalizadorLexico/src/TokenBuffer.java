@@ -0,0 +1,456 @@
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Almacena los tokens de una entrada como arreglos primitivos en lugar de objetos {@link Token}:
+ * por cada token se guardan el tipo, el lexema, la posición inicial y final dentro de la entrada
+ * y la línea. El texto de un token es una vista sobre la entrada (no se copia) y los nombres de
+ * variables se registran una sola vez en una {@link SymbolTable}. La entrada puede ser un String o un
+ * archivo mapeado en memoria ({@link #map(Path, Diagnostics)}).
+ * <p>
+ * Al agregar cada token también se marca en un índice de bits si el parser puede sincronizarse en él después de
+ * un error ({@link Parser#isSynchronizing}), así que {@link Cursor#skipToSynchronizing()} salta hasta el
+ * siguiente revisando 64 tokens a la vez.
+ */
+class TokenBuffer {
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final Token.Lexeme[] LEXEMES = Token.Lexeme.values();
+
+    private CharSequence source;
+    private final SymbolTable symbols = new SymbolTable();
+    private byte[] types;      // Ordinal de Token.Type
+    private byte[] lexemes;    // Ordinal de Token.Lexeme + 1 (0 si no tiene lexema)
+    private int[] starts;      // Posición inicial del token en la entrada
+    private int[] ends;        // Posición final (exclusiva) del token en la entrada
+    private int[] lines;       // Número de línea del token
+    private int[] symbolIds;   // Identificador de la variable en la tabla de símbolos (-1 si no es VARIABLE)
+    private long[] synchronizing; // Un bit por token: si está en el conjunto de sincronización del parser
+    private int size = 0;
+
+    /**
+     * Formas de hacer el análisis léxico de un archivo; todas dan los mismos tokens, líneas y errores.
+     */
+    enum Lexing {
+        PLAIN,    // Se lee el archivo como texto y se analiza en un solo hilo
+        PARALLEL, // Se lee como texto y se analiza por partes en el pool común (ver ParallelLexer)
+        MAPPED;   // Se mapea en memoria sin decodificarlo (ver MappedLexer); las columnas cuentan bytes
+
+        /**
+         * Realiza el análisis léxico de un archivo de esta forma.
+         * @param file   Archivo de entrada
+         * @param errors Lista donde se agregan los tokens no reconocidos
+         * @return El buffer con todos los tokens del archivo
+         */
+        TokenBuffer read(Path file, Diagnostics errors) throws IOException {
+            return switch (this) {
+                case PLAIN -> lex(Files.readString(file), errors);
+                case PARALLEL -> ParallelLexer.lex(Files.readString(file), errors);
+                case MAPPED -> map(file, errors);
+            };
+        }
+    }
+
+    /**
+     * Constructor de un buffer vacío.
+     * @param source   Entrada a la que apuntan los tokens
+     * @param capacity Capacidad inicial estimada
+     */
+    public TokenBuffer(CharSequence source, int capacity) {
+        this.source = source;
+        int initial = Math.max(capacity, 16);
+        types = new byte[initial];
+        lexemes = new byte[initial];
+        starts = new int[initial];
+        ends = new int[initial];
+        lines = new int[initial];
+        symbolIds = new int[initial];
+        synchronizing = new long[(initial + 63) >>> 6];
+    }
+
+    /**
+     * Realiza el análisis léxico de la entrada guardando los tokens directamente en un buffer.
+     * @param source Cadena de entrada para analizar
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     * @return El buffer con todos los tokens de la entrada
+     */
+    public static TokenBuffer lex(String source, Diagnostics errors) {
+        return lex(source, 0, source.length(), 1, errors);
+    }
+
+    /**
+     * Realiza el análisis léxico de una parte de la entrada que empieza al inicio de una línea.
+     * @param source    Cadena de entrada
+     * @param from      Posición inicial de la parte a analizar
+     * @param to        Posición final (exclusiva) de la parte a analizar
+     * @param firstLine Número de línea de la posición inicial
+     * @param errors    Lista donde se agregan los tokens no reconocidos
+     * @return El buffer con los tokens de esa parte (con posiciones relativas a toda la entrada)
+     */
+    public static TokenBuffer lex(String source, int from, int to, int firstLine, Diagnostics errors) {
+        TokenBuffer buffer = new TokenBuffer(source, (to - from) / 4);
+        buffer.addAll(new Lexer(source, from, to, firstLine, errors));
+        return buffer;
+    }
+
+    /**
+     * Realiza el análisis léxico de un archivo ASCII sin decodificarlo: el archivo se mapea en memoria y
+     * {@link MappedLexer} lo clasifica por bloques de bytes. Los tokens apuntan al archivo mapeado.
+     * @param file   Archivo de entrada (a lo más 2 GB)
+     * @param errors Lista donde se agregan los tokens no reconocidos
+     * @return El buffer con todos los tokens del archivo
+     */
+    public static TokenBuffer map(Path file, Diagnostics errors) throws IOException {
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file);
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Sigue válido al cerrar el canal
+        }
+        MappedLexer lexer = new MappedLexer(bytes, errors);
+        TokenBuffer buffer = new TokenBuffer(lexer.text(), bytes.capacity() / 4);
+        while (lexer.scan()) {
+            Token.Type type = lexer.scannedType();
+            buffer.add(type, lexer.scannedLexeme(), lexer.scannedStart(), lexer.scannedStart() + lexer.scannedLength(),
+                    lexer.scannedLine(), type == Token.Type.VARIABLE ? lexer.intern(buffer.symbols) : -1);
+        }
+        return buffer;
+    }
+
+    /**
+     * Agrega al final todos los tokens que encuentre un lexer sobre la misma entrada.
+     * @param lexer Lexer sobre la entrada del buffer
+     */
+    void addAll(Lexer lexer) {
+        while (lexer.scan()) {
+            add(lexer.scannedType(), lexer.scannedLexeme(), lexer.scannedStart(),
+                    lexer.scannedStart() + lexer.scannedLength(), lexer.scannedLine());
+        }
+    }
+
+    /**
+     * Vacía el buffer para guardar los tokens de otra entrada, conservando la capacidad de los arreglos.
+     * Los cursores que ya se crearon hay que regresarlos al inicio con {@link Cursor#rewind()}.
+     * @param source Nueva entrada a la que apuntan los tokens
+     */
+    void reset(String source) {
+        this.source = source;
+        symbols.clear();
+        Arrays.fill(synchronizing, 0, (size + 63) >>> 6, 0);
+        size = 0;
+    }
+
+    /**
+     * Agrega un token al final del buffer.
+     */
+    void add(Token.Type type, Token.Lexeme lexeme, int start, int end, int line) {
+        add(type, lexeme, start, end, line, type == Token.Type.VARIABLE ? symbols.intern(source, start, end) : -1);
+    }
+
+    /**
+     * Agrega un token al final del buffer con el identificador de su variable ya registrado en {@link #symbols()}.
+     */
+    private void add(Token.Type type, Token.Lexeme lexeme, int start, int end, int line, int symbolId) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = (byte) type.ordinal();
+        lexemes[size] = (byte) (lexeme == null ? 0 : lexeme.ordinal() + 1);
+        starts[size] = start;
+        ends[size] = end;
+        lines[size] = line;
+        symbolIds[size] = symbolId;
+        if (Parser.isSynchronizing(lexeme)) {
+            synchronizing[size >>> 6] |= 1L << size;
+        }
+        size++;
+    }
+
+    /**
+     * Agrega al final todos los tokens de otro buffer sobre la misma entrada (por ejemplo, el de
+     * la siguiente parte de la entrada). Los nombres de variables se registran una vez por nombre, no por token.
+     * @param other Buffer a agregar
+     */
+    void append(TokenBuffer other) {
+        int[] remap = new int[other.symbols.size()];
+        for (int id = 0; id < remap.length; id++) {
+            remap[id] = symbols.intern(other.symbols.name(id));
+        }
+        while (size + other.size > types.length) {
+            grow();
+        }
+        System.arraycopy(other.types, 0, types, size, other.size);
+        System.arraycopy(other.lexemes, 0, lexemes, size, other.size);
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.ends, 0, ends, size, other.size);
+        System.arraycopy(other.lines, 0, lines, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            int id = other.symbolIds[i];
+            symbolIds[size + i] = id < 0 ? -1 : remap[id];
+            if ((other.synchronizing[i >>> 6] & (1L << i)) != 0) {
+                synchronizing[(size + i) >>> 6] |= 1L << (size + i);
+            }
+        }
+        size += other.size;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        lexemes = Arrays.copyOf(lexemes, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        symbolIds = Arrays.copyOf(symbolIds, capacity);
+        synchronizing = Arrays.copyOf(synchronizing, (capacity + 63) >>> 6);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    public Token.Type type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public Token.Lexeme lexeme(int index) {
+        int ordinal = lexemes[index];
+        return ordinal == 0 ? null : LEXEMES[ordinal - 1];
+    }
+
+    // Ordinales sin convertir a enum (para Recognizer)
+    int typeOrdinal(int index) {
+        return types[index];
+    }
+
+    /**
+     * Obtiene el ordinal del lexema más 1, o 0 si el token no tiene lexema.
+     */
+    int lexemeCode(int index) {
+        return lexemes[index];
+    }
+
+    /**
+     * Busca el siguiente token del conjunto de sincronización del parser. Revisa el índice de bits 64 tokens a
+     * la vez, así que el costo es proporcional a la distancia entre 64 y no constante: un arreglo con el
+     * siguiente token de sincronización de cada posición daría la respuesta en un acceso, pero ocuparía cuatro
+     * bytes por token en lugar de un bit y habría que llenarlo de atrás hacia adelante al terminar el análisis
+     * léxico, y los saltos después de un error casi siempre son de unos cuantos tokens.
+     * @param from Posición desde donde se busca (incluida)
+     * @return Su posición, o el número de tokens si no hay
+     */
+    int nextSynchronizing(int from) {
+        if (from >= size) return size;
+        int word = from >>> 6;
+        long bits = synchronizing[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word << 6 >= size) return size;
+            bits = synchronizing[word];
+        }
+        return Math.min(size, (word << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    public int line(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Calcula la columna del token buscando el inicio de su línea en la entrada (solo se usa al reportar errores).
+     * @param index Posición del token
+     * @return La columna (desde 1) del token
+     */
+    public int column(int index) {
+        return starts[index] - lastNewline(starts[index] - 1);
+    }
+
+    private int lastNewline(int from) {
+        if (source instanceof String string) {
+            return string.lastIndexOf('\n', from);
+        }
+        int i = from;
+        while (i >= 0 && source.charAt(i) != '\n') {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Obtiene el texto del token como una vista sobre la entrada, sin copiar caracteres.
+     * @param index Posición del token
+     * @return El texto del token
+     */
+    public CharSequence text(int index) {
+        return CharBuffer.wrap(source, starts[index], ends[index]);
+    }
+
+    /**
+     * Obtiene el identificador de variable del token.
+     * @param index Posición del token
+     * @return El identificador en {@link #symbols()} o -1 si el token no es VARIABLE
+     */
+    public int symbol(int index) {
+        return symbolIds[index];
+    }
+
+    /**
+     * Obtiene el nombre de la variable del token, compartido por todos los tokens con el mismo nombre.
+     * @param index Posición del token
+     * @return El nombre de la variable o null si el token no es VARIABLE
+     */
+    public String name(int index) {
+        return symbolIds[index] >= 0 ? symbols.name(symbolIds[index]) : null;
+    }
+
+    /**
+     * Crea un objeto {@link Token} equivalente al token guardado (los nombres de variables se comparten).
+     * @param index Posición del token
+     * @return El token
+     */
+    public Token token(int index) {
+        return token(index, column(index));
+    }
+
+    private Token token(int index, int column) {
+        Token token = new Token();
+        token.setType(type(index));
+        token.setLexeme(lexeme(index));
+        token.setLineNumber(lines[index]);
+        token.setColumn(column);
+        token.setValue(symbolIds[index] >= 0 ? symbols.name(symbolIds[index]) : source.subSequence(starts[index], ends[index]).toString());
+        return token;
+    }
+
+    /**
+     * Reporta todos los tokens en orden, igual que un {@link Lexer} con {@link Lexer#reportTo(Reporter)}.
+     * El inicio de cada línea se busca una sola vez, así que calcular las columnas recorre la entrada una vez.
+     * @param reporter Destino de los tokens
+     */
+    void reportTo(Reporter reporter) {
+        int line = -1;
+        int lineStart = 0;
+        for (int i = 0; i < size; i++) {
+            if (lines[i] != line) {
+                line = lines[i];
+                lineStart = lastNewline(starts[i] - 1) + 1;
+            }
+            reporter.token(token(i, starts[i] - lineStart + 1));
+        }
+    }
+
+    /**
+     * Crea una fuente de tokens que recorre el buffer desde el inicio, para usarla con {@link Parser}.
+     * @return La fuente de tokens
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Fuente de tokens que recorre el buffer.
+     */
+    final class Cursor implements TokenSource {
+        private int currentPosition = 0;
+        private SymbolTable remapTable; // Tabla a la que corresponde remap
+        private int[] remap = new int[0]; // Identificador en remapTable de cada variable del buffer (-1 si no se ha buscado)
+
+        /**
+         * Regresa al primer token y olvida las variables ya traducidas (por ejemplo, después de
+         * {@link TokenBuffer#reset(String)} o de vaciar la tabla de símbolos del árbol).
+         */
+        void rewind() {
+            currentPosition = 0;
+            Arrays.fill(remap, -1);
+        }
+
+        @Override
+        public boolean isAtEnd() {
+            return currentPosition >= size;
+        }
+
+        @Override
+        public Token token() {
+            return isAtEnd() ? null : TokenBuffer.this.token(currentPosition);
+        }
+
+        @Override
+        public Token.Type type() {
+            return isAtEnd() ? null : TokenBuffer.this.type(currentPosition);
+        }
+
+        @Override
+        public Token.Lexeme lexeme() {
+            return isAtEnd() ? null : TokenBuffer.this.lexeme(currentPosition);
+        }
+
+        @Override
+        public int lineNumber() {
+            return isAtEnd() ? 0 : lines[currentPosition];
+        }
+
+        @Override
+        public int column() {
+            return isAtEnd() ? 0 : TokenBuffer.this.column(currentPosition);
+        }
+
+        @Override
+        public int intern(SymbolTable table) {
+            int id = symbolIds[currentPosition];
+            if (id < 0) {
+                return table.intern(source, starts[currentPosition], ends[currentPosition]);
+            }
+            // Las variables ya están registradas en el buffer: se traduce cada identificador una sola vez
+            if (table != remapTable) {
+                remapTable = table;
+                remap = new int[0];
+            }
+            if (id >= remap.length) {
+                int oldLength = remap.length;
+                remap = Arrays.copyOf(remap, Math.max(symbols.size(), id + 1));
+                Arrays.fill(remap, oldLength, remap.length, -1);
+            }
+            if (remap[id] < 0) {
+                remap[id] = table.intern(symbols.name(id));
+            }
+            return remap[id];
+        }
+
+        @Override
+        public String text() {
+            return isAtEnd() ? null : TokenBuffer.this.text(currentPosition).toString();
+        }
+
+        @Override
+        public void advance() {
+            if (!isAtEnd()) currentPosition++;
+        }
+
+        @Override
+        public int skipToSynchronizing() {
+            int from = currentPosition;
+            currentPosition = Math.max(from, nextSynchronizing(from));
+            return currentPosition - from;
+        }
+    }
+}
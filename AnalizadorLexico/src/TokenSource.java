@@ -0,0 +1,86 @@
+/**
+ * Fuente de tokens de la que el parser va tomando tokens uno por uno.
+ * Solo se expone el token actual (lookahead de un token), por lo que una fuente puede
+ * generar los tokens bajo demanda sin guardar toda la entrada en memoria.
+ */
+interface TokenSource {
+    /**
+     * Checa si ya no quedan tokens por consumir.
+     * @return true si se llegó al final de la entrada.
+     */
+    boolean isAtEnd();
+
+    /**
+     * Obtiene el token actual sin consumirlo.
+     * @return El token actual o null si se llegó al final.
+     */
+    Token token();
+
+    /**
+     * Obtiene el tipo del token actual.
+     * @return El tipo del token actual o null si se llegó al final.
+     */
+    default Token.Type type() {
+        return isAtEnd() ? null : token().getType();
+    }
+
+    /**
+     * Obtiene el lexema del token actual.
+     * @return El lexema del token actual o null si no tiene o se llegó al final.
+     */
+    default Token.Lexeme lexeme() {
+        return isAtEnd() ? null : token().getLexeme();
+    }
+
+    /**
+     * Obtiene el número de línea del token actual.
+     * @return La línea del token actual o 0 si se llegó al final.
+     */
+    default int lineNumber() {
+        return isAtEnd() ? 0 : token().getLineNumber();
+    }
+
+    /**
+     * Obtiene el texto del token actual.
+     * @return El texto del token actual o null si se llegó al final.
+     */
+    default String text() {
+        return isAtEnd() ? null : token().getValue();
+    }
+
+    /**
+     * Registra el texto del token actual en una tabla de símbolos.
+     * @param symbols Tabla donde se registra
+     * @return El identificador del texto en la tabla
+     */
+    default int intern(SymbolTable symbols) {
+        return symbols.intern(text());
+    }
+
+    /**
+     * Obtiene la columna del token actual.
+     * @return La columna (desde 1) del token actual o 0 si se llegó al final.
+     */
+    default int column() {
+        return isAtEnd() ? 0 : token().getColumn();
+    }
+
+    /**
+     * Avanza al siguiente token.
+     */
+    void advance();
+
+    /**
+     * Avanza hasta el siguiente token del conjunto de sincronización del parser ({@link Parser#isSynchronizing})
+     * sin consumirlo, o hasta el final. Esta versión revisa los tokens uno por uno.
+     * @return Número de tokens que se saltaron
+     */
+    default int skipToSynchronizing() {
+        int skipped = 0;
+        while (!isAtEnd() && !Parser.isSynchronizing(lexeme())) {
+            advance();
+            skipped++;
+        }
+        return skipped;
+    }
+}
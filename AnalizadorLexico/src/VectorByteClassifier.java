@@ -0,0 +1,42 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ByteClassifier} con la API de vectores ({@code jdk.incubator.vector}): cada comparación revisa un
+ * vector completo de bytes y su resultado se convierte directamente en bits de la máscara. Se usa el tamaño
+ * de vector preferido de la plataforma (32 bytes con AVX2, 64 con AVX-512), hasta 64 bytes por vector.
+ * <p>
+ * Solo {@link ByteClassifier#create()} crea esta clase, y solo si el módulo está disponible.
+ */
+final class VectorByteClassifier extends ByteClassifier {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() > BLOCK
+            ? ByteVector.SPECIES_512
+            : ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length(); // Divide a BLOCK
+
+    @Override
+    void classify(byte[] bytes, int length, long[] newlines, long[] blanks, long[] words) {
+        for (int block = 0; block * BLOCK < length; block++) {
+            long newline = 0;
+            long blank = 0;
+            long word = 0;
+            for (int lane = 0; lane < BLOCK; lane += LANES) {
+                ByteVector v = ByteVector.fromArray(SPECIES, bytes, block * BLOCK + lane);
+                newline |= v.eq((byte) '\n').toLong() << lane;
+                blank |= v.eq((byte) ' ').or(v.eq((byte) '\t')).or(v.eq((byte) '\r')).toLong() << lane;
+
+                // Letras: con el bit 0x20 encendido las mayúsculas quedan en 'a'..'z'; los bytes fuera de ASCII son negativos
+                ByteVector lower = v.or((byte) 0x20);
+                VectorMask<Byte> letter = lower.compare(VectorOperators.GE, (byte) 'a').and(lower.compare(VectorOperators.LE, (byte) 'z'));
+                VectorMask<Byte> digit = v.compare(VectorOperators.GE, (byte) '0').and(v.compare(VectorOperators.LE, (byte) '9'));
+                word |= letter.or(digit).or(v.eq((byte) '_')).toLong() << lane;
+            }
+            newlines[block] = newline;
+            blanks[block] = blank;
+            words[block] = word;
+        }
+        clearTail(length, newlines, blanks, words);
+    }
+}
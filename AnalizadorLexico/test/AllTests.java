@@ -0,0 +1,40 @@
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Ejecuta todas las pruebas. No usan ninguna biblioteca: cada prueba es una clase con un método
+ * {@code main} que lanza un {@link AssertionError} si falla. Se compilan junto con el código:
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -d out src/*.java test/*.java
+ * java --add-modules jdk.incubator.vector -cp out AllTests
+ * </pre>
+ */
+public class AllTests {
+    private static final String[] TESTS = {
+            "IncrementalAnalyzerTest",
+            "IterativeParserTest",
+            "CompiledProgramTest",
+            "RecognizerTest",
+            "BatchInterpreterTest",
+            "OptimizerTest",
+            "AnalyzerTest",
+            "LexerTest"
+    };
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        int failed = 0;
+        for (String test : TESTS) {
+            try {
+                Class.forName(test).getDeclaredMethod("main", String[].class).invoke(null, (Object) args);
+                System.out.println("PASS " + test);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof AssertionError)) throw e;
+                failed++;
+                System.out.println("FAIL " + test + ": " + e.getCause().getMessage());
+            }
+        }
+        System.out.println((TESTS.length - failed) + " of " + TESTS.length + " tests passed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
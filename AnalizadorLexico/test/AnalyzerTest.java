@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prueba de {@link Analyzer}: cada resultado debe ser el mismo que analizar la entrada con un
+ * {@link TokenBuffer} y un {@link IterativeParser} nuevos. Las entradas se analizan varias veces con la
+ * misma instancia, desde hilos de plataforma (que reutilizan su estado del {@link ThreadLocal}) y desde
+ * hilos virtuales (que lo toman de la reserva compartida), mezclando entradas válidas, con errores, muy
+ * anidadas y más grandes que las que se conservan, para que un estado reutilizado nunca deje rastro de la
+ * entrada anterior.
+ */
+class AnalyzerTest {
+    private static final int PROGRAMS = 600;
+    private static final int PLATFORM_THREADS = 4;
+    private static final int ROUNDS = 3;
+    private static final int LARGE = 300_000; // Caracteres; más que los que Analyzer conserva para reutilizar
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        List<String> inputs = new ArrayList<>();
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            RandomPrograms programs = new RandomPrograms(seed);
+            String program = programs.program(1 + programs.random().nextInt(10), 1 + seed % 5);
+            inputs.add(seed % 3 == 0 ? program : programs.corrupt(program, 1 + programs.random().nextInt(8)));
+        }
+        inputs.add("");
+        inputs.add(RandomPrograms.nested(50));
+        inputs.add(large(new RandomPrograms(1), false));
+        inputs.add(large(new RandomPrograms(2), true));
+
+        compare(new Analyzer(), inputs, Integer.MAX_VALUE, Integer.MAX_VALUE, false);
+        compare(new Analyzer(3, 8, true), inputs, 3, 8, true);
+    }
+
+    private static String large(RandomPrograms programs, boolean corrupt) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < LARGE) {
+            String program = programs.program(20, 3);
+            text.append(corrupt ? programs.corrupt(program, 2) : program);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Analiza todas las entradas con la misma instancia desde hilos de plataforma y virtuales, en un orden
+     * distinto en cada ronda.
+     */
+    private static void compare(Analyzer analyzer, List<String> inputs, int maxErrors, int maxDepth, boolean warnings)
+            throws InterruptedException, ExecutionException {
+        List<String> expected = new ArrayList<>();
+        for (String input : inputs) {
+            expected.add(expected(input, maxErrors, maxDepth, warnings));
+        }
+        Random random = new Random(maxErrors);
+        try (ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+             ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int round = 0; round < ROUNDS; round++) {
+                for (ExecutorService executor : List.of(platform, virtual)) {
+                    List<Integer> order = new ArrayList<>();
+                    for (int i = 0; i < inputs.size(); i++) {
+                        order.add(i);
+                    }
+                    Collections.shuffle(order, random);
+                    List<Future<String>> results = new ArrayList<>();
+                    for (int i : order) {
+                        results.add(executor.submit(() -> describe(analyzer.analyze(inputs.get(i)))));
+                    }
+                    for (int i = 0; i < order.size(); i++) {
+                        int input = order.get(i);
+                        String context = (executor == platform ? "platform" : "virtual") + " threads, round " + round
+                                + ", max errors " + maxErrors + ":\n" + abbreviate(inputs.get(input));
+                        Checks.equal(expected.get(input), results.get(i).get(), context);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String expected(String input, int maxErrors, int maxDepth, boolean warnings) {
+        Diagnostics errors = new Diagnostics(maxErrors);
+        TokenBuffer tokens = TokenBuffer.lex(input, errors);
+        IterativeParser parser = new IterativeParser(tokens.cursor(), errors, Reporter.NONE, maxDepth);
+        Ast ast = parser.parseTree();
+        if (warnings && errors.isEmpty()) {
+            Dataflow.analyze(ast, errors);
+        }
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        for (Diagnostic error : errors) {
+            diagnostics.add(error);
+        }
+        return describe(new Analyzer.Result(tokens.size(), diagnostics, errors.dropped(), parser.recoveries(), parser.maxNesting()));
+    }
+
+    private static String describe(Analyzer.Result result) {
+        Diagnostics errors = new Diagnostics();
+        for (Diagnostic diagnostic : result.diagnostics()) {
+            errors.add(diagnostic);
+        }
+        return result.tokens() + " tokens, " + result.droppedDiagnostics() + " dropped, " + result.recoveries()
+                + " recoveries, nesting " + result.maxNesting() + ", errors " + result.hasErrors() + ": "
+                + Checks.describe(errors);
+    }
+
+    private static String abbreviate(String input) {
+        return input.length() <= 2000 ? input : input.substring(0, 2000) + "... (" + input.length() + " characters)";
+    }
+}
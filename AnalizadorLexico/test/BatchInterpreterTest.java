@@ -0,0 +1,86 @@
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Prueba de {@link BatchInterpreter} contra {@link Interpreter}: cada fila de una ejecución por columnas
+ * debe terminar igual (estado, pasos y línea) y con los mismos valores que ejecutar el programa solo con
+ * los valores iniciales de esa fila. Hay más filas que {@link BatchInterpreter#BLOCK}, así que el último
+ * bloque está incompleto, y algunas columnas son null (empiezan en 0).
+ * <p>
+ * Además de programas aleatorios se prueban los casos que dependen de las máscaras: un while cuyas filas
+ * salen en distintas vueltas, una división entre cero en las filas que no toman esa rama y un máximo de
+ * pasos que detiene a las filas a la mitad de un bloque de sentencias.
+ */
+class BatchInterpreterTest {
+    private static final int PROGRAMS = 300;
+    private static final int ROWS = BatchInterpreter.BLOCK + BatchInterpreter.BLOCK / 2 + 3;
+    private static final long[] MAX_STEPS = {1, 5, 40, 500};
+    private static final String[] CASES = {
+            // Cada fila da un número distinto de vueltas
+            "while ( a < 10 ) do\n  a = a + 1 ;\n  b = b + a ;\nendwhile\n",
+            // Las filas con b igual a 0 no ejecutan la división
+            "if ( b == 0 ) then\n  c = 1 ;\nelse\n  c = a / b ;\nendif\nd = c ;\n",
+            "while ( b <> 0 ) do\n  a = a / b ;\n  b = b - 1 ;\nendwhile\n",
+            // Las filas sin división entre cero siguen hasta el máximo de pasos dentro del cuerpo
+            "while ( a > -100 ) do\n  b = b + 1 ;\n  c = 10 / a ;\n  a = a - 1 ;\nendwhile\n",
+    };
+
+    public static void main(String[] args) {
+        Set<Interpreter.Status> seen = EnumSet.noneOf(Interpreter.Status.class);
+        RandomPrograms programs = new RandomPrograms(0);
+        for (String program : CASES) {
+            for (long maxSteps : MAX_STEPS) {
+                compare(program, programs, maxSteps, seen);
+            }
+        }
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            programs = new RandomPrograms(seed);
+            String program = programs.program(1 + programs.random().nextInt(6), 1 + seed % 4);
+            compare(program, programs, MAX_STEPS[programs.random().nextInt(MAX_STEPS.length)], seen);
+        }
+        Checks.equal(EnumSet.allOf(Interpreter.Status.class), seen, "statuses reached by the random programs");
+    }
+
+    private static void compare(String text, RandomPrograms programs, long maxSteps, Set<Interpreter.Status> seen) {
+        Diagnostics errors = new Diagnostics();
+        Ast ast = new IterativeParser(TokenBuffer.lex(text, errors).cursor(), errors, Reporter.NONE).parseTree();
+        Checks.check(errors.isEmpty(), "Program has errors " + Checks.describe(errors) + ":\n" + text);
+        if (programs.random().nextBoolean()) {
+            Optimizer.optimize(ast);
+        }
+        BatchInterpreter batch = new BatchInterpreter(ast);
+        long[][] columns = new long[batch.slotCount()][];
+        for (int slot = 0; slot < columns.length; slot++) {
+            if (programs.random().nextInt(5) == 0) continue; // Columna null
+            columns[slot] = new long[ROWS];
+            for (int row = 0; row < ROWS; row++) {
+                columns[slot][row] = programs.random().nextInt(21) - 10;
+            }
+        }
+        BatchInterpreter.Result result = batch.run(columns, ROWS, maxSteps);
+
+        Program program = Program.compile(ast);
+        int[] slots = new int[program.slotCount()]; // Slot de cada variable del programa en BatchInterpreter
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot] = -1;
+            for (int other = 0; other < batch.slotCount(); other++) {
+                if (batch.variable(other).equals(program.variable(slot))) slots[slot] = other;
+            }
+            Checks.check(slots[slot] >= 0, "Variable " + program.variable(slot) + " missing from the batch");
+        }
+        for (int row = 0; row < ROWS; row++) {
+            Interpreter interpreter = new Interpreter(program);
+            for (int slot = 0; slot < slots.length; slot++) {
+                long[] column = columns[slots[slot]];
+                interpreter.frame()[slot] = column == null ? 0 : column[row];
+            }
+            Interpreter.Result expected = interpreter.run(maxSteps);
+            String context = "row " + row + ", max steps " + maxSteps + ":\n" + text;
+            Checks.equal(expected, new Interpreter.Result(result.status(row), result.steps()[row], result.lines()[row]), context);
+            for (int slot = 0; slot < slots.length; slot++) {
+                Checks.equal(interpreter.frame()[slot], result.columns()[slots[slot]][row], program.variable(slot) + " in " + context);
+            }
+            seen.add(expected.status());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comparaciones que usan las pruebas; si fallan lanzan un {@link AssertionError} con el caso que falló.
+ */
+final class Checks {
+    private Checks() {
+    }
+
+    /**
+     * Checa que dos valores sean iguales.
+     * @param expected Valor esperado (el de la implementación de referencia)
+     * @param actual   Valor obtenido
+     * @param context  Descripción del caso, por ejemplo el programa de entrada
+     */
+    static void equal(Object expected, Object actual, String context) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError("Expected " + expected + "\n but got " + actual + "\n in:\n" + context);
+        }
+    }
+
+    /**
+     * Checa una condición.
+     * @param condition Condición que debe cumplirse
+     * @param message   Descripción del caso
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Describe cada error con su código, línea, columna y mensaje, en el orden de la lista.
+     * @param errors Lista de errores
+     * @return Una cadena por error
+     */
+    static List<String> describe(Diagnostics errors) {
+        List<String> described = new ArrayList<>();
+        for (Diagnostic error : errors) {
+            described.add(error.getCode() + "@" + error.getLine() + ":" + error.getColumn() + " " + error.getMessage());
+        }
+        return described;
+    }
+}
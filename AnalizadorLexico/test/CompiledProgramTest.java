@@ -0,0 +1,98 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Prueba de {@link CompiledProgram} contra {@link Interpreter}: sobre programas aleatorios y valores
+ * iniciales aleatorios los dos deben terminar igual (estado, pasos y línea) y con los mismos valores.
+ * Los máximos de pasos son chicos, así que hay ejecuciones que llegan al máximo a la mitad de un ciclo, y
+ * los números chicos hacen frecuentes las divisiones entre cero. También se checa que un programa que no
+ * cabe en un método de la JVM no se compila.
+ */
+class CompiledProgramTest {
+    private static final int PROGRAMS = 1500;
+    private static final int RUNS = 8;
+    private static final long[] MAX_STEPS = {1, 7, 50, 1000};
+
+    public static void main(String[] args) throws IOException {
+        Set<Interpreter.Status> seen = EnumSet.noneOf(Interpreter.Status.class);
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            RandomPrograms programs = new RandomPrograms(seed);
+            String text = programs.program(1 + programs.random().nextInt(8), 1 + seed % 4);
+            Ast ast = parse(text);
+            if (seed % 2 == 1) {
+                Optimizer.optimize(ast);
+            }
+            Program program = Program.compile(ast);
+            CompiledProgram compiled = CompiledProgram.compile(program);
+            Checks.check(compiled != null, "Small program not compiled:\n" + text);
+            for (int run = 0; run < RUNS; run++) {
+                long[] initial = new long[program.slotCount()];
+                for (int slot = 0; slot < initial.length; slot++) {
+                    initial[slot] = programs.random().nextInt(11) - 5;
+                }
+                long maxSteps = MAX_STEPS[programs.random().nextInt(MAX_STEPS.length)];
+                seen.add(compare(program, compiled, initial, maxSteps, text));
+            }
+        }
+        Checks.equal(EnumSet.allOf(Interpreter.Status.class), seen, "statuses reached by the random programs");
+        largePrograms();
+    }
+
+    /**
+     * Los programas crecen al doble hasta que ya no caben en un método: el último que se compila debe dar
+     * el mismo resultado que el intérprete y el primero que no cabe debe regresar null; con ese,
+     * {@link Main#execute} debe usar el intérprete y mostrar lo mismo que sin compilar.
+     */
+    private static void largePrograms() throws IOException {
+        RandomPrograms programs = new RandomPrograms(0);
+        for (int statements = 16; ; statements *= 2) {
+            String text = programs.program(statements, 3);
+            Program program = Program.compile(parse(text));
+            CompiledProgram compiled = CompiledProgram.compile(program);
+            if (compiled == null) {
+                Checks.check(statements > 16, "Program of " + statements + " statements not compiled");
+                Path file = Files.createTempFile("program", ".txt");
+                try {
+                    Files.writeString(file, text);
+                    Checks.equal(execute(file, false), execute(file, true), statements + " statements");
+                } finally {
+                    Files.delete(file);
+                }
+                return;
+            }
+            compare(program, compiled, new long[program.slotCount()], 1_000_000, statements + " statements");
+        }
+    }
+
+    private static Interpreter.Status compare(Program program, CompiledProgram compiled, long[] initial, long maxSteps, String text) {
+        Interpreter interpreter = new Interpreter(program);
+        System.arraycopy(initial, 0, interpreter.frame(), 0, initial.length);
+        System.arraycopy(initial, 0, compiled.frame(), 0, initial.length);
+        Interpreter.Result expected = interpreter.run(maxSteps);
+        Interpreter.Result actual = compiled.run(maxSteps);
+        String context = "initial values " + Arrays.toString(initial) + ", max steps " + maxSteps + ":\n" + text;
+        Checks.equal(expected, actual, context);
+        Checks.equal(Arrays.toString(interpreter.frame()), Arrays.toString(compiled.frame()), context);
+        return expected.status();
+    }
+
+    private static String execute(Path file, boolean compiled) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Interpreter.Result result = Main.execute(file.toString(), new PrintStream(output, true), 1_000_000, compiled, false);
+        Checks.check(result != null, "Program not executed");
+        return output.toString();
+    }
+
+    private static Ast parse(String text) {
+        Diagnostics errors = new Diagnostics();
+        Ast ast = new IterativeParser(TokenBuffer.lex(text, errors).cursor(), errors, Reporter.NONE).parseTree();
+        Checks.check(errors.isEmpty(), "Generated program has errors " + Checks.describe(errors) + ":\n" + text);
+        return ast;
+    }
+}
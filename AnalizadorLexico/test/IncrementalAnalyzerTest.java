@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prueba de {@link IncrementalAnalyzer}: después de cada edición aleatoria (insertar, borrar o reemplazar
+ * texto, incluyendo saltos de línea) los tokens, los errores y las sentencias válidas deben ser los mismos
+ * que los de analizar el documento completo otra vez con {@link Lexer} y {@link Parser}.
+ */
+class IncrementalAnalyzerTest {
+    private static final int DOCUMENTS = 200;
+    private static final int EDITS = 60;
+
+    public static void main(String[] args) {
+        for (int seed = 0; seed < DOCUMENTS; seed++) {
+            RandomPrograms programs = new RandomPrograms(seed);
+            String text = programs.program(1 + programs.random().nextInt(12), 3);
+            if (seed % 2 == 1) {
+                text = programs.corrupt(text, 1 + programs.random().nextInt(6));
+            }
+            IncrementalAnalyzer analyzer = new IncrementalAnalyzer(text);
+            compare(analyzer, text, "seed " + seed + ", initial text");
+            for (int edit = 0; edit < EDITS; edit++) {
+                text = edit(programs, analyzer, text);
+                compare(analyzer, text, "seed " + seed + ", edit " + edit);
+            }
+        }
+    }
+
+    /**
+     * Aplica la misma edición aleatoria al analizador y al texto.
+     * @return El texto editado
+     */
+    private static String edit(RandomPrograms programs, IncrementalAnalyzer analyzer, String text) {
+        String[] lines = text.split("\n", -1);
+        int startLine = programs.random().nextInt(lines.length);
+        int startColumn = programs.random().nextInt(lines[startLine].length() + 1);
+        int endLine = Math.min(lines.length - 1, startLine + programs.random().nextInt(3));
+        int endColumn = programs.random().nextInt(lines[endLine].length() + 1);
+        if (endLine == startLine && endColumn < startColumn) {
+            endColumn = startColumn;
+        }
+        String inserted = switch (programs.random().nextInt(4)) {
+            case 0 -> "";                                                      // Borrar
+            case 1 -> programs.program(1 + programs.random().nextInt(2), 2); // Sentencias completas
+            default -> programs.fragment(1 + programs.random().nextInt(4));  // Tokens sueltos
+        };
+        analyzer.edit(startLine + 1, startColumn, endLine + 1, endColumn, inserted);
+        return text.substring(0, offset(lines, startLine, startColumn)) + inserted + text.substring(offset(lines, endLine, endColumn));
+    }
+
+    private static int offset(String[] lines, int line, int column) {
+        int offset = column;
+        for (int i = 0; i < line; i++) {
+            offset += lines[i].length() + 1;
+        }
+        return offset;
+    }
+
+    private static void compare(IncrementalAnalyzer analyzer, String text, String context) {
+        Diagnostics errors = new Diagnostics();
+        List<String> statements = new ArrayList<>();
+        List<Token> tokens = new Lexer(text, errors).tokenize();
+        new Parser(tokens, errors) {
+            @Override
+            void statementParsed(String description, int line) {
+                statements.add("Valid " + description + " statement at line " + line);
+            }
+        }.parse();
+
+        context += ":\n" + text;
+        Checks.equal(text, analyzer.text(), context);
+        Checks.equal(describe(tokens), describe(analyzer.tokens()), context);
+        Checks.equal(Checks.describe(errors), Checks.describe(analyzer.errors()), context);
+        Checks.equal(statements, analyzer.validStatements(), context);
+    }
+
+    private static List<String> describe(List<Token> tokens) {
+        List<String> described = new ArrayList<>();
+        for (Token token : tokens) {
+            described.add(token.getLexeme() + " " + token.getType() + " " + token.getValue()
+                    + "@" + token.getLineNumber() + ":" + token.getColumn());
+        }
+        return described;
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prueba de {@link IterativeParser} contra {@link Parser}: sobre los ejemplos, programas aleatorios con y
+ * sin errores y programas muy anidados, los dos deben reportar los mismos errores (código, línea, columna
+ * y mensaje), las mismas sentencias válidas y el mismo número de recuperaciones. También se checa el
+ * máximo de anidamiento del parser iterativo.
+ */
+class IterativeParserTest {
+    private static final int PROGRAMS = 2000;
+    private static final int DEEP = 20000;   // Anidamiento que el parser recursivo solo alcanza con una pila grande
+    private static final long STACK = 1L << 30;
+
+    public static void main(String[] args) throws Exception {
+        for (String example : RandomPrograms.examples()) {
+            compare(example, Integer.MAX_VALUE);
+        }
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            RandomPrograms programs = new RandomPrograms(seed);
+            String program = programs.program(1 + programs.random().nextInt(10), 1 + seed % 6);
+            compare(seed % 4 == 0 ? program : programs.corrupt(program, 1 + programs.random().nextInt(8)), Integer.MAX_VALUE);
+        }
+        deepNesting();
+        maxDepth();
+    }
+
+    private static void deepNesting() throws InterruptedException {
+        String program = RandomPrograms.nested(DEEP);
+        compareInLargeStack(program);
+        compareInLargeStack(program.substring(0, program.length() - "endwhile\n".length()));  // Falta un endwhile
+        compareInLargeStack(program.replace("while ( a < " + DEEP / 2 + " )", "while ( a < )")); // Error a la mitad
+    }
+
+    /**
+     * Con un máximo de N bloques y paréntesis, un programa con N niveles se acepta y uno con N + 1 se
+     * rechaza con un solo error y el análisis sigue en la siguiente sentencia de nivel superior.
+     */
+    private static void maxDepth() {
+        for (int depth = 1; depth < 40; depth++) {
+            // Cada while abre un bloque (el paréntesis de su condición se cierra antes); la asignación abre dos paréntesis
+            String program = RandomPrograms.nested(depth);
+            int levels = depth + 2;
+            Checks.check(parse(program, levels).errors.isEmpty(), "Nesting of " + levels + " rejected");
+            Result rejected = parse(program + "b = 1 ;\n", levels - 1);
+            Checks.equal(1, rejected.errors.size(), program);
+            Checks.check(rejected.errors.get(0).startsWith("NESTING_TOO_DEEP@"), "Unexpected error " + rejected.errors);
+            Checks.equal(List.of("Valid assignment statement at line " + (2 * depth + 2)), rejected.statements, program);
+        }
+    }
+
+    private static void compare(String program, int maxDepth) {
+        Result recursive = parse(program, -1);
+        Result iterative = parse(program, maxDepth);
+        Checks.equal(recursive, iterative, program);
+    }
+
+    private static void compareInLargeStack(String program) throws InterruptedException {
+        AssertionError[] error = new AssertionError[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                compare(program, Integer.MAX_VALUE);
+            } catch (AssertionError e) {
+                error[0] = e;
+            }
+        }, "parser", STACK);
+        thread.start();
+        thread.join();
+        if (error[0] != null) {
+            throw new AssertionError(error[0].getMessage().lines().limit(4).toList().toString());
+        }
+    }
+
+    /**
+     * Resultado de un análisis.
+     * @param errors      Errores descritos con {@link Checks#describe(Diagnostics)}
+     * @param statements  Mensajes de las sentencias válidas
+     * @param recoveries  Número de recuperaciones
+     */
+    private record Result(List<String> errors, List<String> statements, int recoveries) {
+    }
+
+    /**
+     * Analiza un programa con el parser recursivo ({@code maxDepth} negativo) o el iterativo.
+     */
+    private static Result parse(String program, int maxDepth) {
+        Diagnostics errors = new Diagnostics();
+        List<String> statements = new ArrayList<>();
+        Reporter reporter = new Reporter() {
+            @Override
+            public void statement(String description, int line) {
+                statements.add("Valid " + description + " statement at line " + line);
+            }
+        };
+        TokenBuffer tokens = TokenBuffer.lex(program, errors);
+        Parser parser = maxDepth < 0
+                ? new Parser(tokens.cursor(), errors, reporter)
+                : new IterativeParser(tokens.cursor(), errors, reporter, maxDepth);
+        parser.parse();
+        return new Result(Checks.describe(errors), statements, parser.recoveries());
+    }
+}
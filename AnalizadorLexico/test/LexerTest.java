@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Prueba de {@link ParallelLexer} y {@link MappedLexer} ({@link TokenBuffer#map}) contra
+ * {@link TokenBuffer#lex(String, Diagnostics)}: sobre los ejemplos, programas aleatorios con y sin errores
+ * léxicos y una entrada de más de 2 MB (con saltos de línea LF y CRLF), los tres deben dar los mismos tokens
+ * (tipo, lexema, posición, línea, columna, texto, variable y marca de sincronización) y los mismos errores.
+ * Los programas pequeños se analizan en una sola parte, así que también se juntan en entradas grandes para
+ * que {@link ParallelLexer} las corte en varias partes. Todos los programas son ASCII, porque con otros
+ * caracteres las columnas de {@link MappedLexer} cuentan bytes.
+ */
+class LexerTest {
+    private static final int PROGRAMS = 3000;
+    private static final int LARGE = 2 << 20; // Caracteres de la entrada grande
+    private static final int GROUP = 500;     // Programas aleatorios por entrada grande
+
+    public static void main(String[] args) throws IOException {
+        List<String> programs = new ArrayList<>(RandomPrograms.examples());
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            RandomPrograms generator = new RandomPrograms(seed);
+            String program = generator.program(1 + generator.random().nextInt(10), 1 + seed % 5);
+            programs.add(switch (seed % 4) {
+                case 0 -> program;
+                case 1 -> program.replace("\n", "\r\n");
+                case 2 -> program.strip(); // Sin salto de línea al final
+                default -> generator.corrupt(program, 1 + generator.random().nextInt(8));
+            });
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            for (String program : programs) {
+                compare(program, pool);
+            }
+            for (int from = 0; from < programs.size(); from += GROUP) {
+                compare(String.join("", programs.subList(from, Math.min(programs.size(), from + GROUP))), pool);
+            }
+            String large = large(programs);
+            compare(large, pool);
+            compare(large.replace("\n", "\r\n"), pool);
+        }
+    }
+
+    private static String large(List<String> programs) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < LARGE; i++) {
+            text.append(programs.get(i % programs.size())).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void compare(String input, ForkJoinPool pool) throws IOException {
+        Diagnostics expectedErrors = new Diagnostics();
+        List<String> expected = describe(TokenBuffer.lex(input, expectedErrors));
+        String context = input.length() <= 2000 ? input : input.length() + " characters";
+
+        Diagnostics parallelErrors = new Diagnostics();
+        Checks.equal(expected, describe(ParallelLexer.lex(input, parallelErrors, pool)), "parallel lexer:\n" + context);
+        Checks.equal(Checks.describe(expectedErrors), Checks.describe(parallelErrors), "parallel lexer:\n" + context);
+
+        Path file = Files.createTempFile("program", ".txt");
+        try {
+            Files.writeString(file, input);
+            Diagnostics mappedErrors = new Diagnostics();
+            Checks.equal(expected, describe(TokenBuffer.map(file, mappedErrors)), "mapped lexer:\n" + context);
+            Checks.equal(Checks.describe(expectedErrors), Checks.describe(mappedErrors), "mapped lexer:\n" + context);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<String> describe(TokenBuffer tokens) {
+        List<String> described = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            described.add(tokens.type(i) + " " + tokens.lexeme(i) + " " + tokens.start(i) + "-" + tokens.end(i)
+                    + " " + tokens.line(i) + ":" + tokens.column(i) + " '" + tokens.text(i) + "' " + tokens.symbol(i)
+                    + " " + tokens.name(i) + (tokens.nextSynchronizing(i) == i ? " sync" : ""));
+        }
+        return described;
+    }
+}
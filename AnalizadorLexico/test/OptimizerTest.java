@@ -0,0 +1,89 @@
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prueba de {@link Optimizer} con {@link Interpreter}: cada programa aleatorio se ejecuta sin optimizar y
+ * optimizado con los mismos valores iniciales. El optimizado no evalúa las condiciones que quitó, así que
+ * puede tomar menos pasos, pero nunca más; si los dos terminan deben hacerlo igual (estado y línea) y con
+ * los mismos valores. Las variables se comparan por nombre, porque las que solo aparecen en ramas
+ * eliminadas no tienen slot en el programa optimizado (y deben conservar su valor inicial).
+ */
+class OptimizerTest {
+    private static final int PROGRAMS = 2000;
+    private static final int RUNS = 8;
+    private static final long[] MAX_STEPS = {3, 20, 200, 5000};
+    private static final String[] VARIABLES = {"a", "b", "c", "d"};
+
+    public static void main(String[] args) {
+        Set<Interpreter.Status> seen = EnumSet.noneOf(Interpreter.Status.class);
+        int folded = 0;
+        int removed = 0;
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            RandomPrograms programs = new RandomPrograms(seed);
+            String text = programs.program(1 + programs.random().nextInt(8), 1 + seed % 4);
+            Program plain = Program.compile(parse(text));
+            Ast ast = parse(text);
+            Optimizer.Report report = Optimizer.optimize(ast);
+            folded += report.foldedOperations();
+            removed += report.removedBranches() + report.removedLoops();
+            Program optimized = Program.compile(ast);
+            for (int run = 0; run < RUNS; run++) {
+                Map<String, Long> initial = new HashMap<>();
+                for (String variable : VARIABLES) {
+                    initial.put(variable, (long) (programs.random().nextInt(11) - 5));
+                }
+                long maxSteps = MAX_STEPS[programs.random().nextInt(MAX_STEPS.length)];
+                compare(plain, optimized, initial, maxSteps, text, seen);
+            }
+        }
+        Checks.check(folded > 0 && removed > 0, folded + " operations folded, " + removed + " branches and loops removed");
+        Checks.equal(EnumSet.allOf(Interpreter.Status.class), seen, "statuses reached by both programs");
+    }
+
+    private static void compare(Program plain, Program optimized, Map<String, Long> initial, long maxSteps, String text,
+                                Set<Interpreter.Status> seen) {
+        Interpreter expected = start(plain, initial);
+        Interpreter actual = start(optimized, initial);
+        Interpreter.Result plainResult = expected.run(maxSteps);
+        Interpreter.Result optimizedResult = actual.run(maxSteps);
+        String context = "initial values " + initial + ", max steps " + maxSteps + ":\n" + text;
+        Checks.check(optimizedResult.steps() <= plainResult.steps(),
+                "Optimized " + optimizedResult + " takes more steps than " + plainResult + " with " + context);
+        if (plainResult.status() == Interpreter.Status.STEP_LIMIT) {
+            if (optimizedResult.status() == Interpreter.Status.STEP_LIMIT) seen.add(Interpreter.Status.STEP_LIMIT);
+            return;
+        }
+        Checks.equal(plainResult.status(), optimizedResult.status(), context);
+        Checks.equal(plainResult.line(), optimizedResult.line(), context);
+        Checks.equal(values(expected, plain, initial), values(actual, optimized, initial), context);
+        seen.add(plainResult.status());
+    }
+
+    private static Interpreter start(Program program, Map<String, Long> initial) {
+        Interpreter interpreter = new Interpreter(program);
+        for (int slot = 0; slot < program.slotCount(); slot++) {
+            interpreter.frame()[slot] = initial.get(program.variable(slot));
+        }
+        return interpreter;
+    }
+
+    /**
+     * Valores finales por nombre; las variables que no están en el programa conservan su valor inicial.
+     */
+    private static Map<String, Long> values(Interpreter interpreter, Program program, Map<String, Long> initial) {
+        Map<String, Long> values = new HashMap<>(initial);
+        for (int slot = 0; slot < program.slotCount(); slot++) {
+            values.put(program.variable(slot), interpreter.frame()[slot]);
+        }
+        return values;
+    }
+
+    private static Ast parse(String text) {
+        Diagnostics errors = new Diagnostics();
+        Ast ast = new IterativeParser(TokenBuffer.lex(text, errors).cursor(), errors, Reporter.NONE).parseTree();
+        Checks.check(errors.isEmpty(), "Generated program has errors " + Checks.describe(errors) + ":\n" + text);
+        return ast;
+    }
+}
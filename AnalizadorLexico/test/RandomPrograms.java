@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador determinista de programas aleatorios para las pruebas. Con la misma semilla siempre se genera
+ * lo mismo. Los programas válidos usan pocas variables y números chicos, así que los ciclos terminan o no
+ * según los datos y las divisiones entre cero son frecuentes; {@link #corrupt(String, int)} les mete errores
+ * léxicos y sintácticos cambiando tokens de lugar.
+ */
+class RandomPrograms {
+    private static final String[] VARIABLES = {"a", "b", "c", "d"};
+    private static final String[] COMPARISONS = {"==", "!=", "<>", "<", "<=", ">", ">="};
+    private static final String[] OPERATORS = {"+", "-", "*", "/"};
+    private static final String[] NOISE = {
+            "if", "then", "else", "endif", "while", "do", "endwhile", "(", ")", ";", "=", "==", "<", "+", "*",
+            "a", "b", "7", "#", "@@", "$x", "\n", "\n\n"
+    };
+
+    private final Random random;
+    private final StringBuilder output = new StringBuilder();
+
+    /**
+     * Constructor de la clase RandomPrograms
+     * @param seed Semilla del generador
+     */
+    RandomPrograms(long seed) {
+        this.random = new Random(seed);
+    }
+
+    Random random() {
+        return random;
+    }
+
+    /**
+     * Genera un programa sin errores.
+     * @param statements Número de sentencias de nivel superior
+     * @param maxDepth   Anidamiento máximo de if/while
+     * @return El texto del programa
+     */
+    String program(int statements, int maxDepth) {
+        output.setLength(0);
+        for (int i = 0; i < statements; i++) {
+            statement(0, maxDepth);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Lee los archivos de ejemplo que analiza {@link Main} (input1.txt a input3.txt en el directorio de
+     * trabajo); los que no existen se omiten.
+     * @return El texto de cada ejemplo
+     */
+    static List<String> examples() throws IOException {
+        List<String> examples = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Path file = Path.of("input" + i + ".txt");
+            if (Files.exists(file)) {
+                examples.add(Main.readInput(file.toString()));
+            }
+        }
+        return examples;
+    }
+
+    /**
+     * Genera un programa con {@code depth} ciclos while anidados alrededor de una asignación.
+     * @param depth Número de bloques anidados
+     * @return El texto del programa
+     */
+    static String nested(int depth) {
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            program.append("while ( a < ").append(i).append(" ) do\n");
+        }
+        program.append("a = ( ( a + 1 ) ) ;\n");
+        for (int i = 0; i < depth; i++) {
+            program.append("endwhile\n");
+        }
+        return program.toString();
+    }
+
+    /**
+     * Cambia tokens de un programa: borra, duplica o reemplaza tokens e inserta tokens de
+     * {@link #NOISE}, que incluye palabras clave fuera de lugar, caracteres que el lexer no
+     * reconoce y saltos de línea.
+     * @param program Programa generado con {@link #program(int, int)}
+     * @param edits   Número de cambios
+     * @return El texto del programa con errores
+     */
+    String corrupt(String program, int edits) {
+        List<String> tokens = new ArrayList<>(List.of(program.split(" ")));
+        for (int i = 0; i < edits && !tokens.isEmpty(); i++) {
+            int index = random.nextInt(tokens.size());
+            switch (random.nextInt(4)) {
+                case 0 -> tokens.remove(index);
+                case 1 -> tokens.add(index, tokens.get(index));
+                case 2 -> tokens.set(index, noise());
+                default -> tokens.add(index, noise());
+            }
+        }
+        return String.join(" ", tokens);
+    }
+
+    /**
+     * Genera un fragmento de texto para insertar en un programa: tokens válidos o no y saltos de línea.
+     * @param length Número de tokens
+     * @return El fragmento
+     */
+    String fragment(int length) {
+        StringBuilder fragment = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            fragment.append(random.nextInt(3) == 0 ? VARIABLES[random.nextInt(VARIABLES.length)] : noise());
+            fragment.append(random.nextBoolean() ? " " : "");
+        }
+        return fragment.toString();
+    }
+
+    private String noise() {
+        return NOISE[random.nextInt(NOISE.length)];
+    }
+
+    private void statement(int depth, int maxDepth) {
+        int choice = random.nextInt(10);
+        if (depth < maxDepth && choice < 2) {
+            indent(depth);
+            output.append("if ");
+            condition();
+            output.append(" then\n");
+            block(depth + 1, maxDepth);
+            if (random.nextBoolean()) {
+                indent(depth);
+                output.append("else\n");
+                block(depth + 1, maxDepth);
+            }
+            indent(depth);
+            output.append("endif\n");
+        } else if (depth < maxDepth && choice < 4) {
+            indent(depth);
+            output.append("while ");
+            condition();
+            output.append(" do\n");
+            block(depth + 1, maxDepth);
+            indent(depth);
+            output.append("endwhile\n");
+        } else {
+            indent(depth);
+            output.append(variable()).append(" = ");
+            expression(1 + random.nextInt(4));
+            output.append(" ;\n");
+        }
+    }
+
+    private void block(int depth, int maxDepth) {
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            statement(depth, maxDepth);
+        }
+    }
+
+    private void condition() {
+        output.append("( ");
+        expression(1 + random.nextInt(2));
+        output.append(' ').append(COMPARISONS[random.nextInt(COMPARISONS.length)]).append(' ');
+        expression(1 + random.nextInt(2));
+        output.append(" )");
+    }
+
+    private void expression(int operands) {
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                output.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            }
+            int choice = random.nextInt(8);
+            if (choice == 0 && operands < 6) {
+                output.append("( ");
+                expression(2);
+                output.append(" )");
+            } else if (choice < 4) {
+                output.append(random.nextInt(6));
+            } else {
+                output.append(variable());
+            }
+        }
+    }
+
+    private String variable() {
+        return VARIABLES[random.nextInt(VARIABLES.length)];
+    }
+
+    private void indent(int depth) {
+        for (int i = 0; i < depth; i++) {
+            output.append("  ");
+        }
+    }
+}
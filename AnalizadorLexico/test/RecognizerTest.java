@@ -0,0 +1,86 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Prueba de {@link Recognizer} contra {@link Parser}: sobre los ejemplos y programas aleatorios con y sin
+ * errores, el reconocedor debe aceptar exactamente los programas que el parser acepta y marcar sus errores
+ * de sintaxis en los mismos tokens. Con un máximo de errores, que incluye los errores léxicos igual que
+ * {@link Diagnostics#isFull()}, los dos deben detenerse después del mismo error. También se checa que
+ * {@code --validate} ({@link Main#validate}) acepta y rechaza los mismos archivos que el parser.
+ */
+class RecognizerTest {
+    private static final int PROGRAMS = 3000;
+    private static final int FILES = 200;
+    private static final int[] LIMITS = {1, 2, 3, 5, 8};
+
+    public static void main(String[] args) throws IOException {
+        Recognizer recognizer = new Recognizer();
+        List<String> programs = new ArrayList<>(RandomPrograms.examples());
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            RandomPrograms generator = new RandomPrograms(seed);
+            String program = generator.program(1 + generator.random().nextInt(10), 1 + seed % 5);
+            programs.add(seed % 4 == 0 ? program : generator.corrupt(program, 1 + generator.random().nextInt(8)));
+        }
+        int rejected = 0;
+        for (String program : programs) {
+            boolean valid = compare(program, recognizer, Integer.MAX_VALUE);
+            if (!valid) rejected++;
+            for (int limit : LIMITS) {
+                compare(program, new Recognizer(limit), limit);
+            }
+        }
+        Checks.check(rejected > 0 && rejected < programs.size(), rejected + " of " + programs.size() + " programs rejected");
+        for (int i = 0; i < FILES; i++) {
+            validate(programs.get(i));
+        }
+    }
+
+    /**
+     * Compara el reconocedor y el parser con el mismo máximo de errores.
+     * @return Si el parser acepta el programa
+     */
+    private static boolean compare(String program, Recognizer recognizer, int limit) {
+        Diagnostics errors = new Diagnostics(limit);
+        TokenBuffer tokens = TokenBuffer.lex(program, errors);
+        int lexical = errors.size();
+        new Parser(tokens.cursor(), errors, Reporter.NONE).parse();
+        List<String> expected = new ArrayList<>();
+        for (Diagnostic error : errors) {
+            if (error.getCode() != Diagnostic.Code.UNRECOGNIZED_TOKEN) {
+                expected.add(error.getColumn() == 0 ? "end" : error.getLine() + ":" + error.getColumn());
+            }
+        }
+
+        boolean recognized = recognizer.recognize(tokens, lexical);
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < recognizer.errorCount(); i++) {
+            int position = recognizer.errorPosition(i);
+            actual.add(position == tokens.size() ? "end" : tokens.line(position) + ":" + tokens.column(position));
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        String context = "max errors " + limit + ":\n" + program;
+        Checks.equal(expected, actual, context);
+        Checks.equal(expected.isEmpty(), recognized, context);
+        return errors.isEmpty();
+    }
+
+    private static void validate(String program) throws IOException {
+        Diagnostics errors = new Diagnostics();
+        new Parser(TokenBuffer.lex(program, errors).cursor(), errors, Reporter.NONE).parse();
+        Path file = Files.createTempFile("program", ".txt");
+        try {
+            Files.writeString(file, program);
+            boolean valid = Main.validate(file.toString(), new PrintStream(new ByteArrayOutputStream()));
+            Checks.equal(errors.isEmpty(), valid, program);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}